@@ -1,6 +1,5 @@
 package browsrhtml;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -33,7 +32,7 @@ public class BrowsrDocumentValidator {
 	}
 	
 	void assertTokenValue(String value) {
-		assertTrue(lexer.getTokenValue().equals(value));
+		assertTrue(lexer.tokenValueEquals(value));
 	}
 	
 	String consumeToken(TokenType tokenType) {
@@ -74,7 +73,7 @@ public class BrowsrDocumentValidator {
 				first = false;
 			else
 				text.append(' ');
-			text.append(lexer.getTokenValue());
+			lexer.appendTokenValue(text);
 			eatToken();
 		}
 		return text.toString();
@@ -105,13 +104,13 @@ public class BrowsrDocumentValidator {
 	
 	void consumeTableRow() {
 		consumeStartTag("tr");
-		while (lexer.getTokenType() == TokenType.OPEN_START_TAG && lexer.getTokenValue().equals("td"))
+		while (lexer.getTokenType() == TokenType.OPEN_START_TAG && lexer.tokenValueEquals("td"))
 			consumeTableCell();
 	}
 	
 	void consumeTable() {
 		consumeStartTag("table");
-		while (lexer.getTokenType() == TokenType.OPEN_START_TAG && lexer.getTokenValue().equals("tr"))
+		while (lexer.getTokenType() == TokenType.OPEN_START_TAG && lexer.tokenValueEquals("tr"))
 			consumeTableRow();
 		consumeEndTag("table");
 	}
@@ -120,7 +119,7 @@ public class BrowsrDocumentValidator {
 		switch (lexer.getTokenType()) {
 		case TEXT -> consumeTextSpan();
 		case OPEN_START_TAG -> {
-			switch (lexer.getTokenValue()) {
+			switch (lexer.getTagName()) {
 			case "a" -> consumeHyperlink();
 			case "table" -> consumeTable();
 			default -> fail();
@@ -139,7 +138,9 @@ public class BrowsrDocumentValidator {
 	}
 	
 	public static void assertIsValidBrowsrDocument(URL url) throws IOException {
-		new BrowsrDocumentValidator(new BufferedReader(new InputStreamReader(url.openStream()))).consumeBrowsrDocument();
+		try (Reader reader = new InputStreamReader(url.openStream())) {
+			new BrowsrDocumentValidator(reader).consumeBrowsrDocument();
+		}
 	}
 	
 	
@@ -36,6 +36,18 @@ public class ContentSpanBuilder extends BrowsrDocumentValidator {
         return new ContentSpanBuilder(new StringReader(document)).getContentSpan();
     }
 
+    /**
+     * Convert the HTML code read by the given reader into a {@link ContentSpan}.
+     *
+     * @param reader:
+     *                The {@link Reader} the HTML code is read from.
+     * @return contentSpan:
+     *                The {@link ContentSpan} corresponding to the HTML code.
+     */
+    public static ContentSpan buildContentSpan(Reader reader) {
+        return new ContentSpanBuilder(reader).getContentSpan();
+    }
+
     /**
      * Convert the given URL into a {@link ContentSpan}.
      *
@@ -46,7 +58,10 @@ public class ContentSpanBuilder extends BrowsrDocumentValidator {
      * @throws IOException: When the given {@code URL} can't be fetched.
      */
     public static ContentSpan buildContentSpan(URL url) throws IOException {
-        return new ContentSpanBuilder(new BufferedReader(new InputStreamReader(url.openStream()))).getContentSpan();
+        // The lexer buffers its input itself, so the stream is not wrapped in a BufferedReader
+        try (Reader reader = new InputStreamReader(url.openStream())) {
+            return new ContentSpanBuilder(reader).getContentSpan();
+        }
     }
 
     /**
@@ -60,7 +75,7 @@ public class ContentSpanBuilder extends BrowsrDocumentValidator {
         switch (lexer.getTokenType()) {
             case TEXT -> { return new TextSpan(consumeTextSpan()); }
             case OPEN_START_TAG -> {
-                switch (lexer.getTokenValue()) {
+                switch (lexer.getTagName()) {
                     case "a" -> { return getHyperlink(); }
                     case "table" -> { return getTable(); }
                     case "form" -> {
@@ -113,6 +128,7 @@ public class ContentSpanBuilder extends BrowsrDocumentValidator {
     	consumeOpenStartTag("form");
     	String action = consumeAttribute("action");		// extract the action of the form
     	consumeToken(HtmlLexer.TokenType.CLOSE_TAG);	
+    	formOpened(action);
     	ContentSpan content = getContentSpan();
     	consumeEndTag("form");
     	return new Form(action, content);
@@ -144,9 +160,11 @@ public class ContentSpanBuilder extends BrowsrDocumentValidator {
     Table getTable() {
         Table table = new Table(new ArrayList<>());
         consumeStartTag("table");
-        while (lexer.getTokenType() == HtmlLexer.TokenType.OPEN_START_TAG && lexer.getTokenValue().equals("tr"))
+        tableOpened(table);
+        while (lexer.getTokenType() == HtmlLexer.TokenType.OPEN_START_TAG && lexer.tokenValueEquals("tr"))
             table.addTableRow(getTableRow());
         consumeEndTag("table");
+        tableClosed(table);
         return table;
     }
 
@@ -160,8 +178,12 @@ public class ContentSpanBuilder extends BrowsrDocumentValidator {
     TableRow getTableRow() {
         TableRow tableRow = new TableRow(new ArrayList<>());
         consumeStartTag("tr");
-        while (lexer.getTokenType() == HtmlLexer.TokenType.OPEN_START_TAG && lexer.getTokenValue().equals("td"))
+        tableRowOpened(tableRow);
+        while (lexer.getTokenType() == HtmlLexer.TokenType.OPEN_START_TAG && lexer.tokenValueEquals("td")) {
             tableRow.addTableCell(getTableCell());
+            tableCellClosed(tableRow);
+        }
+        tableRowClosed(tableRow);
         return tableRow;
     }
 
@@ -177,6 +199,49 @@ public class ContentSpanBuilder extends BrowsrDocumentValidator {
         return new TableCell(getContentSpan());
     }
     
+    /**
+     * Called when the start tag of a {@link Form} with the given action has been parsed.
+     *
+     * @param action: The action of the {@link Form} that is being parsed.
+     */
+    void formOpened(String action) { }
+
+    /**
+     * Called when the start tag of the given, still empty {@link Table} has been parsed.
+     *
+     * @param table: The {@link Table} that is being parsed.
+     */
+    void tableOpened(Table table) { }
+
+    /**
+     * Called when the given {@link Table} has been parsed completely.
+     *
+     * @param table: The {@link Table} that was parsed.
+     */
+    void tableClosed(Table table) { }
+
+    /**
+     * Called when the start tag of the given, still empty {@link TableRow} has been parsed.
+     *
+     * @param row: The {@link TableRow} that is being parsed.
+     */
+    void tableRowOpened(TableRow row) { }
+
+    /**
+     * Called when a {@link TableCell} has been parsed completely and added to the given {@link TableRow}.
+     *
+     * @param row: The {@link TableRow} the parsed cell was added to.
+     */
+    void tableCellClosed(TableRow row) { }
+
+    /**
+     * Called when the given {@link TableRow} has been parsed completely,
+     * right before it is added to its {@link Table}.
+     *
+     * @param row: The {@link TableRow} that was parsed.
+     */
+    void tableRowClosed(TableRow row) { }
+
     /**
      * Boolean used as reference to if {@link Form} is already parsed
      */
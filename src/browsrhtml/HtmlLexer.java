@@ -2,6 +2,7 @@ package browsrhtml;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 
 public class HtmlLexer {
 	
@@ -22,16 +23,132 @@ public class HtmlLexer {
 		END_OF_FILE
 	}
 	
-	private Reader reader;
+	/**
+	 * The number of characters that are read from the underlying {@link Reader} in one go.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+	
+	private final Reader reader;
 	private int c;
 	private boolean insideTag;
 	private TokenType tokenType;
-	private StringBuilder tokenValue = new StringBuilder();
 	
-	public String getTokenValue() { return tokenValue.toString(); }
+	/**
+	 * The window of characters read from {@code reader}: only {@code buffer[0..limit)} holds valid data,
+	 * and {@code buffer[position]} is the current character {@code c}.
+	 */
+	private char[] buffer;
+	private int position;
+	private int limit;
+	private boolean endOfInput;
+	
+	/**
+	 * The value of the current token is the slice {@code buffer[tokenStart..tokenStart+tokenLength)}.
+	 * Every token value is a contiguous run of input characters, so it never has to be copied while lexing.
+	 */
+	private int tokenStart;
+	private int tokenLength;
+	
+	/**
+	 * The tag names Browsr documents can contain. {@link #getTagName()} returns these exact instances,
+	 * so dispatching on a tag never copies its name out of the buffer.
+	 */
+	private static final String[] TAG_NAMES = { "a", "table", "tr", "td", "form", "input" };
+	
+	/**
+	 * The value of the current token as a {@link String}, created on the first call of {@link #getTokenValue()}.
+	 */
+	private String tokenString;
+	
+	/**
+	 * A reusable view on the value of the current token.
+	 */
+	private final CharSequence tokenChars = new CharSequence() {
+		@Override
+		public int length() { return tokenLength; }
+		
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= tokenLength)
+				throw new IndexOutOfBoundsException(index);
+			return buffer[tokenStart + index];
+		}
+		
+		@Override
+		public CharSequence subSequence(int start, int end) { return getTokenValue().substring(start, end); }
+		
+		@Override
+		public String toString() { return getTokenValue(); }
+	};
+	
+	public String getTokenValue() {
+		if (tokenString == null)
+			tokenString = tokenLength == 0 ? "" : new String(buffer, tokenStart, tokenLength);
+		return tokenString;
+	}
+	
+	/**
+	 * Retrieve the value of the current token without copying it.
+	 * The returned view is reused and only valid until the next call of {@link #eatToken()}.
+	 *
+	 * @return tokenChars: a view on the value of the current token.
+	 */
+	public CharSequence getTokenChars() { return tokenChars; }
+	
+	/**
+	 * Check whether the value of the current token equals the given characters, without allocating.
+	 *
+	 * @param value: the characters to compare with.
+	 * @return true iff the value of the current token consists of exactly the given characters.
+	 */
+	public boolean tokenValueEquals(CharSequence value) {
+		if (value.length() != tokenLength)
+			return false;
+		for (int i = 0; i < tokenLength; i++)
+			if (buffer[tokenStart + i] != value.charAt(i))
+				return false;
+		return true;
+	}
+	
+	/**
+	 * Retrieve the value of the current token as a tag name. For the tags supported by Browsr this is
+	 * a shared constant, so no new {@link String} is created. Other tag names are copied as usual.
+	 *
+	 * @return tagName: the value of the current token.
+	 */
+	public String getTagName() {
+		for (String tagName : TAG_NAMES)
+			if (tokenValueEquals(tagName))
+				return tagName;
+		return getTokenValue();
+	}
+	
+	/**
+	 * Append the value of the current token to the given {@link StringBuilder}, without an intermediate {@link String}.
+	 *
+	 * @param builder: the builder to append to.
+	 */
+	public void appendTokenValue(StringBuilder builder) {
+		builder.append(buffer, tokenStart, tokenLength);
+	}
 	
 	public HtmlLexer(Reader reader) {
+		this(reader, DEFAULT_BUFFER_SIZE);
+	}
+	
+	/**
+	 * Initialise this HtmlLexer with the given reader and an internal buffer of the given initial size.
+	 * The buffer grows when a single token does not fit in it.
+	 *
+	 * @param reader: The {@link Reader} the characters are read from.
+	 * @param bufferSize: The initial size of the internal character buffer.
+	 */
+	public HtmlLexer(Reader reader, int bufferSize) {
+		if (bufferSize <= 0)
+			throw new IllegalArgumentException("The buffer size must be positive.");
 		this.reader = reader;
+		this.buffer = new char[bufferSize];
+		this.position = -1;
 		eatChar();
 		eatToken();
 	}
@@ -41,15 +158,51 @@ public class HtmlLexer {
 	}
 	
 	private void eatChar() {
+		if (++position < limit || fillBuffer())
+			c = buffer[position];
+		else
+			c = -1;
+	}
+	
+	/**
+	 * Read the next block of characters into the buffer. Characters of the token that is being
+	 * lexed are moved to the front of the buffer first, and the buffer is doubled when they fill it.
+	 *
+	 * @return true iff at least one new character is available at {@code buffer[position]}.
+	 */
+	private boolean fillBuffer() {
+		if (endOfInput) {
+			position = limit;
+			return false;
+		}
+		int keep = tokenLength > 0 ? tokenStart : limit;
+		if (keep > 0) {
+			System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+			limit -= keep;
+			tokenStart = 0;
+		}
+		if (limit == buffer.length)
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		position = limit;
+		int read;
 		try {
-			c = reader.read();
+			do
+				read = reader.read(buffer, limit, buffer.length - limit);
+			while (read == 0);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
+		if (read < 0) {
+			endOfInput = true;
+			return false;
+		}
+		limit += read;
+		return true;
 	}
 	
 	private void appendChar() {
-		tokenValue.append((char)c);
+		if (tokenLength++ == 0)
+			tokenStart = position;
 		eatChar();
 	}
 	
@@ -61,7 +214,8 @@ public class HtmlLexer {
 	
 	private TokenType nextToken() {
 		for (;;) {
-			tokenValue.setLength(0);
+			tokenLength = 0;
+			tokenString = null;
 			if (insideTag) {
 				switch (c) {
 				case ' ':
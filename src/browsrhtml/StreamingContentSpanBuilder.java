@@ -0,0 +1,164 @@
+package browsrhtml;
+
+import domainlayer.*;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ContentSpanBuilder} that reports the document while it is still being parsed.
+ *
+ * <p>
+ *     Each time a cell or row of the top-level {@link Table} (possibly wrapped in a {@link Form})
+ *     closes, a snapshot of the part of the document parsed so far is passed to a consumer.
+ *     Snapshots only contain completed cells, and are never modified afterwards, so they can
+ *     safely be handed to another thread while parsing continues.
+ * </p>
+ */
+public class StreamingContentSpanBuilder extends ContentSpanBuilder {
+
+    /**
+     * Initialise this StreamingContentSpanBuilder with the given parameters.
+     *
+     * @param reader: The {@link Reader} this builder reads the document from.
+     * @param partialContentConsumer: The consumer that receives the snapshots of the partially parsed document.
+     * @param minimumIntervalMillis: The minimum number of milliseconds between two snapshots.
+     *                             The first completed cell is always reported.
+     */
+    public StreamingContentSpanBuilder(Reader reader, Consumer<ContentSpan> partialContentConsumer, long minimumIntervalMillis) {
+        super(reader);
+        this.partialContentConsumer = partialContentConsumer;
+        this.minimumIntervalNanos = minimumIntervalMillis * 1_000_000;
+    }
+
+    /**
+     * Convert the document read by the given reader into a {@link ContentSpan},
+     * reporting partial results to the given consumer along the way.
+     *
+     * @param reader: The {@link Reader} the document is read from.
+     * @param partialContentConsumer: The consumer that receives the snapshots of the partially parsed document.
+     * @param minimumIntervalMillis: The minimum number of milliseconds between two snapshots.
+     * @return contentSpan:
+     *                The {@link ContentSpan} corresponding to the complete document.
+     */
+    public static ContentSpan buildContentSpan(Reader reader, Consumer<ContentSpan> partialContentConsumer, long minimumIntervalMillis) {
+        return new StreamingContentSpanBuilder(reader, partialContentConsumer, minimumIntervalMillis).getContentSpan();
+    }
+
+    /**
+     * Convert the page at the given URL into a {@link ContentSpan},
+     * reporting partial results to the given consumer while the page is downloading.
+     *
+     * @param url: The url referring to the page that needs to be converted.
+     * @param partialContentConsumer: The consumer that receives the snapshots of the partially parsed document.
+     * @param minimumIntervalMillis: The minimum number of milliseconds between two snapshots.
+     * @return contentSpan:
+     *                The {@link ContentSpan} corresponding to the given URL.
+     * @throws IOException: When the given {@code URL} can't be fetched.
+     */
+    public static ContentSpan buildContentSpan(URL url, Consumer<ContentSpan> partialContentConsumer, long minimumIntervalMillis) throws IOException {
+        try (Reader reader = new InputStreamReader(url.openStream())) {
+            return buildContentSpan(reader, partialContentConsumer, minimumIntervalMillis);
+        }
+    }
+
+    @Override
+    void formOpened(String action) {
+        if (tableDepth == 0)
+            rootFormAction = action;
+    }
+
+    @Override
+    void tableOpened(Table table) {
+        if (tableDepth++ == 0)
+            rootTable = table;
+    }
+
+    @Override
+    void tableClosed(Table table) {
+        tableDepth--;
+    }
+
+    @Override
+    void tableRowOpened(TableRow row) {
+        if (tableDepth == 1)
+            currentRootRow = row;
+    }
+
+    @Override
+    void tableCellClosed(TableRow row) {
+        if (tableDepth == 1)
+            emitPartialContent();
+    }
+
+    @Override
+    void tableRowClosed(TableRow row) {
+        if (tableDepth == 1)
+            currentRootRow = null;
+    }
+
+    /**
+     * Pass a snapshot of the top-level table parsed so far to the consumer,
+     * unless the previous snapshot was passed less than the minimum interval ago.
+     */
+    private void emitPartialContent() {
+        long now = System.nanoTime();
+        if (emittedBefore && now - lastEmitNanos < minimumIntervalNanos)
+            return;
+        emittedBefore = true;
+        lastEmitNanos = now;
+
+        List<TableRow> rows = new ArrayList<>(rootTable.getRows());
+        if (currentRootRow != null)
+            rows.add(new TableRow(new ArrayList<>(currentRootRow.getCells())));
+        ContentSpan snapshot = new Table(rows);
+        if (rootFormAction != null)
+            snapshot = new Form(rootFormAction, snapshot);
+        partialContentConsumer.accept(snapshot);
+    }
+
+    /**
+     * The consumer that receives the snapshots of the partially parsed document.
+     */
+    private final Consumer<ContentSpan> partialContentConsumer;
+
+    /**
+     * The minimum number of nanoseconds between two snapshots.
+     */
+    private final long minimumIntervalNanos;
+
+    /**
+     * The {@link System#nanoTime()} at which the last snapshot was passed to the consumer.
+     */
+    private long lastEmitNanos;
+
+    /**
+     * Whether a snapshot has been passed to the consumer already.
+     */
+    private boolean emittedBefore;
+
+    /**
+     * The number of tables that are currently open.
+     */
+    private int tableDepth;
+
+    /**
+     * The top-level {@link Table} of the document, or {@code null} if none has been opened yet.
+     */
+    private Table rootTable;
+
+    /**
+     * The row of the top-level {@link Table} that is currently being parsed, or {@code null}.
+     */
+    private TableRow currentRootRow;
+
+    /**
+     * The action of the {@link Form} that wraps the top-level {@link Table}, or {@code null}.
+     */
+    private String rootFormAction;
+}
@@ -1,12 +1,15 @@
 package browsrhtml.tests;
 
 import browsrhtml.ContentSpanBuilder;
+import browsrhtml.StreamingContentSpanBuilder;
 import domainlayer.*;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -55,6 +58,33 @@ public class ContentSpanBuilderTest {
     	verifyContentsForm2(contentSpan);
     }
 
+    @Test
+    @DisplayName("Reports the rows of the outer table while the document is being parsed")
+    void testStreamingWithString() {
+        List<ContentSpan> partialContents = new ArrayList<>();
+        ContentSpan contentSpan = StreamingContentSpanBuilder.buildContentSpan(new StringReader("""
+				<table>
+				  <tr><td>HTML elements partially supported by Browsr:
+				  <tr><td>
+				    <table>
+				      <tr><td><a href="a.html">a</a><td>Hyperlink anchors
+				      <tr><td><a href="table.html">table</a><td>Tables
+				      <tr><td><a href="tr.html">tr</a><td>Table rows
+				      <tr><td><a href="td.html">td</a><td>Table cells containing table data
+				    </table>
+				</table>
+				"""), partialContents::add, 0);
+        verifyContents(contentSpan);
+
+        // One snapshot per cell of the outer table, the nested table only shows up once complete
+        assertEquals(2, partialContents.size());
+        List<TableRow> firstRows = ((Table) partialContents.get(0)).getRows();
+        assertEquals(1, firstRows.size());
+        assertEquals("HTML elements partially supported by Browsr:", ((TextSpan) firstRows.get(0).getCells().get(0).getContent()).getText());
+        verifyContents(partialContents.get(1));
+        assertNotSame(contentSpan, partialContents.get(1));
+    }
+
 	public static void verifyContents(ContentSpan contentSpan) {
 		assertNotNull(contentSpan);
 		Table outerTable = ((Table) contentSpan);
@@ -53,5 +53,46 @@ class HtmlLexerTest {
 		assertToken(TokenType.CLOSE_TAG, "");
 		assertToken(TokenType.END_OF_FILE, "");
 	}
+	
+	@Test
+	void testTokensAcrossBufferBoundaries() throws IOException {
+		String longText = "x".repeat(100);
+		String input = "<td x=\"" + longText + "\">Some " + longText + "</td>";
+		for (int bufferSize = 1; bufferSize <= 9; bufferSize++) {
+			lexer = new HtmlLexer(new StringReader(input), bufferSize);
+			assertToken(TokenType.OPEN_START_TAG, "td");
+			assertToken(TokenType.IDENTIFIER, "x");
+			assertToken(TokenType.EQUALS, "");
+			assertToken(TokenType.QUOTED_STRING, longText);
+			assertToken(TokenType.CLOSE_TAG, "");
+			assertToken(TokenType.TEXT, "Some");
+			assertToken(TokenType.TEXT, longText);
+			assertToken(TokenType.OPEN_END_TAG, "td");
+			assertToken(TokenType.CLOSE_TAG, "");
+			assertToken(TokenType.END_OF_FILE, "");
+			assertToken(TokenType.END_OF_FILE, "");
+		}
+	}
+	
+	@Test
+	void testTokenViews() {
+		lexer = new HtmlLexer(new StringReader("<table><tr><td x=\"foo\">text</td></tr></table>"));
+		assertSame("table", lexer.getTagName());
+		assertTrue(lexer.tokenValueEquals("table"));
+		assertFalse(lexer.tokenValueEquals("tab"));
+		assertEquals("table", lexer.getTokenChars().toString());
+		lexer.eatToken();
+		lexer.eatToken();
+		CharSequence view = lexer.getTokenChars();
+		assertSame("tr", lexer.getTagName());
+		lexer.eatToken();
+		lexer.eatToken();
+		assertSame(view, lexer.getTokenChars());
+		assertEquals(2, view.length());
+		assertEquals('d', view.charAt(1));
+		lexer.eatToken();
+		assertEquals("x", lexer.getTokenValue());
+		assertSame(lexer.getTokenValue(), lexer.getTokenValue());
+	}
 
 }
@@ -0,0 +1,256 @@
+package canvaswindow;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static canvaswindow.BinaryRecordingWriter.*;
+
+/**
+ * Reads the items of a binary recording from a memory-mapped file, one at a time.
+ *
+ * Items are decoded only when they are asked for, and every frame is decoded into the same image,
+ * so the memory a replay takes doesn't grow with the length of the recording. The paint items this
+ * reader returns share that image: a frame is only valid until the next item is read.
+ *
+ * @see BinaryRecordingWriter
+ */
+class BinaryRecordingReader implements Iterator<RecordingItem>, Closeable {
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int width;
+	private final int height;
+	private final int itemCount;
+	private final int lastPaintItem;
+	private final int indexOffset;
+	private final boolean hasTimestamps;
+	private int nextItem;
+
+	private final int tilesX;
+	private final BufferedImage frame;
+	private final int[] pixels;
+	private final PaintItem paintItem;
+	private final int[] tiles;
+	private final byte[] rgb;
+	private final Inflater inflater = new Inflater();
+
+	BinaryRecordingReader(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException(path + " is too large to map.");
+			if (size < MAGIC.length + 1 + TRAILER_SIZE)
+				throw new IOException(path + " is not a binary recording.");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			for (int i = 0; i < MAGIC.length; i++)
+				if (buffer.get(i) != MAGIC[i] || buffer.get((int) size - MAGIC.length + i) != MAGIC[i])
+					throw new IOException(path + " is not a binary recording.");
+			int version = buffer.get(MAGIC.length);
+			if (version < 1 || version > VERSION)
+				throw new IOException(path + " has version " + version + " of the binary recording format, which is not supported.");
+			hasTimestamps = version >= 2;
+			buffer.position((int) size - TRAILER_SIZE);
+			width = buffer.getInt();
+			height = buffer.getInt();
+			itemCount = buffer.getInt();
+			lastPaintItem = buffer.getInt();
+			indexOffset = (int) buffer.getLong();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+		tiles = new int[tilesX * ((height + TILE_SIZE - 1) / TILE_SIZE)];
+		rgb = new byte[width * height * 3];
+		frame = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+		paintItem = new PaintItem(frame);
+		seek(0);
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getHeight() {
+		return height;
+	}
+
+	int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Returns the index of the last paint item, or -1 if the recording has no frames.
+	 */
+	int getLastPaintItem() {
+		return lastPaintItem;
+	}
+
+	/**
+	 * Positions this reader at the item with the given index. Only the frames since the last keyframe before it are decoded.
+	 */
+	void seek(int itemIndex) {
+		if (itemIndex < 0 || itemIndex > itemCount)
+			throw new IndexOutOfBoundsException(itemIndex);
+		int start = itemIndex - 1;
+		while (start >= 0 && buffer.get(offsetOf(start)) != KEYFRAME)
+			start--;
+		Arrays.fill(pixels, 0);
+		if (start < 0)
+			start = 0;
+		buffer.position(offsetOf(start));
+		for (nextItem = start; nextItem < itemIndex; nextItem++)
+			read(false);
+	}
+
+	private int offsetOf(int itemIndex) {
+		return (int) buffer.getLong(indexOffset + 8 * itemIndex);
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextItem < itemCount;
+	}
+
+	@Override
+	public RecordingItem next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		nextItem++;
+		return read(true);
+	}
+
+	/**
+	 * Reads the item at the position of the buffer. Frames are always decoded, as the next frame builds on them.
+	 *
+	 * @param create Whether to return the item, or only to skip past it
+	 */
+	private RecordingItem read(boolean create) {
+		int type = buffer.get();
+		long timestamp = hasTimestamps ? readVarlong() - 1 : RecordingItem.NO_TIMESTAMP;
+		RecordingItem item;
+		switch (type) {
+			case MOUSE_EVENT: {
+				int id = readVarint();
+				int x = unzigzag(readVarint());
+				int y = unzigzag(readVarint());
+				int clickCount = readVarint();
+				int button = readVarint();
+				int modifiersEx = readVarint();
+				if (!create)
+					return null;
+				item = new MouseEventItem(id, x, y, clickCount, button, modifiersEx);
+				break;
+			}
+			case KEY_EVENT: {
+				int id = readVarint();
+				int keyCode = readVarint();
+				char keyChar = (char) readVarint();
+				int modifiersEx = readVarint();
+				if (!create)
+					return null;
+				item = new KeyEventItem(id, keyCode, keyChar, modifiersEx);
+				break;
+			}
+			case PAINT:
+			case KEYFRAME:
+				readFrame();
+				item = paintItem;
+				break;
+			default:
+				throw new IllegalStateException("Item " + (nextItem - 1) + " of the recording has an unknown type " + type + ".");
+		}
+		item.timestamp = timestamp;
+		return item;
+	}
+
+	private void readFrame() {
+		int changed = readVarint();
+		if (changed == 0)
+			return;
+		int tile = 0;
+		int length = 0;
+		for (int i = 0; i < changed; i++) {
+			tile += readVarint();
+			tiles[i] = tile;
+			length += tileWidth(tile) * tileHeight(tile) * 3;
+		}
+		int compressedLength = readVarint();
+		inflater.reset();
+		inflater.setInput(buffer.slice(buffer.position(), compressedLength));
+		try {
+			int inflated = 0;
+			while (inflated < length && !inflater.finished())
+				inflated += inflater.inflate(rgb, inflated, length - inflated);
+			if (inflated < length)
+				throw new IllegalStateException("A frame of the recording is truncated.");
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("A frame of the recording is corrupt.", e);
+		}
+		buffer.position(buffer.position() + compressedLength);
+
+		int index = 0;
+		for (int i = 0; i < changed; i++) {
+			int x = tiles[i] % tilesX * TILE_SIZE;
+			int y = tiles[i] / tilesX * TILE_SIZE;
+			int tileWidth = tileWidth(tiles[i]);
+			int rows = tileHeight(tiles[i]);
+			for (int row = 0; row < rows; row++) {
+				int start = (y + row) * width + x;
+				for (int p = start; p < start + tileWidth; p++, index += 3)
+					pixels[p] = (rgb[index] & 0xff) << 16 | (rgb[index + 1] & 0xff) << 8 | rgb[index + 2] & 0xff;
+			}
+		}
+	}
+
+	private int tileWidth(int tile) {
+		return Math.min(TILE_SIZE, width - tile % tilesX * TILE_SIZE);
+	}
+
+	private int tileHeight(int tile) {
+		return Math.min(TILE_SIZE, height - tile / tilesX * TILE_SIZE);
+	}
+
+	private int readVarint() {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7f) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+
+	private long readVarlong() {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7f) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+
+	private static int unzigzag(int value) {
+		return value >>> 1 ^ -(value & 1);
+	}
+
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		channel.close();
+	}
+}
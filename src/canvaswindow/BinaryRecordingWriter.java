@@ -0,0 +1,248 @@
+package canvaswindow;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a recording in the binary recording format, one item at a time.
+ *
+ * A binary recording consists of
+ * <ul>
+ *     <li>a header: the bytes {@code BRec} and the version of the format;</li>
+ *     <li>the items, each a type byte, the time of the item plus one as a varint (0 if unknown, added in
+ *     version 2), and its fields as varints. A paint item holds the
+ *     tiles of {@link #TILE_SIZE} pixels that changed since the previous frame, as varint tile
+ *     index deltas and one deflated block of RGB bytes. Every {@link #KEYFRAME_INTERVAL}th frame
+ *     holds all tiles, so a frame can be decoded without decoding all frames before it;</li>
+ *     <li>the index: the offset of each item as a long;</li>
+ *     <li>a trailer: the frame width and height, the item count, the index of the last paint item,
+ *     the offset of the index, and the bytes {@code BRec} again.</li>
+ * </ul>
+ */
+class BinaryRecordingWriter implements Closeable {
+
+	static final byte[] MAGIC = {'B', 'R', 'e', 'c'};
+	static final int VERSION = 2;
+	static final String EXTENSION = ".brec";
+	static final int TILE_SIZE = 32;
+	static final int KEYFRAME_INTERVAL = 64;
+	static final int TRAILER_SIZE = 4 * 4 + 8 + MAGIC.length;
+
+	static final int MOUSE_EVENT = 0;
+	static final int KEY_EVENT = 1;
+	static final int PAINT = 2;
+	static final int KEYFRAME = 3;
+
+	private final OutputStream out;
+	private long offset;
+	private long[] itemOffsets = new long[64];
+	private int itemCount;
+	private int lastPaintItem = -1;
+	private int paintCount;
+
+	private int width;
+	private int height;
+	private int tilesX;
+	private int[] previous;
+	private int[] changedTiles;
+	private byte[] rgb;
+	private byte[] compressed;
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private BufferedImage converted;
+	private final byte[] varint = new byte[10];
+
+	BinaryRecordingWriter(Path path) throws IOException {
+		out = new BufferedOutputStream(Files.newOutputStream(path));
+		out.write(MAGIC);
+		out.write(VERSION);
+		offset = MAGIC.length + 1;
+	}
+
+	static boolean isBinaryRecording(String path) {
+		return path.endsWith(EXTENSION);
+	}
+
+	void writeMouseEvent(long timestamp, int id, int x, int y, int clickCount, int button, int modifiersEx) throws IOException {
+		startItem(MOUSE_EVENT, timestamp);
+		writeVarint(id);
+		writeVarint(zigzag(x));
+		writeVarint(zigzag(y));
+		writeVarint(clickCount);
+		writeVarint(button);
+		writeVarint(modifiersEx);
+	}
+
+	void writeKeyEvent(long timestamp, int id, int keyCode, char keyChar, int modifiersEx) throws IOException {
+		startItem(KEY_EVENT, timestamp);
+		writeVarint(id);
+		writeVarint(keyCode);
+		writeVarint(keyChar);
+		writeVarint(modifiersEx);
+	}
+
+	/**
+	 * Writes a frame. All frames of a recording have the size of the first one.
+	 */
+	void writePaint(long timestamp, BufferedImage image) throws IOException {
+		if (previous == null) {
+			width = image.getWidth();
+			height = image.getHeight();
+			tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+			previous = new int[width * height];
+			changedTiles = new int[tilesX * ((height + TILE_SIZE - 1) / TILE_SIZE)];
+			rgb = new byte[width * height * 3];
+			compressed = new byte[rgb.length + rgb.length / 1000 + 64];
+		} else if (image.getWidth() != width || image.getHeight() != height) {
+			throw new IllegalArgumentException("A frame of this recording is " + width + " by " + height + " pixels.");
+		}
+		int[] pixels = pixels(image);
+		boolean keyframe = paintCount++ % KEYFRAME_INTERVAL == 0;
+		lastPaintItem = itemCount;
+		startItem(keyframe ? KEYFRAME : PAINT, timestamp);
+
+		int changed = 0;
+		for (int tile = 0; tile < changedTiles.length; tile++)
+			if (keyframe || tileChanged(pixels, tile))
+				changedTiles[changed++] = tile;
+		writeVarint(changed);
+		if (changed == 0)
+			return;
+		int length = 0;
+		int previousTile = 0;
+		for (int i = 0; i < changed; i++) {
+			int tile = changedTiles[i];
+			writeVarint(tile - previousTile);
+			previousTile = tile;
+			length = copyTile(pixels, tile, length);
+		}
+		deflater.reset();
+		deflater.setInput(rgb, 0, length);
+		deflater.finish();
+		int compressedLength = 0;
+		while (!deflater.finished()) {
+			if (compressedLength == compressed.length)
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+		}
+		writeVarint(compressedLength);
+		out.write(compressed, 0, compressedLength);
+		offset += compressedLength;
+	}
+
+	private int[] pixels(BufferedImage image) {
+		if (image.getType() == BufferedImage.TYPE_INT_RGB)
+			return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		// A decoded PNG has another layout; it is converted like the frames replay compares with
+		if (converted == null)
+			converted = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = converted.createGraphics();
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return ((DataBufferInt) converted.getRaster().getDataBuffer()).getData();
+	}
+
+	private boolean tileChanged(int[] pixels, int tile) {
+		int x = tile % tilesX * TILE_SIZE;
+		int y = tile / tilesX * TILE_SIZE;
+		int tileWidth = Math.min(TILE_SIZE, width - x);
+		int rows = Math.min(TILE_SIZE, height - y);
+		for (int row = 0; row < rows; row++) {
+			int start = (y + row) * width + x;
+			for (int i = start; i < start + tileWidth; i++)
+				if (((pixels[i] ^ previous[i]) & 0xffffff) != 0)
+					return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Appends the RGB bytes of a tile to the bytes to compress, and keeps the tile as the previous frame's.
+	 *
+	 * @return The number of bytes to compress
+	 */
+	private int copyTile(int[] pixels, int tile, int length) {
+		int x = tile % tilesX * TILE_SIZE;
+		int y = tile / tilesX * TILE_SIZE;
+		int tileWidth = Math.min(TILE_SIZE, width - x);
+		int rows = Math.min(TILE_SIZE, height - y);
+		for (int row = 0; row < rows; row++) {
+			int start = (y + row) * width + x;
+			for (int i = start; i < start + tileWidth; i++) {
+				int pixel = pixels[i];
+				previous[i] = pixel;
+				rgb[length++] = (byte) (pixel >> 16);
+				rgb[length++] = (byte) (pixel >> 8);
+				rgb[length++] = (byte) pixel;
+			}
+		}
+		return length;
+	}
+
+	private void startItem(int type, long timestamp) throws IOException {
+		if (itemCount == itemOffsets.length)
+			itemOffsets = Arrays.copyOf(itemOffsets, itemCount * 2);
+		itemOffsets[itemCount++] = offset;
+		out.write(type);
+		offset++;
+		writeVarint(timestamp + 1);
+	}
+
+	private void writeVarint(int value) throws IOException {
+		writeVarint(value & 0xffffffffL);
+	}
+
+	private void writeVarint(long value) throws IOException {
+		int length = 0;
+		while ((value & ~0x7fL) != 0) {
+			varint[length++] = (byte) (value & 0x7f | 0x80);
+			value >>>= 7;
+		}
+		varint[length++] = (byte) value;
+		out.write(varint, 0, length);
+		offset += length;
+	}
+
+	private static int zigzag(int value) {
+		return value << 1 ^ value >> 31;
+	}
+
+	private void writeInt(int value) throws IOException {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	/**
+	 * Writes the index and the trailer, and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			long indexOffset = offset;
+			for (int i = 0; i < itemCount; i++) {
+				writeInt((int) (itemOffsets[i] >>> 32));
+				writeInt((int) itemOffsets[i]);
+			}
+			writeInt(width);
+			writeInt(height);
+			writeInt(itemCount);
+			writeInt(lastPaintItem);
+			writeInt((int) (indexOffset >>> 32));
+			writeInt((int) indexOffset);
+			out.write(MAGIC);
+		} finally {
+			deflater.end();
+			out.close();
+		}
+	}
+}
@@ -1,12 +1,13 @@
 package canvaswindow;
 
 import java.awt.Color;
-import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.EventQueue;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.event.KeyAdapter;
@@ -16,17 +17,9 @@ import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.util.ArrayList;
 
-import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
@@ -45,195 +38,6 @@ import javax.swing.JPanel;
  * }
  * </pre>
  */
-
-abstract class RecordingItem {
-	abstract void save(String path, int itemIndex, PrintWriter writer) throws IOException;
-	abstract void replay(int itemIndex, CanvasWindow window);
-}
-class MouseEventItem extends RecordingItem {
-	int id;
-	int x;
-	int y;
-	int clickCount;
-	int button;
-	int modifiersEx;
-
-	MouseEventItem(int id, int x, int y, int clickCount, int button, int modifiersEx) {
-		this.id = id;
-		this.x = x;
-		this.y = y;
-		this.clickCount = clickCount;
-		this.button = button;
-		this.modifiersEx = modifiersEx;
-	}
-
-	@Override
-	void save(String path, int itemIndex, PrintWriter writer) throws IOException {
-		String id;
-		switch (this.id) {
-			case MouseEvent.MOUSE_CLICKED: id = "MOUSE_CLICKED"; break;
-			case MouseEvent.MOUSE_PRESSED: id = "MOUSE_PRESSED"; break;
-			case MouseEvent.MOUSE_RELEASED: id = "MOUSE_RELEASED"; break;
-			case MouseEvent.MOUSE_DRAGGED: id = "MOUSE_DRAGGED"; break;
-			default: id = "unknown"; break;
-		}
-//		writer.println("MouseEvent " + id + " " + x + " " + y + " " + clickCount + " " + button + " " + modifiersEx);
-	}
-
-	@Override
-	void replay(int itemIndex, CanvasWindow window) {
-		window.handleMouseEvent(id, x, y, clickCount, button, modifiersEx);
-	}
-}
-class KeyEventItem extends RecordingItem {
-	int id;
-	int keyCode;
-	char keyChar;
-	int modifiersEx;
-
-	KeyEventItem(int id, int keyCode, char keyChar, int modifiersEx) {
-		this.id = id;
-		this.keyCode = keyCode;
-		this.keyChar = keyChar;
-		this.modifiersEx = modifiersEx;
-	}
-
-	@Override
-	void save(String path, int itemIndex, PrintWriter writer) throws IOException {
-		String id;
-		switch (this.id) {
-			case KeyEvent.KEY_PRESSED: id = "KEY_PRESSED"; break;
-			case KeyEvent.KEY_TYPED: id = "KEY_TYPED"; break;
-			case KeyEvent.KEY_RELEASED: id = "KEY_RELEASED"; break;
-			default: id = "unknown"; break;
-		}
-//		writer.println("KeyEvent " + id + " " + keyCode + " " + (int)keyChar + " " + modifiersEx);
-	}
-
-	@Override
-	void replay(int itemIndex, CanvasWindow window) {
-		window.handleKeyEvent(id, keyCode, keyChar, modifiersEx);
-	}
-}
-class PaintItem extends RecordingItem {
-	BufferedImage image;
-
-	PaintItem(BufferedImage image) {
-		this.image = image;
-	}
-
-	static String imagePathOf(String basePath, int itemIndex) {
-		return basePath + ".image" + itemIndex + ".png";
-	}
-
-	void save(String path, int itemIndex, PrintWriter writer) throws IOException {
-		String imagePath = imagePathOf(path, itemIndex);
-		javax.imageio.ImageIO.write(image, "PNG", new File(imagePath));
-//		writer.println("Paint");
-	}
-
-	void replay(int itemIndex, CanvasWindow window) {
-		BufferedImage observedImage = window.captureImage();
-		for (int y = 0; y < observedImage.getHeight(); y++) {
-			for (int x = 0; x < observedImage.getWidth(); x++) {
-				if (observedImage.getRGB(x, y) != image.getRGB(x, y)) {
-					try {
-						ImageIO.write(observedImage, "PNG", new File("observedImage"+itemIndex+".png"));
-					} catch (IOException e) {
-						throw new RuntimeException(e);
-					}
-					throw new RuntimeException("Replay: Paint item " + itemIndex + " does not match at x=" + x + " and y=" + y + ".");
-				}
-			}
-		}
-	}
-}
-
-class CanvasWindowRecording {
-
-	ArrayList<RecordingItem> items = new ArrayList<>();
-
-	CanvasWindowRecording() {}
-
-	CanvasWindowRecording(String path) throws IOException {
-		load(path);
-	}
-
-	void save(String path) throws IOException {
-		try (PrintWriter writer = new PrintWriter(new BufferedOutputStream(new FileOutputStream(path)))) {
-			save(path, writer);
-		}
-	}
-
-	void save(String basePath, PrintWriter writer) throws IOException {
-		int itemIndex = 0;
-		for (RecordingItem item : items)
-			item.save(basePath, itemIndex++, writer);
-	}
-
-	void load(String path) throws IOException {
-		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path)))) {
-			load(path, reader);
-		}
-	}
-
-	void load(String basePath, BufferedReader reader) throws IOException {
-		Component dummyComponent = new JPanel();
-		for (int itemIndex = 0;; itemIndex++) {
-			String line = reader.readLine();
-			if (line == null) break;
-			String[] words = line.split(" ");
-			switch (words[0]) {
-				case "MouseEvent": {
-					int id;
-					switch (words[1]) {
-						case "MOUSE_PRESSED": id = MouseEvent.MOUSE_PRESSED; break;
-						case "MOUSE_CLICKED": id = MouseEvent.MOUSE_CLICKED; break;
-						case "MOUSE_RELEASED": id = MouseEvent.MOUSE_RELEASED; break;
-						case "MOUSE_DRAGGED": id = MouseEvent.MOUSE_DRAGGED; break;
-						default: throw new AssertionError();
-					}
-					int x = Integer.parseInt(words[2]);
-					int y = Integer.parseInt(words[3]);
-					int clickCount = Integer.parseInt(words[4]);
-					int button = Integer.parseInt(words[5]);
-					int modifiersEx = Integer.parseInt(words[6]);
-					items.add(new MouseEventItem(id, x, y, clickCount, button, modifiersEx));
-					break;
-				}
-				case "KeyEvent": {
-					int id;
-					switch (words[1]) {
-						case "KEY_PRESSED": id = KeyEvent.KEY_PRESSED; break;
-						case "KEY_TYPED": id = KeyEvent.KEY_TYPED; break;
-						case "KEY_RELEASED": id = KeyEvent.KEY_RELEASED; break;
-						default: throw new AssertionError();
-					}
-					int keyCode = Integer.parseInt(words[2]);
-					char keyChar = (char)Integer.parseInt(words[3]);
-					int modifiersEx = Integer.parseInt(words[4]);
-					items.add(new KeyEventItem(id, keyCode, keyChar, modifiersEx));
-					break;
-				}
-				case "Paint": {
-					String imagePath = PaintItem.imagePathOf(basePath, itemIndex);
-					items.add(new PaintItem(ImageIO.read(new File(imagePath))));
-					break;
-				}
-				default: throw new AssertionError();
-			}
-		}
-	}
-
-	void replay(CanvasWindow window) {
-		int itemIndex = 0;
-		for (RecordingItem item : items) {
-			item.replay(itemIndex++, window);
-		}
-	}
-
-}
-
 public class CanvasWindow {
 
 	int width = 600;
@@ -244,6 +48,10 @@ public class CanvasWindow {
 
 	private String recordingPath;
 	private CanvasWindowRecording recording;
+	private boolean headless;
+
+	/** The frame painted while recording, of which only the repainted area is painted again. */
+	private BufferedImage recordingCanvas;
 
 	void updateFrameTitle() {
 		frame.setTitle(recording == null ? title : title + " - Recording: " + recording.items.size() + " items recorded");
@@ -265,7 +73,21 @@ public class CanvasWindow {
 
 	public final void recordSession(String path) {
 		recordingPath = path;
-		recording = new CanvasWindowRecording();
+		recording = new CanvasWindowRecording(width, height);
+		recordingCanvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+	}
+
+	CanvasWindowRecording getRecording() {
+		return recording;
+	}
+
+	/**
+	 * Returns whether this window records its session or replays a recorded one. Such a window should
+	 * start from the same state each time and handle each event completely before the next paint,
+	 * so that replaying the session paints the frames that were recorded.
+	 */
+	protected final boolean isReproducibleSession() {
+		return recording != null || headless;
 	}
 
 	/**
@@ -277,6 +99,21 @@ public class CanvasWindow {
 			panel.repaint();
 	}
 
+	/**
+	 * Call this method if only the given area of the canvas is out of date.
+	 * Method {@link #paint(Graphics)} is then called with a {@code Graphics} object whose clip is
+	 * restricted to (at least) this area, so that it can skip everything outside of it.
+	 *
+	 * @param x The x coordinate of the area
+	 * @param y The y coordinate of the area
+	 * @param width The width of the area
+	 * @param height The height of the area
+	 */
+	protected final void repaint(int x, int y, int width, int height) {
+		if (panel != null)
+			panel.repaint(x, y, width, height);
+	}
+
 	/**
 	 * Called to allow you to paint on the canvas.
 	 *
@@ -290,7 +127,7 @@ public class CanvasWindow {
 	private void handleMouseEvent_(MouseEvent e) {
 //		 System.out.println(e);
 		if (recording != null)
-			recording.items.add(new MouseEventItem(e.getID(), e.getX(), e.getY(), e.getClickCount(), e.getButton(), e.getModifiersEx()));
+			recording.record(new MouseEventItem(e.getID(), e.getX(), e.getY(), e.getClickCount(), e.getButton(), e.getModifiersEx()));
 		handleMouseEvent(e.getID(), e.getX(), e.getY(), e.getClickCount(), e.getButton(), e.getModifiersEx());
 	}
 
@@ -317,7 +154,7 @@ public class CanvasWindow {
 	private void handleKeyEvent_(KeyEvent e) {
 		// System.out.println(e);
 		if (recording != null)
-			recording.items.add(new KeyEventItem(e.getID(), e.getKeyCode(), e.getKeyChar(), e.getModifiersEx()));
+			recording.record(new KeyEventItem(e.getID(), e.getKeyCode(), e.getKeyChar(), e.getModifiersEx()));
 		handleKeyEvent(e.getID(), e.getKeyCode(), e.getKeyChar(), e.getModifiersEx());
 	}
 
@@ -340,6 +177,29 @@ public class CanvasWindow {
 		return image;
 	}
 
+	/**
+	 * Paints the given area into the recording canvas, shows the canvas, and queues a copy of it for encoding.
+	 * The canvas keeps the previous frame outside the area, like the screen does, so only the area is painted.
+	 */
+	void paintRecordedFrame(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		Graphics2D canvasGraphics = recordingCanvas.createGraphics();
+		if (clip != null)
+			canvasGraphics.clip(clip);
+		canvasGraphics.setColor(Color.WHITE);
+		canvasGraphics.fillRect(0, 0, width, height);
+		canvasGraphics.setColor(Color.BLACK);
+		paint(canvasGraphics);
+		canvasGraphics.dispose();
+		g.drawImage(recordingCanvas, 0, 0, null);
+		int[] pixels = ((DataBufferInt) recordingCanvas.getRaster().getDataBuffer()).getData();
+		// The frame is on the screen once it is drawn; waiting for the encoder is not part of the paint
+		long paintedAt = recording.now();
+		PaintItem item = new PaintItem(recording.encoder, recording.encoder.submit(pixels));
+		item.timestamp = paintedAt;
+		recording.items.add(item);
+	}
+
 	class Panel extends JPanel {
 
 		{
@@ -417,9 +277,7 @@ public class CanvasWindow {
 			super.paintComponent(g);
 
 			if (recording != null) {
-				BufferedImage image = captureImage();
-				g.drawImage(image, 0, 0, null);
-				recording.items.add(new PaintItem(image));
+				paintRecordedFrame(g);
 				updateFrameTitle();
 			} else {
 				CanvasWindow.this.paint(g);
@@ -462,23 +320,45 @@ public class CanvasWindow {
 		handleShown();
 	}
 
+	/**
+	 * Shows this window without a screen, e.g. to replay a recording offscreen. It keeps its initial size,
+	 * and it is only painted when its contents are captured.
+	 */
+	final void showHeadless() {
+		headless = true;
+		handleShown();
+		handleResize();
+	}
+
 	JPanel getPanel() {
 		if (panel == null)
 			throw new RuntimeException("You can only call CanvasWindow methods getWidth, getHeight, and getFontMetrics after you called method show.");
 		return panel;
 	}
 
-	public int getWidth() { return getPanel().getWidth(); }
-	public int getHeight() { return getPanel().getHeight(); }
-	public FontMetrics getFontMetrics(Font font) { return getPanel().getFontMetrics(font); }
+	public int getWidth() { return headless ? width : getPanel().getWidth(); }
+	public int getHeight() { return headless ? height : getPanel().getHeight(); }
+	public FontMetrics getFontMetrics(Font font) {
+		if (headless)
+			return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).getGraphics().getFontMetrics(font);
+		return getPanel().getFontMetrics(font);
+	}
 
 	/**
-	 * Called when you call method {@code show}. You can call getWidth, getHeight, and getFontMetrics from this method.
+	 * Called when you call method {@code show}, or when this window is shown headless to replay a recording.
+	 * You can call getWidth, getHeight, and getFontMetrics from this method.
 	 */
 	protected void handleShown() {}
 
 	protected void handleResize() {}
 
+	/**
+	 * Converts the recording at the given path to the binary recording format. Its path should end with {@code .brec}.
+	 */
+	public static void importRecording(String path, String binaryPath) throws IOException {
+		CanvasWindowRecording.importText(path, binaryPath);
+	}
+
 	public static void replayRecording(String path, CanvasWindow window) {
 		try {
 			new CanvasWindowRecording(path).replay(window);
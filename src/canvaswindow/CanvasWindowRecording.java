@@ -0,0 +1,166 @@
+package canvaswindow;
+
+import java.awt.Component;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import javax.imageio.ImageIO;
+import javax.swing.JPanel;
+
+class CanvasWindowRecording {
+
+	ArrayList<RecordingItem> items = new ArrayList<>();
+
+	/** The encoder of the frames painted while recording, or null for a loaded recording. */
+	FrameEncoder encoder;
+
+	/** When this recording started, as a {@link System#nanoTime()}. */
+	private final long startTime = System.nanoTime();
+
+	CanvasWindowRecording() {}
+
+	CanvasWindowRecording(int width, int height) {
+		encoder = new FrameEncoder(width, height);
+	}
+
+	CanvasWindowRecording(String path) throws IOException {
+		load(path);
+	}
+
+	/**
+	 * Returns the time since this recording started, in nanoseconds.
+	 */
+	long now() {
+		return System.nanoTime() - startTime;
+	}
+
+	/**
+	 * Adds an item that happened just now.
+	 */
+	void record(RecordingItem item) {
+		item.timestamp = now();
+		items.add(item);
+	}
+
+	void save(String path) throws IOException {
+		if (BinaryRecordingWriter.isBinaryRecording(path)) {
+			if (encoder != null)
+				encoder.finish();
+			try (BinaryRecordingWriter writer = new BinaryRecordingWriter(Path.of(path))) {
+				for (RecordingItem item : items)
+					item.write(writer);
+			}
+			return;
+		}
+		try (PrintWriter writer = new PrintWriter(new BufferedOutputStream(new FileOutputStream(path)))) {
+			save(path, writer);
+		}
+	}
+
+	void save(String basePath, PrintWriter writer) throws IOException {
+		if (encoder != null)
+			encoder.finish();
+		int itemIndex = 0;
+		for (RecordingItem item : items)
+			item.save(basePath, itemIndex++, writer);
+	}
+
+	void load(String path) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path)))) {
+			load(path, reader);
+		}
+	}
+
+	void load(String basePath, BufferedReader reader) throws IOException {
+		Component dummyComponent = new JPanel();
+		for (int itemIndex = 0;; itemIndex++) {
+			String line = reader.readLine();
+			if (line == null) break;
+			items.add(parseItem(basePath, itemIndex, line));
+		}
+	}
+
+	/**
+	 * Parses a line of a text recording. A line may end with the time of the item, as {@code @<nanoseconds>}.
+	 */
+	static RecordingItem parseItem(String basePath, int itemIndex, String line) throws IOException {
+		String[] words = line.split(" ");
+		RecordingItem item = parseItem(basePath, itemIndex, words);
+		String last = words[words.length - 1];
+		if (last.startsWith("@"))
+			item.timestamp = Long.parseLong(last.substring(1));
+		return item;
+	}
+
+	private static RecordingItem parseItem(String basePath, int itemIndex, String[] words) throws IOException {
+		switch (words[0]) {
+			case "MouseEvent": {
+				int id;
+				switch (words[1]) {
+					case "MOUSE_PRESSED": id = MouseEvent.MOUSE_PRESSED; break;
+					case "MOUSE_CLICKED": id = MouseEvent.MOUSE_CLICKED; break;
+					case "MOUSE_RELEASED": id = MouseEvent.MOUSE_RELEASED; break;
+					case "MOUSE_DRAGGED": id = MouseEvent.MOUSE_DRAGGED; break;
+					default: throw new AssertionError();
+				}
+				int x = Integer.parseInt(words[2]);
+				int y = Integer.parseInt(words[3]);
+				int clickCount = Integer.parseInt(words[4]);
+				int button = Integer.parseInt(words[5]);
+				int modifiersEx = Integer.parseInt(words[6]);
+				return new MouseEventItem(id, x, y, clickCount, button, modifiersEx);
+			}
+			case "KeyEvent": {
+				int id;
+				switch (words[1]) {
+					case "KEY_PRESSED": id = KeyEvent.KEY_PRESSED; break;
+					case "KEY_TYPED": id = KeyEvent.KEY_TYPED; break;
+					case "KEY_RELEASED": id = KeyEvent.KEY_RELEASED; break;
+					default: throw new AssertionError();
+				}
+				int keyCode = Integer.parseInt(words[2]);
+				char keyChar = (char)Integer.parseInt(words[3]);
+				int modifiersEx = Integer.parseInt(words[4]);
+				return new KeyEventItem(id, keyCode, keyChar, modifiersEx);
+			}
+			case "Paint": {
+				String imagePath = PaintItem.imagePathOf(basePath, itemIndex);
+				return new PaintItem(ImageIO.read(new File(imagePath)));
+			}
+			default: throw new AssertionError();
+		}
+	}
+
+	/**
+	 * Converts the text recording at the given path, with its PNG frames, to a binary recording.
+	 * Each item is read, written and dropped in turn, so the frames are never all in memory at once.
+	 */
+	static void importText(String path, String binaryPath) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path)));
+			 BinaryRecordingWriter writer = new BinaryRecordingWriter(Path.of(binaryPath))) {
+			for (int itemIndex = 0;; itemIndex++) {
+				String line = reader.readLine();
+				if (line == null) break;
+				parseItem(path, itemIndex, line).write(writer);
+			}
+		}
+	}
+
+	void replay(CanvasWindow window) {
+		int itemIndex = 0;
+		for (RecordingItem item : items) {
+			item.replay(itemIndex++, window);
+		}
+	}
+
+}
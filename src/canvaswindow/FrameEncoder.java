@@ -0,0 +1,262 @@
+package canvaswindow;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Encodes the frames of a recording on a background thread.
+ *
+ * The painting thread only copies each frame into a free buffer and queues it. The encoder thread
+ * compares the frame with the previous one in tiles of {@link #TILE_SIZE} pixels and keeps only the
+ * tiles that changed; a frame that is identical to the previous one keeps nothing at all. Frames
+ * are decoded again in order when the recording is saved.
+ *
+ * The number of buffers is bounded, so a painting thread that outruns the encoder waits for it
+ * instead of filling the heap.
+ */
+class FrameEncoder {
+
+	static final int TILE_SIZE = 32;
+	static final int BUFFER_COUNT = 4;
+
+	/**
+	 * The tiles of a frame that differ from the previous frame.
+	 */
+	static class EncodedFrame {
+		final int[] tiles;
+		final int[][] pixels;
+
+		EncodedFrame(int[] tiles, int[][] pixels) {
+			this.tiles = tiles;
+			this.pixels = pixels;
+		}
+	}
+
+	final int width;
+	final int height;
+	final int tilesX;
+	final int tilesY;
+
+	private final BlockingQueue<int[]> freeBuffers = new ArrayBlockingQueue<>(BUFFER_COUNT);
+	private final BlockingQueue<int[]> queuedFrames = new ArrayBlockingQueue<>(BUFFER_COUNT);
+	private final ArrayList<EncodedFrame> frames = new ArrayList<>();
+	private final Thread thread;
+
+	/** The frames that were submitted, and those that were encoded; guarded by this encoder. */
+	private int submittedCount;
+	private int encodedCount;
+	private RuntimeException failure;
+
+	/** The last encoded frame, which the next frame is compared with; only used by the encoder thread. */
+	private final int[] previous;
+	private boolean hasPrevious;
+
+	/** The last decoded frame and its index. */
+	private int[] decoded;
+	private int decodedIndex = -1;
+
+	FrameEncoder(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+		this.tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+		this.previous = new int[width * height];
+		for (int i = 0; i < BUFFER_COUNT; i++)
+			freeBuffers.add(new int[width * height]);
+		thread = new Thread(this::run, "recording-encoder");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queues a copy of the given frame for encoding, waiting for a free buffer if the encoder is behind.
+	 *
+	 * @param pixels The RGB pixels of the frame, row by row
+	 * @return The index of the frame in this recording
+	 */
+	int submit(int[] pixels) {
+		if (pixels.length != width * height)
+			throw new IllegalArgumentException("A frame of this recording has " + width * height + " pixels.");
+		int[] buffer;
+		try {
+			buffer = freeBuffers.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		System.arraycopy(pixels, 0, buffer, 0, pixels.length);
+		synchronized (this) {
+			// The queue has room for every buffer, so this doesn't block
+			queuedFrames.add(buffer);
+			return submittedCount++;
+		}
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				int[] frame = queuedFrames.take();
+				EncodedFrame encoded;
+				try {
+					encoded = encode(frame);
+				} catch (RuntimeException e) {
+					synchronized (this) {
+						failure = e;
+						notifyAll();
+					}
+					return;
+				}
+				freeBuffers.add(frame);
+				synchronized (this) {
+					frames.add(encoded);
+					encodedCount++;
+					notifyAll();
+				}
+			}
+		} catch (InterruptedException e) {
+			// The recording was abandoned
+		}
+	}
+
+	/**
+	 * Compares the given frame with the previous one, and copies the tiles that changed.
+	 * Rows are compared with {@link Arrays#mismatch}, which compares many pixels at once.
+	 */
+	private EncodedFrame encode(int[] frame) {
+		int changed = 0;
+		int[] tiles = new int[tilesX * tilesY];
+		for (int tile = 0; tile < tiles.length; tile++)
+			if (!hasPrevious || tileChanged(frame, tile))
+				tiles[changed++] = tile;
+		hasPrevious = true;
+		if (changed == 0)
+			return null;
+		int[][] pixels = new int[changed][];
+		for (int i = 0; i < changed; i++) {
+			pixels[i] = copyTile(frame, tiles[i], null);
+			copyTile(frame, tiles[i], previous);
+		}
+		return new EncodedFrame(Arrays.copyOf(tiles, changed), pixels);
+	}
+
+	private boolean tileChanged(int[] frame, int tile) {
+		int x = tile % tilesX * TILE_SIZE;
+		int y = tile / tilesX * TILE_SIZE;
+		int tileWidth = Math.min(TILE_SIZE, width - x);
+		int rows = Math.min(TILE_SIZE, height - y);
+		for (int row = 0; row < rows; row++) {
+			int start = (y + row) * width + x;
+			if (Arrays.mismatch(frame, start, start + tileWidth, previous, start, start + tileWidth) >= 0)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Copies a tile of the given frame into a new array, or into the same tile of the given frame.
+	 */
+	private int[] copyTile(int[] frame, int tile, int[] target) {
+		int x = tile % tilesX * TILE_SIZE;
+		int y = tile / tilesX * TILE_SIZE;
+		int tileWidth = Math.min(TILE_SIZE, width - x);
+		int rows = Math.min(TILE_SIZE, height - y);
+		int[] pixels = target == null ? new int[tileWidth * rows] : null;
+		for (int row = 0; row < rows; row++) {
+			int start = (y + row) * width + x;
+			if (target == null)
+				System.arraycopy(frame, start, pixels, row * tileWidth, tileWidth);
+			else
+				System.arraycopy(frame, start, target, start, tileWidth);
+		}
+		return pixels;
+	}
+
+	/**
+	 * Waits until all submitted frames have been encoded.
+	 */
+	synchronized void finish() {
+		while (encodedCount < submittedCount && failure == null) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * Returns the number of frames that were submitted.
+	 */
+	synchronized int getFrameCount() {
+		return submittedCount;
+	}
+
+	/**
+	 * Returns the number of tiles kept for all encoded frames together.
+	 */
+	synchronized int getStoredTileCount() {
+		int count = 0;
+		for (EncodedFrame frame : frames)
+			if (frame != null)
+				count += frame.tiles.length;
+		return count;
+	}
+
+	/**
+	 * Decodes the frame with the given index. Decoding frames in order only applies the tiles of each frame.
+	 * Waits until the frame has been encoded.
+	 *
+	 * @param index The index of the frame
+	 * @return A new image holding the frame
+	 */
+	synchronized BufferedImage decode(int index) {
+		while (encodedCount <= index && failure == null) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+		if (failure != null)
+			throw failure;
+		if (decoded == null || index < decodedIndex) {
+			decoded = new int[width * height];
+			decodedIndex = -1;
+		}
+		for (int i = decodedIndex + 1; i <= index; i++)
+			apply(frames.get(i), decoded);
+		decodedIndex = index;
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		System.arraycopy(decoded, 0, ((DataBufferInt) image.getRaster().getDataBuffer()).getData(), 0, decoded.length);
+		return image;
+	}
+
+	private void apply(EncodedFrame frame, int[] target) {
+		if (frame == null)
+			return;
+		for (int i = 0; i < frame.tiles.length; i++) {
+			int tile = frame.tiles[i];
+			int x = tile % tilesX * TILE_SIZE;
+			int y = tile / tilesX * TILE_SIZE;
+			int tileWidth = Math.min(TILE_SIZE, width - x);
+			int rows = Math.min(TILE_SIZE, height - y);
+			for (int row = 0; row < rows; row++)
+				System.arraycopy(frame.pixels[i], row * tileWidth, target, (y + row) * width + x, tileWidth);
+		}
+	}
+
+	/**
+	 * Stops the encoder thread. Frames that were not encoded yet are lost.
+	 */
+	void close() {
+		thread.interrupt();
+	}
+}
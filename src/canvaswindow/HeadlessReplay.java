@@ -0,0 +1,218 @@
+package canvaswindow;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Replays recordings into a window without a screen.
+ *
+ * Input events are passed to the window's {@code handleMouseEvent} and {@code handleKeyEvent} methods as
+ * during a normal replay. The window is only painted for the frames that are checked: every Nth frame
+ * and the final frame, or only the final frame. It is painted into a reused offscreen image, whose pixels
+ * are compared with the recorded frame in bulk instead of pixel by pixel.
+ *
+ * A replay can also measure how long the window takes from each input event to the paint that follows
+ * it, and fail when that latency exceeds a budget. The same latencies are computed from the times in
+ * the recording, so a replay can be compared with the session it was recorded from.
+ *
+ * <pre>
+ * ReplayResult result = new HeadlessReplay(window).replay("session.txt", HeadlessReplay.FINAL_FRAME_ONLY);
+ * </pre>
+ */
+public class HeadlessReplay {
+
+	/**
+	 * The frame interval that only checks the final frame of a recording.
+	 */
+	public static final int FINAL_FRAME_ONLY = 0;
+
+	private final CanvasWindow window;
+	private final BufferedImage observed;
+	private final BufferedImage expected;
+	private boolean measureLatency;
+	private double budgetPercentile;
+	private long latencyBudget = -1;
+
+	/**
+	 * Prepares the given window for headless replay. The window must not have been shown.
+	 *
+	 * @param window The window the recordings are replayed into
+	 */
+	public HeadlessReplay(CanvasWindow window) {
+		if (window.panel != null)
+			throw new IllegalStateException("A window that is shown can't be replayed headless.");
+		this.window = window;
+		window.showHeadless();
+		observed = new BufferedImage(window.width, window.height, BufferedImage.TYPE_INT_RGB);
+		expected = new BufferedImage(window.width, window.height, BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Measures the input-to-paint latency during replay: the time from passing each input event to
+	 * the window until the window painted the frame that follows it. Each such frame is painted,
+	 * whether it is checked or not.
+	 */
+	public void measureLatency() {
+		measureLatency = true;
+	}
+
+	/**
+	 * Measures the input-to-paint latency, and fails a replay whose latency at the given percentile exceeds the given budget.
+	 *
+	 * @param percentile A percentage between 0 and 100, e.g. 99 for the p99 latency
+	 * @param nanos The budget in nanoseconds
+	 */
+	public void setLatencyBudget(double percentile, long nanos) {
+		if (percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("A percentile is between 0 and 100.");
+		measureLatency = true;
+		budgetPercentile = percentile;
+		latencyBudget = nanos;
+	}
+
+	/**
+	 * Replays the recording at the given path.
+	 *
+	 * @param path The path of the recording
+	 * @param frameInterval Check every frameInterval-th frame and the final frame, or only the final frame if {@link #FINAL_FRAME_ONLY}
+	 * @return The outcome of the replay
+	 * @throws IOException If the recording can't be read
+	 */
+	public ReplayResult replay(String path, int frameInterval) throws IOException {
+		if (BinaryRecordingWriter.isBinaryRecording(path)) {
+			try (BinaryRecordingReader reader = new BinaryRecordingReader(Path.of(path))) {
+				return replay(reader, reader.getItemCount(), reader.getLastPaintItem(), frameInterval);
+			}
+		}
+		return replay(new CanvasWindowRecording(path), frameInterval);
+	}
+
+	ReplayResult replay(CanvasWindowRecording recording, int frameInterval) {
+		ArrayList<RecordingItem> items = recording.items;
+		int lastPaint = -1;
+		for (int i = 0; i < items.size(); i++)
+			if (items.get(i) instanceof PaintItem)
+				lastPaint = i;
+		return replay(items.iterator(), items.size(), lastPaint, frameInterval);
+	}
+
+	/**
+	 * Replays the given items, which are only read once and in order.
+	 */
+	private ReplayResult replay(Iterator<RecordingItem> items, int itemCount, int lastPaint, int frameInterval) {
+		if (frameInterval < 0)
+			throw new IllegalArgumentException("The frame interval can't be negative.");
+		long start = System.nanoTime();
+		// The start of each input event that waits for a paint, as measured now and as recorded
+		long[] pending = new long[16];
+		long[] recordedPending = new long[16];
+		int pendingCount = 0;
+		int recordedPendingCount = 0;
+		long[] latencies = new long[16];
+		long[] recordedLatencies = new long[16];
+		int latencyCount = 0;
+		int recordedLatencyCount = 0;
+
+		int paintCount = 0;
+		int checkedFrameCount = 0;
+		for (int i = 0; i < itemCount; i++) {
+			RecordingItem item = items.next();
+			if (!(item instanceof PaintItem)) {
+				if (item.timestamp != RecordingItem.NO_TIMESTAMP)
+					recordedPending = add(recordedPending, recordedPendingCount++, item.timestamp);
+				if (measureLatency)
+					pending = add(pending, pendingCount++, System.nanoTime());
+				item.replay(i, window);
+				continue;
+			}
+			if (item.timestamp != RecordingItem.NO_TIMESTAMP) {
+				for (int j = 0; j < recordedPendingCount; j++)
+					recordedLatencies = add(recordedLatencies, recordedLatencyCount++, item.timestamp - recordedPending[j]);
+			}
+			recordedPendingCount = 0;
+			boolean painted = false;
+			if (pendingCount > 0) {
+				paint();
+				long paintedAt = System.nanoTime();
+				for (int j = 0; j < pendingCount; j++)
+					latencies = add(latencies, latencyCount++, paintedAt - pending[j]);
+				pendingCount = 0;
+				painted = true;
+			}
+
+			paintCount++;
+			if (i != lastPaint && (frameInterval == FINAL_FRAME_ONLY || paintCount % frameInterval != 0))
+				continue;
+			checkedFrameCount++;
+			if (!painted)
+				paint();
+			int mismatch = compare(((PaintItem) item).getImage());
+			if (mismatch >= 0)
+				return result(i + 1, checkedFrameCount, start, i, mismatch, latencies, latencyCount, recordedLatencies, recordedLatencyCount);
+		}
+		return result(itemCount, checkedFrameCount, start, -1, -1, latencies, latencyCount, recordedLatencies, recordedLatencyCount);
+	}
+
+	private ReplayResult result(int itemCount, int checkedFrameCount, long start, int mismatchItem, int mismatch,
+								long[] latencies, int latencyCount, long[] recordedLatencies, int recordedLatencyCount) {
+		long elapsed = System.nanoTime() - start;
+		LatencySummary latency = measureLatency ? new LatencySummary(latencies, latencyCount) : LatencySummary.NONE;
+		LatencySummary recordedLatency = new LatencySummary(recordedLatencies, recordedLatencyCount);
+		boolean latencyExceeded = latencyBudget >= 0 && latency.getCount() > 0 && latency.getPercentile(budgetPercentile) > latencyBudget;
+		int x = mismatch < 0 ? -1 : mismatch % window.width;
+		int y = mismatch < 0 ? -1 : mismatch / window.width;
+		return new ReplayResult(itemCount, checkedFrameCount, elapsed, mismatchItem, x, y, latency, recordedLatency, latencyExceeded);
+	}
+
+	private static long[] add(long[] array, int index, long value) {
+		if (index == array.length)
+			array = Arrays.copyOf(array, array.length * 2);
+		array[index] = value;
+		return array;
+	}
+
+	/**
+	 * Paints the window into the offscreen image.
+	 */
+	private void paint() {
+		Graphics2D g = observed.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, window.width, window.height);
+		g.setColor(Color.BLACK);
+		window.paint(g);
+		g.dispose();
+	}
+
+	/**
+	 * Compares the window as it was last painted with the given frame.
+	 *
+	 * @return The index of the first pixel that differs, or -1 if the frames are identical
+	 */
+	private int compare(BufferedImage frame) {
+		if (frame.getWidth() != window.width || frame.getHeight() != window.height)
+			return 0;
+		int[] observedPixels = ((DataBufferInt) observed.getRaster().getDataBuffer()).getData();
+		int[] expectedPixels = ((DataBufferInt) expected.getRaster().getDataBuffer()).getData();
+		if (frame.getType() == BufferedImage.TYPE_INT_RGB) {
+			System.arraycopy(((DataBufferInt) frame.getRaster().getDataBuffer()).getData(), 0, expectedPixels, 0, expectedPixels.length);
+		} else {
+			// A decoded PNG has another layout; one blit converts all its pixels
+			Graphics2D expectedGraphics = expected.createGraphics();
+			expectedGraphics.drawImage(frame, 0, 0, null);
+			expectedGraphics.dispose();
+		}
+		// The unused top byte of an RGB pixel depends on how it was drawn, so it is cleared before comparing
+		for (int i = 0; i < observedPixels.length; i++) {
+			observedPixels[i] &= 0xffffff;
+			expectedPixels[i] &= 0xffffff;
+		}
+		return Arrays.mismatch(observedPixels, expectedPixels);
+	}
+}
@@ -0,0 +1,41 @@
+package canvaswindow;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+class KeyEventItem extends RecordingItem {
+	int id;
+	int keyCode;
+	char keyChar;
+	int modifiersEx;
+
+	KeyEventItem(int id, int keyCode, char keyChar, int modifiersEx) {
+		this.id = id;
+		this.keyCode = keyCode;
+		this.keyChar = keyChar;
+		this.modifiersEx = modifiersEx;
+	}
+
+	@Override
+	void save(String path, int itemIndex, PrintWriter writer) throws IOException {
+		String id;
+		switch (this.id) {
+			case KeyEvent.KEY_PRESSED: id = "KEY_PRESSED"; break;
+			case KeyEvent.KEY_TYPED: id = "KEY_TYPED"; break;
+			case KeyEvent.KEY_RELEASED: id = "KEY_RELEASED"; break;
+			default: id = "unknown"; break;
+		}
+//		writer.println("KeyEvent " + id + " " + keyCode + " " + (int)keyChar + " " + modifiersEx);
+	}
+
+	@Override
+	void replay(int itemIndex, CanvasWindow window) {
+		window.handleKeyEvent(id, keyCode, keyChar, modifiersEx);
+	}
+
+	@Override
+	void write(BinaryRecordingWriter writer) throws IOException {
+		writer.writeKeyEvent(timestamp, id, keyCode, keyChar, modifiersEx);
+	}
+}
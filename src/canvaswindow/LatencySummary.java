@@ -0,0 +1,57 @@
+package canvaswindow;
+
+import java.util.Arrays;
+
+/**
+ * The distribution of the input-to-paint latencies of a recording: for each input event, the time
+ * until the paint that follows it was done.
+ */
+public class LatencySummary {
+
+	/**
+	 * A summary without latencies, for recordings that were replayed without measuring them.
+	 */
+	static final LatencySummary NONE = new LatencySummary(new long[0], 0);
+
+	private final long[] sorted;
+
+	/**
+	 * @param latencies The latencies in nanoseconds; the first count of them are used, and sorted in place
+	 */
+	LatencySummary(long[] latencies, int count) {
+		Arrays.sort(latencies, 0, count);
+		this.sorted = Arrays.copyOf(latencies, count);
+	}
+
+	/**
+	 * Returns the number of input events whose latency was measured.
+	 */
+	public int getCount() {
+		return sorted.length;
+	}
+
+	/**
+	 * Returns the latency that the given percentage of the input events didn't exceed, or -1 if there are none.
+	 *
+	 * @param percentile A percentage between 0 and 100
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("A percentile is between 0 and 100.");
+		if (sorted.length == 0)
+			return -1;
+		int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+		return sorted[Math.max(rank, 1) - 1];
+	}
+
+	public long getP50() { return getPercentile(50); }
+	public long getP95() { return getPercentile(95); }
+	public long getP99() { return getPercentile(99); }
+
+	@Override
+	public String toString() {
+		if (sorted.length == 0)
+			return "no latencies";
+		return "p50 " + getP50() / 1000 + " us, p95 " + getP95() / 1000 + " us, p99 " + getP99() / 1000 + " us over " + sorted.length + " events";
+	}
+}
@@ -0,0 +1,46 @@
+package canvaswindow;
+
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+class MouseEventItem extends RecordingItem {
+	int id;
+	int x;
+	int y;
+	int clickCount;
+	int button;
+	int modifiersEx;
+
+	MouseEventItem(int id, int x, int y, int clickCount, int button, int modifiersEx) {
+		this.id = id;
+		this.x = x;
+		this.y = y;
+		this.clickCount = clickCount;
+		this.button = button;
+		this.modifiersEx = modifiersEx;
+	}
+
+	@Override
+	void save(String path, int itemIndex, PrintWriter writer) throws IOException {
+		String id;
+		switch (this.id) {
+			case MouseEvent.MOUSE_CLICKED: id = "MOUSE_CLICKED"; break;
+			case MouseEvent.MOUSE_PRESSED: id = "MOUSE_PRESSED"; break;
+			case MouseEvent.MOUSE_RELEASED: id = "MOUSE_RELEASED"; break;
+			case MouseEvent.MOUSE_DRAGGED: id = "MOUSE_DRAGGED"; break;
+			default: id = "unknown"; break;
+		}
+//		writer.println("MouseEvent " + id + " " + x + " " + y + " " + clickCount + " " + button + " " + modifiersEx);
+	}
+
+	@Override
+	void replay(int itemIndex, CanvasWindow window) {
+		window.handleMouseEvent(id, x, y, clickCount, button, modifiersEx);
+	}
+
+	@Override
+	void write(BinaryRecordingWriter writer) throws IOException {
+		writer.writeMouseEvent(timestamp, id, x, y, clickCount, button, modifiersEx);
+	}
+}
@@ -0,0 +1,62 @@
+package canvaswindow;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.imageio.ImageIO;
+
+class PaintItem extends RecordingItem {
+	private BufferedImage image;
+	private FrameEncoder encoder;
+	private int frameIndex;
+
+	PaintItem(BufferedImage image) {
+		this.image = image;
+	}
+
+	/**
+	 * A paint item whose frame is kept by the given encoder.
+	 */
+	PaintItem(FrameEncoder encoder, int frameIndex) {
+		this.encoder = encoder;
+		this.frameIndex = frameIndex;
+	}
+
+	BufferedImage getImage() {
+		return image != null ? image : encoder.decode(frameIndex);
+	}
+
+	static String imagePathOf(String basePath, int itemIndex) {
+		return basePath + ".image" + itemIndex + ".png";
+	}
+
+	void save(String path, int itemIndex, PrintWriter writer) throws IOException {
+		String imagePath = imagePathOf(path, itemIndex);
+		javax.imageio.ImageIO.write(getImage(), "PNG", new File(imagePath));
+//		writer.println("Paint");
+	}
+
+	@Override
+	void write(BinaryRecordingWriter writer) throws IOException {
+		writer.writePaint(timestamp, getImage());
+	}
+
+	void replay(int itemIndex, CanvasWindow window) {
+		BufferedImage image = getImage();
+		BufferedImage observedImage = window.captureImage();
+		for (int y = 0; y < observedImage.getHeight(); y++) {
+			for (int x = 0; x < observedImage.getWidth(); x++) {
+				if (observedImage.getRGB(x, y) != image.getRGB(x, y)) {
+					try {
+						ImageIO.write(observedImage, "PNG", new File("observedImage"+itemIndex+".png"));
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+					throw new RuntimeException("Replay: Paint item " + itemIndex + " does not match at x=" + x + " and y=" + y + ".");
+				}
+			}
+		}
+	}
+}
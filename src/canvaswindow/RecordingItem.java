@@ -0,0 +1,15 @@
+package canvaswindow;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+abstract class RecordingItem {
+	static final long NO_TIMESTAMP = -1;
+
+	/** When the item was recorded, in nanoseconds since the recording started, or NO_TIMESTAMP if unknown. */
+	long timestamp = NO_TIMESTAMP;
+
+	abstract void save(String path, int itemIndex, PrintWriter writer) throws IOException;
+	abstract void replay(int itemIndex, CanvasWindow window);
+	abstract void write(BinaryRecordingWriter writer) throws IOException;
+}
@@ -0,0 +1,118 @@
+package canvaswindow;
+
+/**
+ * The outcome of replaying a recording with a {@link HeadlessReplay}.
+ */
+public class ReplayResult {
+
+	private final int itemCount;
+	private final int checkedFrameCount;
+	private final long elapsedNanos;
+	private final int mismatchItem;
+	private final int mismatchX;
+	private final int mismatchY;
+	private final LatencySummary latency;
+	private final LatencySummary recordedLatency;
+	private final boolean latencyExceeded;
+
+	ReplayResult(int itemCount, int checkedFrameCount, long elapsedNanos, int mismatchItem, int mismatchX, int mismatchY,
+				 LatencySummary latency, LatencySummary recordedLatency, boolean latencyExceeded) {
+		this.itemCount = itemCount;
+		this.checkedFrameCount = checkedFrameCount;
+		this.elapsedNanos = elapsedNanos;
+		this.mismatchItem = mismatchItem;
+		this.mismatchX = mismatchX;
+		this.mismatchY = mismatchY;
+		this.latency = latency;
+		this.recordedLatency = recordedLatency;
+		this.latencyExceeded = latencyExceeded;
+	}
+
+	/**
+	 * Returns whether at least one frame was checked, every checked frame matched the recorded one, and the
+	 * latency stayed within its budget. A recording without frames checks nothing, so it doesn't pass.
+	 */
+	public boolean isPassed() {
+		return checkedFrameCount > 0 && mismatchItem < 0 && !latencyExceeded;
+	}
+
+	/**
+	 * Returns the number of items that were replayed, up to and including the first mismatching frame.
+	 */
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Returns the number of frames that were painted and compared.
+	 */
+	public int getCheckedFrameCount() {
+		return checkedFrameCount;
+	}
+
+	/**
+	 * Returns the time the replay took, in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the index of the first paint item whose frame didn't match, or -1 if all checked frames matched.
+	 */
+	public int getMismatchItem() {
+		return mismatchItem;
+	}
+
+	/**
+	 * Returns the x coordinate of the first mismatching pixel, or -1 if all checked frames matched.
+	 */
+	public int getMismatchX() {
+		return mismatchX;
+	}
+
+	/**
+	 * Returns the y coordinate of the first mismatching pixel, or -1 if all checked frames matched.
+	 */
+	public int getMismatchY() {
+		return mismatchY;
+	}
+
+	/**
+	 * Returns the input-to-paint latencies measured during the replay; they are only measured if the replay was asked to.
+	 */
+	public LatencySummary getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Returns the input-to-paint latencies measured while recording, for the items whose time was recorded.
+	 */
+	public LatencySummary getRecordedLatency() {
+		return recordedLatency;
+	}
+
+	/**
+	 * Returns whether the measured latency exceeded the budget of the replay.
+	 */
+	public boolean isLatencyExceeded() {
+		return latencyExceeded;
+	}
+
+	@Override
+	public String toString() {
+		String outcome;
+		if (mismatchItem >= 0)
+			outcome = "paint item " + mismatchItem + " does not match at x=" + mismatchX + " and y=" + mismatchY;
+		else if (checkedFrameCount == 0)
+			outcome = "no frames to check";
+		else
+			outcome = latencyExceeded ? "latency exceeds the budget" : "passed";
+		outcome += " (" + itemCount + " items, " + checkedFrameCount + " frames checked, " + elapsedNanos / 1000000 + " ms)";
+		if (latency.getCount() > 0)
+			outcome += ", latency " + latency;
+		if (recordedLatency.getCount() > 0)
+			outcome += ", recorded latency " + recordedLatency;
+		return outcome;
+	}
+}
@@ -0,0 +1,229 @@
+package canvaswindow;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Replays every recording under a directory concurrently, each into its own headless window.
+ *
+ * A recording is either a binary recording, whose name ends with {@code .brec}, or a file next to
+ * which the frames {@code <name>.image<index>.png} are stored. The recordings share nothing but the
+ * pool they run on, so a suite of recordings is replayed about as many times faster as there are cores.
+ *
+ * <pre>
+ * List&lt;ReplayRunner.Outcome&gt; outcomes = new ReplayRunner(MyWindow::new).run(directory, HeadlessReplay.FINAL_FRAME_ONLY);
+ * ReplayRunner.writeReport(outcomes, directory.resolve("report.json"));
+ * </pre>
+ */
+public class ReplayRunner {
+
+	private static final Pattern FRAME_NAME = Pattern.compile("(.*)\\.image\\d+\\.png");
+
+	/**
+	 * The outcome of replaying one recording: either a result, or the error that stopped the replay.
+	 */
+	public static class Outcome {
+		private final Path path;
+		private final ReplayResult result;
+		private final String error;
+
+		Outcome(Path path, ReplayResult result, String error) {
+			this.path = path;
+			this.result = result;
+			this.error = error;
+		}
+
+		public Path getPath() { return path; }
+
+		/**
+		 * Returns the result of the replay, or null if the recording could not be replayed.
+		 */
+		public ReplayResult getResult() { return result; }
+
+		/**
+		 * Returns why the recording could not be replayed, or null if it was.
+		 */
+		public String getError() { return error; }
+
+		public boolean isPassed() { return result != null && result.isPassed(); }
+	}
+
+	private final Supplier<? extends CanvasWindow> windowFactory;
+	private final ForkJoinPool pool;
+	private boolean measureLatency;
+	private double budgetPercentile;
+	private long latencyBudget = -1;
+
+	/**
+	 * A runner that replays each recording into a new window from the given factory, on a pool with a thread per core.
+	 */
+	public ReplayRunner(Supplier<? extends CanvasWindow> windowFactory) {
+		this(windowFactory, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ReplayRunner(Supplier<? extends CanvasWindow> windowFactory, int parallelism) {
+		this.windowFactory = windowFactory;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Measures the input-to-paint latency of each recording.
+	 *
+	 * @see HeadlessReplay#measureLatency()
+	 */
+	public void measureLatency() {
+		measureLatency = true;
+	}
+
+	/**
+	 * Fails each recording whose latency at the given percentile exceeds the given budget in nanoseconds.
+	 *
+	 * @see HeadlessReplay#setLatencyBudget(double, long)
+	 */
+	public void setLatencyBudget(double percentile, long nanos) {
+		if (percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("A percentile is between 0 and 100.");
+		measureLatency = true;
+		budgetPercentile = percentile;
+		latencyBudget = nanos;
+	}
+
+	/**
+	 * Finds the recordings under the given directory, in any of its subdirectories.
+	 *
+	 * @return The paths of the recordings, in order
+	 */
+	public static List<Path> findRecordings(Path directory) throws IOException {
+		TreeSet<Path> recordings = new TreeSet<>();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.forEach(file -> {
+				if (BinaryRecordingWriter.isBinaryRecording(file.toString()) && Files.isRegularFile(file))
+					recordings.add(file);
+				Matcher matcher = FRAME_NAME.matcher(file.getFileName().toString());
+				if (matcher.matches()) {
+					Path recording = file.resolveSibling(matcher.group(1));
+					if (Files.isRegularFile(recording))
+						recordings.add(recording);
+				}
+			});
+		}
+		return new ArrayList<>(recordings);
+	}
+
+	/**
+	 * Replays all recordings under the given directory, and waits until they are done.
+	 *
+	 * @param frameInterval Check every frameInterval-th frame and the final frame, or only the final frame if {@link HeadlessReplay#FINAL_FRAME_ONLY}
+	 * @return The outcome of each recording, in the order of their paths
+	 */
+	public List<Outcome> run(Path directory, int frameInterval) throws IOException {
+		List<Path> recordings = findRecordings(directory);
+		List<ForkJoinTask<Outcome>> tasks = new ArrayList<>();
+		for (Path recording : recordings)
+			tasks.add(pool.submit(() -> replay(recording, frameInterval)));
+		List<Outcome> outcomes = new ArrayList<>();
+		for (ForkJoinTask<Outcome> task : tasks)
+			outcomes.add(task.join());
+		return outcomes;
+	}
+
+	private Outcome replay(Path recording, int frameInterval) {
+		try {
+			HeadlessReplay replay = new HeadlessReplay(windowFactory.get());
+			if (latencyBudget >= 0)
+				replay.setLatencyBudget(budgetPercentile, latencyBudget);
+			else if (measureLatency)
+				replay.measureLatency();
+			ReplayResult result = replay.replay(recording.toString(), frameInterval);
+			return new Outcome(recording, result, null);
+		} catch (IOException | RuntimeException | AssertionError e) {
+			// A recording that can't be read or that makes the window fail doesn't stop the others
+			return new Outcome(recording, null, e.toString());
+		}
+	}
+
+	/**
+	 * Stops the threads of this runner.
+	 */
+	public void close() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Writes the given outcomes as a JSON report: a summary, and the result of each recording.
+	 */
+	public static void writeReport(List<Outcome> outcomes, Path path) throws IOException {
+		try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+			writeReport(outcomes, writer);
+		}
+	}
+
+	static void writeReport(List<Outcome> outcomes, PrintWriter writer) {
+		int passed = 0;
+		for (Outcome outcome : outcomes)
+			if (outcome.isPassed())
+				passed++;
+		writer.println("{");
+		writer.println("  \"passed\": " + passed + ",");
+		writer.println("  \"failed\": " + (outcomes.size() - passed) + ",");
+		writer.println("  \"recordings\": [");
+		for (int i = 0; i < outcomes.size(); i++) {
+			Outcome outcome = outcomes.get(i);
+			ReplayResult result = outcome.getResult();
+			StringBuilder line = new StringBuilder("    {\"path\": ").append(quote(outcome.getPath().toString()));
+			line.append(", \"passed\": ").append(outcome.isPassed());
+			if (result == null) {
+				line.append(", \"error\": ").append(quote(outcome.getError()));
+			} else {
+				line.append(", \"items\": ").append(result.getItemCount());
+				line.append(", \"checkedFrames\": ").append(result.getCheckedFrameCount());
+				line.append(", \"elapsedNanos\": ").append(result.getElapsedNanos());
+				line.append(", \"nanosPerItem\": ").append(result.getItemCount() == 0 ? 0 : result.getElapsedNanos() / result.getItemCount());
+				line.append(", \"latency\": ").append(latency(result.getLatency()));
+				line.append(", \"recordedLatency\": ").append(latency(result.getRecordedLatency()));
+				line.append(", \"latencyExceeded\": ").append(result.isLatencyExceeded());
+				if (result.getMismatchItem() < 0)
+					line.append(", \"mismatch\": null");
+				else
+					line.append(", \"mismatch\": {\"item\": ").append(result.getMismatchItem())
+							.append(", \"x\": ").append(result.getMismatchX())
+							.append(", \"y\": ").append(result.getMismatchY()).append('}');
+			}
+			line.append(i < outcomes.size() - 1 ? "}," : "}");
+			writer.println(line);
+		}
+		writer.println("  ]");
+		writer.println("}");
+	}
+
+	private static String latency(LatencySummary latency) {
+		if (latency.getCount() == 0)
+			return "null";
+		return "{\"count\": " + latency.getCount() + ", \"p50\": " + latency.getP50() + ", \"p95\": " + latency.getP95() + ", \"p99\": " + latency.getP99() + "}";
+	}
+
+	private static String quote(String text) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\')
+				quoted.append('\\').append(c);
+			else if (c < ' ')
+				quoted.append(String.format("\\u%04x", (int) c));
+			else
+				quoted.append(c);
+		}
+		return quoted.append('"').toString();
+	}
+}
@@ -0,0 +1,452 @@
+package domainlayer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A class that suggests completions for a partially typed address,
+ * based on the visited URLs and the bookmarks of the user.
+ *
+ * <p>
+ *     Completions are kept in a radix tree: a prefix trie in which every chain of
+ *     nodes with a single child is merged into one edge. Every URL is added with and
+ *     without its scheme and {@code www.} prefix, so typing a host name finds it, and
+ *     every bookmark is added under its name. Matching ignores case.
+ * </p>
+ *
+ * <p>
+ *     Completions are ranked by frecency: every visit adds a weight that doubles every
+ *     {@link #HALF_LIFE} milliseconds, so recent visits count more than old ones without
+ *     ever having to decay the stored scores. Every node keeps the highest score in its
+ *     subtree and its children are kept in descending order of that score, so a lookup
+ *     only walks the subtrees that can still hold one of the best completions.
+ *     Lookups reuse the buffers of this index and allocate nothing once they have grown.
+ * </p>
+ */
+public class AutocompleteIndex {
+
+    /**
+     * Record a visit of the given URL now.
+     *
+     * @param url: the URL that was visited.
+     */
+    public void recordVisit(String url) {
+        recordVisit(url, System.currentTimeMillis());
+    }
+
+    /**
+     * Record a visit of the given URL at the given time.
+     *
+     * @param url: the URL that was visited.
+     * @param time: the time of the visit in milliseconds since the epoch.
+     */
+    public synchronized void recordVisit(String url, long time) {
+        if (url == null || url.isEmpty())
+            return;
+        Completion completion = completion(url);
+        if (!completion.visited) {
+            completion.visited = true;
+            add(completion, url);
+            int scheme = url.indexOf("://");
+            String host = scheme < 0 ? url : url.substring(scheme + 3);
+            if (scheme >= 0 && !host.isEmpty())
+                add(completion, host);
+            if (host.regionMatches(true, 0, "www.", 0, 4) && host.length() > 4)
+                add(completion, host.substring(4));
+        }
+        raise(completion, completion.score + Math.pow(2, (double) (time - EPOCH) / HALF_LIFE));
+    }
+
+    /**
+     * Add a bookmark, so that typing its name suggests its {@code href} value.
+     *
+     * @param name: the name of the bookmark.
+     * @param href: the {@code href} value of the bookmark.
+     */
+    public synchronized void addBookmark(String name, String href) {
+        if (name == null || name.isEmpty() || href == null || href.isEmpty())
+            return;
+        Completion completion = completion(href);
+        add(completion, name);
+        // A bookmark counts as a recent visit, so it isn't outranked by a single other visit
+        raise(completion, completion.score + Math.pow(2, (double) (System.currentTimeMillis() - EPOCH) / HALF_LIFE));
+    }
+
+    /**
+     * Find the best completions of the given prefix.
+     *
+     * <p>
+     *     The {@code href} values of the completions are stored in {@code values} and the
+     *     keys they were found by in {@code keys}, best completion first. A key starts with the
+     *     given prefix, apart from case, so it can be shown as the completion of the prefix.
+     * </p>
+     *
+     * @param prefix: the typed prefix.
+     * @param values: the array the completed addresses are stored in; its length is the maximum number of completions.
+     * @param keys: an array at least as long as {@code values}, in which the matching keys are stored.
+     * @return count: the number of completions that were found.
+     */
+    public synchronized int suggest(CharSequence prefix, String[] values, String[] keys) {
+        int limit = values.length;
+        if (limit == 0 || prefix.length() == 0)
+            return 0;
+
+        // Find the node whose subtree holds all keys starting with the prefix
+        Node node = root;
+        int matched = 0;
+        while (matched < prefix.length()) {
+            Node child = node.child(prefix.charAt(matched));
+            if (child == null)
+                return 0;
+            int length = Math.min(child.label.length, prefix.length() - matched);
+            for (int i = 0; i < length; i++)
+                if (child.label[i] != Character.toLowerCase(prefix.charAt(matched + i)))
+                    return 0;
+            matched += child.label.length;
+            node = child;
+        }
+
+        // Walk the subtree depth first, best child first, skipping subtrees that can't improve the results
+        ensureCapacity(limit);
+        int count = 0;
+        int depth = 0;
+        stack[0] = node;
+        nextChild[0] = -1;
+        while (depth >= 0) {
+            Node current = stack[depth];
+            int index = nextChild[depth]++;
+            if (index < 0) {
+                if (current.completion != null)
+                    count = offer(current, count, limit);
+                continue;
+            }
+            if (index >= current.childCount) {
+                depth--;
+                continue;
+            }
+            Node child = current.children[index];
+            if (count == limit && child.maxScore <= scores[count - 1]) {
+                // The remaining children have lower scores
+                depth--;
+                continue;
+            }
+            depth++;
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+                nextChild = Arrays.copyOf(nextChild, 2 * nextChild.length);
+            }
+            stack[depth] = child;
+            nextChild[depth] = -1;
+        }
+
+        for (int i = 0; i < count; i++) {
+            values[i] = results[i].completion.value;
+            keys[i] = results[i].key;
+            results[i] = null;
+        }
+        return count;
+    }
+
+    /**
+     * Offer the completion of the given node to the results, which are sorted by descending score.
+     *
+     * @param node: the node holding the completion.
+     * @param count: the number of results so far.
+     * @param limit: the maximum number of results.
+     * @return count: the number of results afterwards.
+     */
+    private int offer(Node node, int count, int limit) {
+        Completion completion = node.completion;
+        double score = completion.score;
+        for (int i = 0; i < count; i++)
+            if (results[i].completion == completion)
+                return count;
+        if (count == limit && score <= scores[count - 1])
+            return count;
+        int position = count == limit ? count - 1 : count++;
+        while (position > 0 && scores[position - 1] < score) {
+            results[position] = results[position - 1];
+            scores[position] = scores[position - 1];
+            position--;
+        }
+        results[position] = node;
+        scores[position] = score;
+        return count;
+    }
+
+    /**
+     * Retrieve the number of distinct addresses that can be suggested.
+     *
+     * @return size: the number of addresses in this index.
+     */
+    public synchronized int size() {
+        return completions.size();
+    }
+
+    /**
+     * Retrieve the completion of the given address, creating it if needed.
+     *
+     * @param value: the address.
+     * @return completion: the {@link Completion} of the address.
+     */
+    private Completion completion(String value) {
+        return completions.computeIfAbsent(value, Completion::new);
+    }
+
+    /**
+     * Add the given key for the given completion to the tree.
+     *
+     * @param completion: the completion the key leads to.
+     * @param key: the key.
+     */
+    private void add(Completion completion, String key) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            char c = Character.toLowerCase(key.charAt(position));
+            Node child = node.child(c);
+            if (child == null) {
+                child = new Node(lowerCase(key, position, key.length()), node);
+                node.addChild(child);
+                node = child;
+                position = key.length();
+                break;
+            }
+            int common = 0;
+            while (common < child.label.length && position + common < key.length()
+                    && child.label[common] == Character.toLowerCase(key.charAt(position + common)))
+                common++;
+            if (common < child.label.length)
+                child = split(child, common);
+            node = child;
+            position += common;
+        }
+        if (node.completion == completion)
+            return;
+        if (node.completion != null)
+            // Another address had the same key; the key now leads to the given one
+            node.completion.removeNode(node);
+        node.completion = completion;
+        node.key = key;
+        completion.addNode(node);
+        propagate(node, completion.score);
+    }
+
+    /**
+     * Split the edge to the given node after the given number of characters.
+     *
+     * @param node: the node whose edge is split.
+     * @param length: the length of the first part of the edge.
+     * @return middle: the new node at the end of the first part of the edge.
+     */
+    private static Node split(Node node, int length) {
+        Node parent = node.parent;
+        Node middle = new Node(Arrays.copyOf(node.label, length), parent);
+        middle.maxScore = node.maxScore;
+        parent.children[parent.indexOf(node)] = middle;
+        node.label = Arrays.copyOfRange(node.label, length, node.label.length);
+        node.parent = middle;
+        middle.addChild(node);
+        return middle;
+    }
+
+    /**
+     * Raise the score of the given completion.
+     *
+     * @param completion: the completion.
+     * @param score: the new, higher score.
+     */
+    private static void raise(Completion completion, double score) {
+        completion.score = score;
+        for (int i = 0; i < completion.nodeCount; i++)
+            propagate(completion.nodes[i], score);
+    }
+
+    /**
+     * Raise the highest score of the given node and its ancestors to the given score,
+     * and move them forward among their siblings to keep those in descending order.
+     *
+     * @param node: the node.
+     * @param score: the score.
+     */
+    private static void propagate(Node node, double score) {
+        while (node != null && node.maxScore < score) {
+            node.maxScore = score;
+            Node parent = node.parent;
+            if (parent != null) {
+                int index = parent.indexOf(node);
+                while (index > 0 && parent.children[index - 1].maxScore < score) {
+                    parent.children[index] = parent.children[index - 1];
+                    index--;
+                }
+                parent.children[index] = node;
+            }
+            node = parent;
+        }
+    }
+
+    /**
+     * Grow the buffers used by lookups to hold the given number of results.
+     *
+     * @param limit: the maximum number of results.
+     */
+    private void ensureCapacity(int limit) {
+        if (results.length < limit) {
+            results = new Node[limit];
+            scores = new double[limit];
+        }
+    }
+
+    /**
+     * Retrieve the lower case characters of the given part of the given string.
+     */
+    private static char[] lowerCase(String string, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = Character.toLowerCase(string.charAt(start + i));
+        return chars;
+    }
+
+    /**
+     * A node of the radix tree.
+     */
+    private static class Node {
+
+        Node(char[] label, Node parent) {
+            this.label = label;
+            this.parent = parent;
+        }
+
+        /**
+         * Retrieve the child whose edge starts with the given character, apart from case.
+         */
+        Node child(char c) {
+            c = Character.toLowerCase(c);
+            for (int i = 0; i < childCount; i++)
+                if (children[i].label[0] == c)
+                    return children[i];
+            return null;
+        }
+
+        int indexOf(Node child) {
+            for (int i = 0; i < childCount; i++)
+                if (children[i] == child)
+                    return i;
+            throw new IllegalStateException("Not a child of this node.");
+        }
+
+        /**
+         * Add the given child, which has the lowest score, after the other children.
+         */
+        void addChild(Node child) {
+            if (childCount == children.length)
+                children = Arrays.copyOf(children, Math.max(2, 2 * childCount));
+            children[childCount++] = child;
+        }
+
+        /**
+         * The lower case characters of the edge from the parent to this node.
+         */
+        private char[] label;
+
+        private Node parent;
+        private Node[] children = NO_CHILDREN;
+        private int childCount;
+
+        /**
+         * The highest score of a completion in the subtree of this node.
+         */
+        private double maxScore;
+
+        /**
+         * The completion this node is the key of, or {@code null}.
+         */
+        private Completion completion;
+
+        /**
+         * The key of this node, as it was added, or {@code null}.
+         */
+        private String key;
+    }
+
+    /**
+     * An address that can be suggested, together with its score.
+     */
+    private static class Completion {
+
+        Completion(String value) {
+            this.value = value;
+        }
+
+        void addNode(Node node) {
+            if (nodeCount == nodes.length)
+                nodes = Arrays.copyOf(nodes, 2 * nodeCount);
+            nodes[nodeCount++] = node;
+        }
+
+        void removeNode(Node node) {
+            for (int i = 0; i < nodeCount; i++)
+                if (nodes[i] == node) {
+                    nodes[i] = nodes[--nodeCount];
+                    nodes[nodeCount] = null;
+                    return;
+                }
+        }
+
+        private final String value;
+        private double score;
+
+        /**
+         * Whether the keys derived from the address itself have been added.
+         */
+        private boolean visited;
+
+        /**
+         * The nodes of the keys of this address.
+         */
+        private Node[] nodes = new Node[3];
+        private int nodeCount;
+    }
+
+    /**
+     * The number of milliseconds after which the weight of a new visit has doubled.
+     */
+    static final long HALF_LIFE = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * The time from which the weights of visits are computed: 1 January 2021.
+     */
+    private static final long EPOCH = 1609459200000L;
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    /**
+     * The root of the radix tree, with an empty edge.
+     */
+    private final Node root = new Node(new char[0], null);
+
+    /**
+     * The completions, keyed by their address.
+     */
+    private final HashMap<String, Completion> completions = new HashMap<>();
+
+    /**
+     * The stack of nodes of a lookup.
+     */
+    private Node[] stack = new Node[64];
+
+    /**
+     * The index of the next child to be visited of each node on the stack.
+     */
+    private int[] nextChild = new int[64];
+
+    /**
+     * The best nodes found by a lookup, in descending order of score.
+     */
+    private Node[] results = new Node[0];
+
+    /**
+     * The scores of the best nodes found by a lookup.
+     */
+    private double[] scores = new double[0];
+}
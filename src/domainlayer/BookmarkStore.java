@@ -0,0 +1,334 @@
+package domainlayer;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * A class that keeps the bookmarks of the user, in the order they were added,
+ * and optionally persists them in an append-only log file.
+ *
+ * <p>
+ *     Every added bookmark is appended to the log as a record with a checksum.
+ *     Appended records are forced to disk in batches, at most {@link #SYNC_DELAY}
+ *     milliseconds after they were written, so adding many bookmarks doesn't wait for
+ *     the disk every time. When the store is opened, the log is replayed in one pass
+ *     and a record that was torn by a crash is cut off. Once most records of the log
+ *     are overwritten bookmarks, the log is compacted into a new file that replaces
+ *     the old one atomically.
+ * </p>
+ */
+public class BookmarkStore implements Closeable {
+
+    /**
+     * Construct a new, empty {@code BookmarkStore} that only keeps its bookmarks in memory.
+     */
+    public BookmarkStore() {
+        this.file = null;
+    }
+
+    /**
+     * Open the bookmark store logged in the given file, creating the file if it doesn't exist.
+     *
+     * @param file: the path of the log file.
+     * @throws IOException: if the log file can't be read or written.
+     */
+    public BookmarkStore(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long validLength = replay();
+        if (validLength == 0) {
+            channel.truncate(0);
+            write(channel, header());
+            channel.force(false);
+        } else if (validLength < channel.size()) {
+            // The tail of the log was torn by a crash
+            channel.truncate(validLength);
+            channel.force(false);
+        }
+        channel.position(channel.size());
+    }
+
+    /**
+     * Replay the log into the bookmarks of this store.
+     *
+     * @return validLength: the length of the log up to the end of its last valid record,
+     *                    or 0 if the log has no valid header.
+     * @throws IOException: if the log can't be read.
+     */
+    private long replay() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16));
+        long validLength;
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return 0;
+            validLength = HEADER_SIZE;
+        } catch (EOFException e) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        byte[] payload = new byte[256];
+        while (true) {
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE)
+                    break;
+                if (length > payload.length)
+                    payload = new byte[Math.max(length, 2 * payload.length)];
+                in.readFully(payload, 0, length);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum)
+                    break;
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload, 0, length));
+                if (record.readByte() != PUT)
+                    break;
+                String name = record.readUTF();
+                bookmarks.put(name, record.readUTF());
+                recordCount++;
+                validLength += RECORD_HEADER_SIZE + length;
+            } catch (EOFException e) {
+                break;
+            }
+        }
+        return validLength;
+    }
+
+    /**
+     * Retrieve the bookmarks of this store.
+     *
+     * @return bookmarks: an unmodifiable view of the {@code href} values of the bookmarks,
+     *                  keyed by their names, in the order they were first added.
+     */
+    public Map<String, String> getBookmarks() {
+        return Collections.unmodifiableMap(bookmarks);
+    }
+
+    /**
+     * Retrieve the {@code href} value of the bookmark with the given name.
+     *
+     * @param name: the name of the bookmark.
+     * @return href: the {@code href} value of the bookmark, or {@code null} if there is none.
+     */
+    public synchronized String get(String name) {
+        return bookmarks.get(name);
+    }
+
+    /**
+     * Add a bookmark to this store, replacing the {@code href} value of a bookmark with the same name.
+     * The bookmark is kept in memory even if it can't be logged.
+     *
+     * @param name: the name of the bookmark.
+     * @param href: the {@code href} value of the bookmark.
+     * @throws IOException: if the bookmark can't be logged.
+     */
+    public synchronized void put(String name, String href) throws IOException {
+        bookmarks.put(name, href);
+        if (channel == null)
+            return;
+        write(channel, record(name, href));
+        recordCount++;
+        if (recordCount >= COMPACTION_THRESHOLD && recordCount > 2 * bookmarks.size()) {
+            compact();
+            return;
+        }
+        if (!syncScheduled) {
+            syncScheduled = true;
+            SYNC_EXECUTOR.schedule(this::syncQuietly, SYNC_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Force the records that were appended to the log to disk.
+     *
+     * @throws IOException: if the log can't be forced to disk.
+     */
+    public synchronized void sync() throws IOException {
+        syncScheduled = false;
+        if (channel != null && channel.isOpen())
+            channel.force(false);
+    }
+
+    /**
+     * Force the appended records to disk, leaving them to the next sync if that fails.
+     */
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException ignored) {
+            // The records are forced to disk by the next sync or compaction
+        }
+    }
+
+    /**
+     * Rewrite the log with a single record per bookmark, and replace the old log atomically.
+     *
+     * @throws IOException: if the compacted log can't be written.
+     */
+    public synchronized void compact() throws IOException {
+        if (channel == null)
+            return;
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), "bookmarks", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteArrayOutputStream log = new ByteArrayOutputStream();
+                log.write(header().array());
+                for (Map.Entry<String, String> bookmark : bookmarks.entrySet())
+                    log.write(record(bookmark.getKey(), bookmark.getValue()).array());
+                write(out, ByteBuffer.wrap(log.toByteArray()));
+                out.force(false);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        channel.close();
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        recordCount = bookmarks.size();
+        syncScheduled = false;
+    }
+
+    /**
+     * Retrieve the number of records in the log.
+     *
+     * @return recordCount: the number of records, or 0 if this store only keeps its bookmarks in memory.
+     */
+    synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Force the log to disk and close it. Bookmarks added afterwards are only kept in memory.
+     *
+     * @throws IOException: if the log can't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null)
+            return;
+        channel.force(false);
+        channel.close();
+        channel = null;
+    }
+
+    /**
+     * Retrieve the header of a log.
+     *
+     * @return header: a buffer holding {@link #MAGIC} and {@link #VERSION}.
+     */
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+    }
+
+    /**
+     * Encode the record that adds the given bookmark: its payload length,
+     * the CRC-32 checksum of its payload and its payload.
+     *
+     * @param name: the name of the bookmark.
+     * @param href: the {@code href} value of the bookmark.
+     * @return record: a buffer holding the record.
+     * @throws IOException: if the name or {@code href} value is too long to be encoded.
+     */
+    private static ByteBuffer record(String name, String href) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        out.writeByte(PUT);
+        out.writeUTF(name);
+        out.writeUTF(href);
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.size())
+                .putInt(payload.size()).putInt((int) crc.getValue()).put(payload.toByteArray()).flip();
+    }
+
+    /**
+     * Write all remaining bytes of the given buffer to the given channel.
+     *
+     * @param channel: the channel the bytes are written to.
+     * @param buffer: the bytes to be written.
+     * @throws IOException: if the bytes can't be written.
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * The maximum number of milliseconds between appending a record and forcing it to disk.
+     */
+    static final long SYNC_DELAY = 1000;
+
+    /**
+     * The minimum number of records in the log before it is compacted.
+     */
+    static final int COMPACTION_THRESHOLD = 1024;
+
+    private static final int MAGIC = 0x42524b4d;
+    private static final int VERSION = 1;
+    private static final byte PUT = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * The maximum size of the payload of a record: an operation and two strings of at most 65535 bytes.
+     */
+    private static final int MAX_RECORD_SIZE = 1 + 2 * (2 + 65535);
+
+    /**
+     * The executor on which appended records are forced to disk.
+     */
+    private static final ScheduledExecutorService SYNC_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bookmark-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The bookmarks of this store, in the order they were first added.
+     */
+    private final LinkedHashMap<String, String> bookmarks = new LinkedHashMap<>();
+
+    /**
+     * The path of the log file, or {@code null} if the bookmarks are only kept in memory.
+     */
+    private final Path file;
+
+    /**
+     * The channel of the log file, or {@code null} if the bookmarks are only kept in memory.
+     */
+    private FileChannel channel;
+
+    /**
+     * The number of records in the log.
+     */
+    private int recordCount;
+
+    /**
+     * Whether appended records are waiting to be forced to disk.
+     */
+    private boolean syncScheduled;
+}
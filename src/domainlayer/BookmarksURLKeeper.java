@@ -1,6 +1,8 @@
 package domainlayer;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A class that keeps track of the
@@ -14,7 +16,17 @@ public class BookmarksURLKeeper {
      * with an initially empty list of bookmarks.
      */
     public BookmarksURLKeeper() {
-        this.bookmarkHrefs = new HashMap<>();
+        this(new BookmarkStore());
+    }
+
+    /**
+     * Construct a new {@code BookmarksURLKeeper}
+     * that keeps its bookmarks in the given store.
+     *
+     * @param store: the {@link BookmarkStore} holding the bookmarks.
+     */
+    public BookmarksURLKeeper(BookmarkStore store) {
+        this.bookmarkHrefs = store;
     }
 
     /**
@@ -24,7 +36,11 @@ public class BookmarksURLKeeper {
      * @param href: the {@code href} value of the bookmark to be added.
      */
     public void addBookmarksHref(String name, String href) {
-        this.bookmarkHrefs.put(name, href);
+        try {
+            this.bookmarkHrefs.put(name, href);
+        } catch (IOException e) {
+            System.out.println("Can't save this bookmark: " + e.getMessage());
+        }
     }
 
     /**
@@ -41,8 +57,28 @@ public class BookmarksURLKeeper {
     }
 
     /**
-     * A {@link HashMap} of {@code name}, {@code href} pairs
-     * that keeps track of the currently bookmarks added up until now.
+     * Get the names of the kept bookmarks.
+     *
+     * @return names:
+     *           the names of the bookmarks, in the order they were first added.
+     */
+    public List<String> getBookmarkNames() {
+        return new ArrayList<>(this.bookmarkHrefs.getBookmarks().keySet());
+    }
+
+    /**
+     * Get the store that holds the kept bookmarks.
+     *
+     * @return store:
+     *           the {@link BookmarkStore} of this {@code BookmarksURLKeeper}.
+     */
+    public BookmarkStore getStore() {
+        return this.bookmarkHrefs;
+    }
+
+    /**
+     * The {@link BookmarkStore} of {@code name}, {@code href} pairs
+     * that keeps track of the bookmarks added up until now.
      */
-    private final HashMap<String, String> bookmarkHrefs;
+    private final BookmarkStore bookmarkHrefs;
 }
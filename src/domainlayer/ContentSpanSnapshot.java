@@ -0,0 +1,304 @@
+package domainlayer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A class that encodes {@link ContentSpan} trees into a compact, versioned
+ * binary snapshot and decodes them again, so that a parsed page can be
+ * restored without lexing its HTML code.
+ *
+ * <p>
+ *     A snapshot starts with {@link #MAGIC} and {@link #VERSION}, followed by a table
+ *     of the distinct strings of the tree and by the nodes of the tree in document order.
+ *     Every node starts with a one byte tag, and strings are referred to by their
+ *     index in the string table. Counts, lengths and indices are written as
+ *     unsigned variable length integers of seven bits per byte.
+ * </p>
+ */
+final class ContentSpanSnapshot {
+
+    /**
+     * This class only holds static methods and can't be instantiated.
+     */
+    private ContentSpanSnapshot() { }
+
+    /**
+     * Encode the given tree into a snapshot.
+     *
+     * @param content: the root of the {@link ContentSpan} tree, or {@code null}.
+     * @return snapshot: the bytes of the snapshot.
+     * @throws IllegalArgumentException: if the tree holds a kind of {@link ContentSpan} that can't be encoded.
+     */
+    static byte[] encode(ContentSpan content) {
+        HashMap<String, Integer> indices = new HashMap<>();
+        ArrayList<String> strings = new ArrayList<>();
+        ByteArrayOutputStream nodes = new ByteArrayOutputStream();
+        writeNode(content, nodes, indices, strings);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(nodes.size() + 64);
+        for (int shift = 24; shift >= 0; shift -= 8)
+            out.write(MAGIC >>> shift);
+        out.write(VERSION);
+        writeVarInt(out, strings.size());
+        for (String string : strings)
+            writeString(out, string);
+        out.write(nodes.toByteArray(), 0, nodes.size());
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode the snapshot at the position of the given buffer, advancing the buffer past it.
+     *
+     * @param buffer: the buffer holding the snapshot.
+     * @return content: the root of the decoded {@link ContentSpan} tree, or {@code null}.
+     * @throws IOException: if the buffer doesn't hold a valid snapshot of this version.
+     */
+    static ContentSpan decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Not a page snapshot.");
+            int version = buffer.get() & 0xff;
+            if (version != VERSION)
+                throw new IOException("Unsupported page snapshot version: " + version);
+            int stringCount = readVarInt(buffer);
+            if (stringCount > buffer.remaining())
+                throw new IOException("Truncated page snapshot.");
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < strings.length; i++)
+                strings[i] = readString(buffer);
+            return readNode(buffer, strings);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated page snapshot.", e);
+        }
+    }
+
+    /**
+     * Write the given node and its descendants.
+     *
+     * @param content: the node to be written, or {@code null}.
+     * @param out: the stream the node is written to.
+     * @param indices: the indices of the strings in the string table.
+     * @param strings: the string table.
+     */
+    private static void writeNode(ContentSpan content, ByteArrayOutputStream out, HashMap<String, Integer> indices, List<String> strings) {
+        if (content == null) {
+            out.write(TAG_NULL);
+        } else if (content instanceof TextSpan) {
+            out.write(TAG_TEXT);
+            writeVarInt(out, index(((TextSpan) content).getText(), indices, strings));
+        } else if (content instanceof HyperLink) {
+            HyperLink link = (HyperLink) content;
+            out.write(TAG_HYPERLINK);
+            writeVarInt(out, index(link.getHref(), indices, strings));
+            writeVarInt(out, index(link.getTextSpan() == null ? null : link.getTextSpan().getText(), indices, strings));
+        } else if (content instanceof Table) {
+            List<TableRow> rows = ((Table) content).getRows();
+            out.write(TAG_TABLE);
+            writeVarInt(out, rows.size());
+            for (TableRow row : rows) {
+                List<TableCell> cells = row.getCells();
+                out.write(TAG_ROW);
+                writeVarInt(out, cells.size());
+                for (TableCell cell : cells) {
+                    out.write(TAG_CELL);
+                    writeNode(cell.getContent(), out, indices, strings);
+                }
+            }
+        } else if (content instanceof Form) {
+            Form form = (Form) content;
+            out.write(TAG_FORM);
+            writeVarInt(out, index(form.getAction(), indices, strings));
+            writeNode(form.getContent(), out, indices, strings);
+        } else if (content instanceof TextInputField) {
+            out.write(TAG_INPUT);
+            writeVarInt(out, index(((TextInputField) content).getName(), indices, strings));
+        } else if (content instanceof SubmitButton) {
+            out.write(TAG_SUBMIT);
+        } else if (content.getClass() == ContentSpan.class) {
+            out.write(TAG_EMPTY);
+        } else {
+            throw new IllegalArgumentException("Can't encode a " + content.getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Read the node at the position of the given buffer and its descendants.
+     *
+     * @param buffer: the buffer holding the node.
+     * @param strings: the string table of the snapshot.
+     * @return content: the decoded node, or {@code null}.
+     * @throws IOException: if the buffer doesn't hold a valid node.
+     */
+    private static ContentSpan readNode(ByteBuffer buffer, String[] strings) throws IOException {
+        int tag = buffer.get();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TEXT:
+                return new TextSpan(string(buffer, strings));
+            case TAG_HYPERLINK:
+                String href = string(buffer, strings);
+                String text = string(buffer, strings);
+                return new HyperLink(href, text == null ? null : new TextSpan(text));
+            case TAG_TABLE:
+                int rowCount = readVarInt(buffer);
+                ArrayList<TableRow> rows = new ArrayList<>(Math.min(rowCount, buffer.remaining()));
+                for (int i = 0; i < rowCount; i++) {
+                    expect(buffer, TAG_ROW);
+                    int cellCount = readVarInt(buffer);
+                    ArrayList<TableCell> cells = new ArrayList<>(Math.min(cellCount, buffer.remaining()));
+                    for (int j = 0; j < cellCount; j++) {
+                        expect(buffer, TAG_CELL);
+                        cells.add(new TableCell(readNode(buffer, strings)));
+                    }
+                    rows.add(new TableRow(cells));
+                }
+                return new Table(rows);
+            case TAG_FORM:
+                String action = string(buffer, strings);
+                return new Form(action, readNode(buffer, strings));
+            case TAG_INPUT:
+                return new TextInputField(string(buffer, strings));
+            case TAG_SUBMIT:
+                return new SubmitButton();
+            case TAG_EMPTY:
+                return new ContentSpan();
+            default:
+                throw new IOException("Unknown page snapshot tag: " + tag);
+        }
+    }
+
+    /**
+     * Check that the next byte of the given buffer is the given tag.
+     *
+     * @param buffer: the buffer holding the tag.
+     * @param tag: the expected tag.
+     * @throws IOException: if the next byte is another tag.
+     */
+    private static void expect(ByteBuffer buffer, int tag) throws IOException {
+        int actual = buffer.get();
+        if (actual != tag)
+            throw new IOException("Expected page snapshot tag " + tag + " but found " + actual + ".");
+    }
+
+    /**
+     * Retrieve the index of the given string in the string table, adding it if needed.
+     *
+     * @param string: the string, or {@code null}.
+     * @param indices: the indices of the strings in the string table.
+     * @param strings: the string table.
+     * @return index: 0 for {@code null}, or one more than the position of the string in the string table.
+     */
+    private static int index(String string, HashMap<String, Integer> indices, List<String> strings) {
+        if (string == null)
+            return 0;
+        Integer index = indices.get(string);
+        if (index == null) {
+            strings.add(string);
+            index = strings.size();
+            indices.put(string, index);
+        }
+        return index;
+    }
+
+    /**
+     * Read a reference to the string table.
+     *
+     * @param buffer: the buffer holding the reference.
+     * @param strings: the string table.
+     * @return string: the referred string, or {@code null}.
+     */
+    private static String string(ByteBuffer buffer, String[] strings) {
+        int index = readVarInt(buffer);
+        return index == 0 ? null : strings[index - 1];
+    }
+
+    /**
+     * Write the given string as its UTF-8 length followed by its UTF-8 bytes.
+     *
+     * @param out: the stream the string is written to.
+     * @param string: the string to be written.
+     */
+    static void writeString(ByteArrayOutputStream out, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Read a string written by {@link #writeString(ByteArrayOutputStream, String)}.
+     *
+     * @param buffer: the buffer holding the string.
+     * @return string: the decoded string.
+     */
+    static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        if (length > buffer.remaining())
+            throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write the given unsigned integer in seven bits per byte, least significant bits first.
+     *
+     * @param out: the stream the integer is written to.
+     * @param value: the non-negative integer to be written.
+     */
+    static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Read an integer written by {@link #writeVarInt(ByteArrayOutputStream, int)}.
+     *
+     * @param buffer: the buffer holding the integer.
+     * @return value: the decoded integer.
+     * @throws IndexOutOfBoundsException: if the buffer doesn't hold a non-negative integer.
+     */
+    static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0 && value >= 0)
+                return value;
+            if (b >= 0)
+                break;
+        }
+        throw new IndexOutOfBoundsException("Invalid variable length integer.");
+    }
+
+    /**
+     * The first four bytes of every snapshot.
+     */
+    static final int MAGIC = 0x4253504e;
+
+    /**
+     * The version of the snapshot format written by this class.
+     */
+    static final int VERSION = 1;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_TEXT = 1;
+    private static final int TAG_HYPERLINK = 2;
+    private static final int TAG_TABLE = 3;
+    private static final int TAG_ROW = 4;
+    private static final int TAG_CELL = 5;
+    private static final int TAG_FORM = 6;
+    private static final int TAG_INPUT = 7;
+    private static final int TAG_SUBMIT = 8;
+    private static final int TAG_EMPTY = 9;
+}
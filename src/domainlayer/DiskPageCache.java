@@ -0,0 +1,546 @@
+package domainlayer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A class that keeps parsed pages on disk, so that pages visited in an
+ * earlier session can be shown without downloading and lexing them again.
+ *
+ * <p>
+ *     Every page is stored in its own data file, holding its URL, the values needed
+ *     to revalidate it, a {@link ContentSpanSnapshot} of its content and its raw bytes.
+ *     Data files are found through a memory-mapped index file: an open addressing hash
+ *     table of fixed size slots keyed by a 64-bit hash of the URL. A data file is read
+ *     with a single memory-mapped read. Pages are evicted in least recently used
+ *     order once the total size of the data files exceeds the bound of this cache.
+ * </p>
+ *
+ * <p>
+ *     A {@code DiskPageCache} must not be shared between processes.
+ * </p>
+ */
+public class DiskPageCache implements Closeable {
+
+    /**
+     * Open the disk cache in the given directory, creating it if needed.
+     *
+     * @param directory: the directory the index and data files are kept in.
+     * @param maxSize: the maximum total size in bytes of the data files.
+     * @throws IOException: if the directory or the index file can't be opened.
+     * @throws IllegalArgumentException: if the bound is not positive.
+     */
+    public DiskPageCache(Path directory, long maxSize) throws IOException {
+        this(directory, maxSize, DEFAULT_SLOT_COUNT);
+    }
+
+    /**
+     * Open the disk cache in the given directory with the given number of index slots.
+     * An index with another number of slots is discarded together with its data files.
+     *
+     * @param directory: the directory the index and data files are kept in.
+     * @param maxSize: the maximum total size in bytes of the data files.
+     * @param slotCount: the number of slots of the index.
+     * @throws IOException: if the directory or the index file can't be opened.
+     * @throws IllegalArgumentException: if the bound or the number of slots is not positive.
+     */
+    DiskPageCache(Path directory, long maxSize, int slotCount) throws IOException {
+        if (maxSize <= 0 || slotCount <= 0)
+            throw new IllegalArgumentException("The bounds of a disk page cache must be positive.");
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.slotCount = slotCount;
+        this.maxEntries = Math.max(1, slotCount * 3 / 4);
+
+        Files.createDirectories(directory);
+        long indexSize = INDEX_HEADER_SIZE + (long) slotCount * SLOT_SIZE;
+        indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean valid = indexChannel.size() == indexSize;
+        if (!valid)
+            indexChannel.truncate(0);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexSize);
+        valid = valid && index.getInt(0) == INDEX_MAGIC && index.getInt(4) == INDEX_VERSION && index.getInt(8) == slotCount;
+
+        if (!valid) {
+            clear();
+            return;
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (state(slot) != USED)
+                continue;
+            size += slotSize(slot);
+            entryCount++;
+            clock = Math.max(clock, lastAccess(slot));
+        }
+    }
+
+    /**
+     * A page restored from the disk cache, together with the values needed to revalidate it.
+     */
+    public static class StoredPage {
+
+        StoredPage(Page page, String eTag, long lastModified) {
+            this.page = page;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Retrieve the restored page.
+         *
+         * @return page: the {@link Page} holding the restored content and raw bytes.
+         */
+        public Page getPage() {
+            return page;
+        }
+
+        /**
+         * Retrieve the {@code ETag} of the page.
+         *
+         * @return eTag: the {@code ETag} of the page, or {@code null} if there is none.
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Retrieve the last modification date of the page.
+         *
+         * @return lastModified: the last modification date in milliseconds, or 0 if it is unknown.
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        private final Page page;
+        private final String eTag;
+        private final long lastModified;
+    }
+
+    /**
+     * Retrieve the page at the given URL and mark it as most recently used.
+     *
+     * <p>
+     *     An entry whose data file is missing or corrupt is removed, and reported as absent.
+     * </p>
+     *
+     * @param url: the URL of the page.
+     * @return stored: the {@link StoredPage} at the given URL, or {@code null} if it isn't cached.
+     */
+    public synchronized StoredPage get(URL url) {
+        String key = url.toExternalForm();
+        long hash = hash(key);
+        int slot = find(hash);
+        if (slot < 0)
+            return null;
+
+        StoredPage stored;
+        try (FileChannel channel = FileChannel.open(dataFile(hash), StandardOpenOption.READ)) {
+            stored = read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), key);
+        } catch (IOException | RuntimeException e) {
+            remove(slot, hash);
+            return null;
+        }
+        // A different URL with the same hash
+        if (stored == null)
+            return null;
+        setLastAccess(slot, ++clock);
+        return stored;
+    }
+
+    /**
+     * Store the given page, replacing the page that was stored for its URL,
+     * and evict the least recently used pages until this cache is within its bound again.
+     * A page that exceeds the bound on its own is not stored.
+     *
+     * @param url: the URL of the page.
+     * @param page: the page to be stored.
+     * @param eTag: the {@code ETag} of the page, or {@code null} if there is none.
+     * @param lastModified: the last modification date of the page in milliseconds, or 0 if it is unknown.
+     * @throws IOException: if the data file of the page can't be written.
+     * @throws IllegalArgumentException: if the content of the page can't be encoded.
+     */
+    public synchronized void put(URL url, Page page, String eTag, long lastModified) throws IOException {
+        String key = url.toExternalForm();
+        long hash = hash(key);
+        int existing = find(hash);
+        if (existing >= 0)
+            remove(existing, hash);
+
+        byte[] snapshot = ContentSpanSnapshot.encode(page.getContentSpan());
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(FILE_MAGIC);
+        out.writeByte(FILE_VERSION);
+        ContentSpanSnapshot.writeString(header, key);
+        out.writeBoolean(eTag != null);
+        if (eTag != null)
+            ContentSpanSnapshot.writeString(header, eTag);
+        out.writeLong(lastModified);
+        out.writeInt(snapshot.length);
+        long fileSize = header.size() + snapshot.length + page.getSource().getSize();
+        if (fileSize > maxSize || fileSize > Integer.MAX_VALUE)
+            return;
+
+        Path temporary = Files.createTempFile(directory, "page", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                write(channel, ByteBuffer.wrap(header.toByteArray()));
+                write(channel, ByteBuffer.wrap(snapshot));
+                page.getSource().writeTo(channel);
+            }
+            while (entryCount >= maxEntries || size + fileSize > maxSize)
+                evictLeastRecentlyUsed();
+            Files.move(temporary, dataFile(hash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        int slot = freeSlot(hash);
+        index.putLong(offset(slot) + 8, hash);
+        index.putInt(offset(slot) + 4, (int) fileSize);
+        setLastAccess(slot, ++clock);
+        index.putInt(offset(slot), USED);
+        size += fileSize;
+        entryCount++;
+    }
+
+    /**
+     * Remove the page at the given URL from this cache.
+     *
+     * @param url: the URL of the page.
+     */
+    public synchronized void remove(URL url) {
+        long hash = hash(url.toExternalForm());
+        int slot = find(hash);
+        if (slot >= 0)
+            remove(slot, hash);
+    }
+
+    /**
+     * Remove all pages from this cache.
+     *
+     * @throws IOException: if the data files can't be listed.
+     */
+    public synchronized void clear() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + DATA_SUFFIX)) {
+            for (Path file : files)
+                Files.deleteIfExists(file);
+        }
+        for (int i = 0; i < index.capacity(); i += 8)
+            index.putLong(i, 0);
+        index.putInt(0, INDEX_MAGIC);
+        index.putInt(4, INDEX_VERSION);
+        index.putInt(8, slotCount);
+        size = 0;
+        entryCount = 0;
+        clock = 0;
+    }
+
+    /**
+     * Retrieve the number of pages that are stored.
+     *
+     * @return entryCount: the number of stored pages.
+     */
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Retrieve the total size in bytes of the data files.
+     *
+     * @return size: the total size of the stored pages.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Write the index to disk and close it. This cache can't be used afterwards.
+     *
+     * @throws IOException: if the index file can't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        index.force();
+        indexChannel.close();
+    }
+
+    /**
+     * Read the data file in the given buffer.
+     *
+     * @param data: the buffer holding the data file.
+     * @param key: the URL the data file is expected to belong to.
+     * @return stored: the stored page, or {@code null} if the data file belongs to another URL.
+     * @throws IOException: if the data file is corrupt.
+     */
+    private static StoredPage read(ByteBuffer data, String key) throws IOException {
+        try {
+            if (data.getInt() != FILE_MAGIC || data.get() != FILE_VERSION)
+                throw new IOException("Not a page data file.");
+            if (!ContentSpanSnapshot.readString(data).equals(key))
+                return null;
+            String eTag = data.get() != 0 ? ContentSpanSnapshot.readString(data) : null;
+            long lastModified = data.getLong();
+            int snapshotLength = data.getInt();
+            ByteBuffer snapshot = data.slice();
+            snapshot.limit(snapshotLength);
+            ContentSpan content = ContentSpanSnapshot.decode(snapshot);
+            data.position(data.position() + snapshotLength);
+            return new StoredPage(new Page(content, PageSource.copyOf(data)), eTag, lastModified);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Truncated page data file.", e);
+        }
+    }
+
+    /**
+     * Write all remaining bytes of the given buffer to the given channel.
+     *
+     * @param channel: the channel the bytes are written to.
+     * @param buffer: the bytes to be written.
+     * @throws IOException: if the bytes can't be written.
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Evict the least recently used page.
+     */
+    private void evictLeastRecentlyUsed() {
+        int eldest = -1;
+        for (int slot = 0; slot < slotCount; slot++)
+            if (state(slot) == USED && (eldest < 0 || lastAccess(slot) < lastAccess(eldest)))
+                eldest = slot;
+        if (eldest >= 0)
+            remove(eldest, index.getLong(offset(eldest) + 8));
+    }
+
+    /**
+     * Remove the page in the given slot and delete its data file.
+     *
+     * @param slot: the slot of the page.
+     * @param hash: the hash of the URL of the page.
+     */
+    private void remove(int slot, long hash) {
+        size -= slotSize(slot);
+        entryCount--;
+        clearSlot(slot);
+        try {
+            Files.deleteIfExists(dataFile(hash));
+        } catch (IOException ignored) {
+            // The data file is overwritten when a page with the same hash is stored
+        }
+    }
+
+    /**
+     * Empty the given slot, and shift the pages after it in its probe sequence back into the gap
+     * where they can. No slot is left marked as deleted, so a lookup of a missing page stops at
+     * the first empty slot instead of probing the whole index once pages have been churned through.
+     *
+     * @param slot: the slot to be emptied.
+     */
+    private void clearSlot(int slot) {
+        index.putInt(offset(slot), EMPTY);
+        int hole = slot;
+        for (int next = slot + 1 == slotCount ? 0 : slot + 1; next != slot; next = next + 1 == slotCount ? 0 : next + 1) {
+            int state = state(next);
+            if (state == EMPTY)
+                return;
+            if (state != USED)
+                continue;
+            int home = (int) Long.remainderUnsigned(index.getLong(offset(next) + 8), slotCount);
+            // The page may move to the hole only if the hole lies between its home slot and its slot
+            if (Math.floorMod(next - home, slotCount) >= Math.floorMod(next - hole, slotCount)) {
+                for (int i = 0; i < SLOT_SIZE; i += 8)
+                    index.putLong(offset(hole) + i, index.getLong(offset(next) + i));
+                index.putInt(offset(next), EMPTY);
+                hole = next;
+            }
+        }
+    }
+
+    /**
+     * Retrieve the number of empty slots of the index.
+     *
+     * @return emptySlotCount: the number of slots that hold no page.
+     */
+    synchronized int getEmptySlotCount() {
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++)
+            if (state(slot) == EMPTY)
+                count++;
+        return count;
+    }
+
+    /**
+     * Find the slot of the page with the given hash.
+     *
+     * @param hash: the hash of the URL of the page.
+     * @return slot: the slot of the page, or -1 if it isn't stored.
+     */
+    private int find(long hash) {
+        int slot = (int) Long.remainderUnsigned(hash, slotCount);
+        for (int probe = 0; probe < slotCount; probe++) {
+            int state = state(slot);
+            if (state == EMPTY)
+                return -1;
+            if (state == USED && index.getLong(offset(slot) + 8) == hash)
+                return slot;
+            slot = slot + 1 == slotCount ? 0 : slot + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Find the first slot that can hold a page with the given hash.
+     * There is always one, because the number of pages is bounded below the number of slots.
+     *
+     * @param hash: the hash of the URL of the page.
+     * @return slot: the first empty slot in the probe sequence of the hash.
+     */
+    private int freeSlot(long hash) {
+        int slot = (int) Long.remainderUnsigned(hash, slotCount);
+        while (state(slot) == USED)
+            slot = slot + 1 == slotCount ? 0 : slot + 1;
+        return slot;
+    }
+
+    private int state(int slot) {
+        return index.getInt(offset(slot));
+    }
+
+    private int slotSize(int slot) {
+        return index.getInt(offset(slot) + 4);
+    }
+
+    private long lastAccess(int slot) {
+        return index.getLong(offset(slot) + 16);
+    }
+
+    private void setLastAccess(int slot, long lastAccess) {
+        index.putLong(offset(slot) + 16, lastAccess);
+    }
+
+    private static int offset(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Retrieve the data file of the page with the given hash.
+     *
+     * @param hash: the hash of the URL of the page.
+     * @return path: the path of the data file.
+     */
+    private Path dataFile(long hash) {
+        return directory.resolve(String.format("%016x", hash) + DATA_SUFFIX);
+    }
+
+    /**
+     * Compute the 64-bit FNV-1a hash of the given URL.
+     *
+     * @param key: the external form of the URL.
+     * @return hash: the hash of the URL.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * The default number of slots of the index.
+     */
+    static final int DEFAULT_SLOT_COUNT = 4096;
+
+    /**
+     * The name of the index file.
+     */
+    static final String INDEX_FILE = "index.bin";
+
+    /**
+     * The suffix of the names of the data files.
+     */
+    static final String DATA_SUFFIX = ".page";
+
+    private static final int INDEX_MAGIC = 0x42504958;
+    private static final int INDEX_VERSION = 2;
+    private static final int FILE_MAGIC = 0x42504746;
+    private static final byte FILE_VERSION = 1;
+
+    /**
+     * The size in bytes of the header of the index: its magic, version and number of slots.
+     */
+    private static final int INDEX_HEADER_SIZE = 16;
+
+    /**
+     * The size in bytes of a slot of the index: its state, the size of its data file,
+     * the hash of its URL and the time it was last accessed.
+     */
+    private static final int SLOT_SIZE = 24;
+
+    private static final int EMPTY = 0;
+    private static final int USED = 1;
+
+    /**
+     * The directory the index and data files are kept in.
+     */
+    private final Path directory;
+
+    /**
+     * The maximum total size in bytes of the data files.
+     */
+    private final long maxSize;
+
+    /**
+     * The number of slots of the index.
+     */
+    private final int slotCount;
+
+    /**
+     * The maximum number of pages, which keeps the probe sequences of the index short.
+     */
+    private final int maxEntries;
+
+    /**
+     * The channel of the index file.
+     */
+    private final FileChannel indexChannel;
+
+    /**
+     * The memory-mapped index.
+     */
+    private final MappedByteBuffer index;
+
+    /**
+     * The total size in bytes of the data files.
+     */
+    private long size;
+
+    /**
+     * The number of stored pages.
+     */
+    private int entryCount;
+
+    /**
+     * The logical time of the last access to a page, used to order pages by their last use.
+     */
+    private long clock;
+}
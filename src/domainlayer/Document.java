@@ -2,12 +2,19 @@ package domainlayer;
 
 import browsrhtml.BrowsrDocumentValidator;
 import browsrhtml.ContentSpanBuilder;
+import browsrhtml.StreamingContentSpanBuilder;
 import java.io.*;
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.nio.file.Path;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * A class to represent an abstract document.
@@ -15,18 +22,62 @@ import java.util.List;
 public class Document {
 
     /**
-     * An {@link ArrayList} to hold all urlListeners.
+     * A {@link CopyOnWriteArrayList} to hold all urlListeners,
+     * as they are notified from the thread that loads documents.
      */
-    private final List<DocumentListener> urlListeners = new ArrayList<>();
+    private final List<DocumentListener> urlListeners = new CopyOnWriteArrayList<>();
 
     /**
-     * An {@link ArrayList} to hold all documentListeners.
+     * A {@link CopyOnWriteArrayList} to hold all documentListeners,
+     * as they are notified from the thread that loads documents.
      */
-    private final List<DocumentListener> documentListeners = new ArrayList<>();
+    private final List<DocumentListener> documentListeners = new CopyOnWriteArrayList<>();
 
     private String urlString = "";
     private ContentSpan contentSpan = Document.getWelcomeDocument();
 
+    /**
+     * The raw bytes of the page the current {@link ContentSpan} was parsed from,
+     * or {@code null} if the current content was not fetched from a URL.
+     */
+    private PageSource pageSource;
+
+    /**
+     * The executor on which documents are fetched and parsed,
+     * or {@code null} if documents are loaded synchronously.
+     */
+    private ExecutorService loadExecutor;
+
+    /**
+     * The executor on which the listeners are notified of asynchronously loaded documents.
+     */
+    private Executor listenerExecutor;
+
+    /**
+     * The load that is currently running on the load executor, or {@code null}.
+     */
+    private Future<?> pendingLoad;
+
+    /**
+     * The number of loads that have been started. A load is superseded as soon as this number changes.
+     */
+    private volatile long loadGeneration;
+
+    /**
+     * The latencies of the phases of the last load that was shown.
+     */
+    private DocumentLoadMetrics lastLoadMetrics;
+
+    /**
+     * The prefetcher of the hyperlinks of shown pages, or {@code null} if pages are not prefetched.
+     */
+    private PagePrefetcher prefetcher;
+
+    /**
+     * The index in which the shown pages are recorded as visits, or {@code null} if they are not recorded.
+     */
+    private AutocompleteIndex autocompleteIndex;
+
     // Example of a hyperlink that can be clicked
 //    private String urlString = "https://people.cs.kuleuven.be/bart.jacobs/index.html";
 //    private ContentSpan contentSpan; //= new HyperLink("browsrtest.html", new TextSpan("Welcome to UserInterface.Browsr! Click here to see our features!"));//new TextSpan("Welkom in UserInterface.Browsr!");
@@ -59,13 +110,16 @@ public class Document {
      * @param href: the String representation of the href.
      */
     public void loadFromHref(String href) {
+        URL newUrl;
         try {
-            URL newUrl = new URL(new URL(getUrlString()), href);
-            setUrlString(newUrl.toString());
-            changeContentSpan(composeDocument(newUrl));
+            newUrl = new URL(new URL(getUrlString()), href);
         } catch (Exception e) {
-            changeContentSpan(Document.getErrorDocument());
+            // Nothing is navigated to, so the error is shown without a history entry of its own
+            load(null, null, false);
+            return;
         }
+        setUrlString(newUrl.toString());
+        load(newUrl, null, true);
     }
 
     /**
@@ -76,13 +130,16 @@ public class Document {
      */
     // TODO: Write a test for this method
     public void loadFromForm(String action, ArrayList<String> values) {
+        URL newUrl;
         try {
-            URL newUrl = new URL(new URL(getUrlString()), action + getEncodedValues(values));
-            setUrlString(newUrl.toString());
-            changeContentSpan(composeDocument(newUrl));
+            newUrl = new URL(new URL(getUrlString()), action + getEncodedValues(values));
         } catch (Exception e) {
-            changeContentSpan(Document.getErrorDocument());
+            // Nothing is navigated to, so the error is shown without a history entry of its own
+            load(null, null, false);
+            return;
         }
+        setUrlString(newUrl.toString());
+        load(newUrl, null, true);
     }
 
     /**
@@ -112,14 +169,218 @@ public class Document {
      * @param urlString: the String representation of the URL of the document to be loaded.
      */
     public void loadFromUrl(String urlString) {
+        URL newUrl;
         try {
-            URL newUrl = new URL(urlString);
-            changeContentSpan(composeDocument(newUrl));
-            setUrlString(urlString);
+            newUrl = new URL(urlString);
         } catch (Exception e) {
-            changeContentSpan(Document.getErrorDocument());
-            setUrlString(urlString);
+            newUrl = null;
+        }
+        load(newUrl, urlString, true);
+    }
+
+    /**
+     * Load the document at the given URL and show it once it is loaded.
+     *
+     * <p>
+     *     Without a load executor, the document is loaded and shown before this method returns.
+     *     Otherwise it is fetched and parsed on the load executor and shown through the
+     *     listener executor. A load that is superseded by a newer one is cancelled and
+     *     its result is never shown.
+     * </p>
+     *
+     * @param url: the URL of the document to be loaded, or {@code null} if it was malformed.
+     * @param urlStringAfterLoad: the URL to be set once the document is shown, or {@code null} to leave the URL unchanged.
+     * @param newEntry: whether the document is added to the navigation history, or else replaces the page of its current entry.
+     */
+    private void load(URL url, String urlStringAfterLoad, boolean newEntry) {
+        long generation = ++loadGeneration;
+        if (pendingLoad != null)
+            pendingLoad.cancel(true);
+        DocumentLoadMetrics metrics = new DocumentLoadMetrics(url == null ? urlStringAfterLoad : url.toString());
+
+        if (loadExecutor == null) {
+            metrics.endPhase(DocumentLoadMetrics.Phase.QUEUE);
+            applyLoadedDocument(generation, fetchDocument(url, generation, metrics), urlStringAfterLoad, newEntry, metrics);
+            return;
         }
+        pendingLoad = loadExecutor.submit(() -> {
+            metrics.endPhase(DocumentLoadMetrics.Phase.QUEUE);
+            Page page = fetchDocument(url, generation, metrics);
+            if (page != null)
+                listenerExecutor.execute(() -> applyLoadedDocument(generation, page, urlStringAfterLoad, newEntry, metrics));
+        });
+    }
+
+    /**
+     * Fetch and parse the document at the given URL.
+     *
+     * @param url: the URL of the document to be loaded, or {@code null} if it was malformed.
+     * @param generation: the generation of the load this fetch belongs to.
+     * @param metrics: the metrics in which the latencies of the connect and parse phases are stored.
+     * @return page: the {@link Page} of the document, a page holding the error document if it could not be loaded,
+     *                      or {@code null} if the load was superseded by a newer one.
+     */
+    private Page fetchDocument(URL url, long generation, DocumentLoadMetrics metrics) {
+        try {
+            if (url == null)
+                return new Page(Document.getErrorDocument(), null);
+            return composeDocument(url, generation, metrics);
+        } catch (CancellationException e) {
+            return null;
+        } catch (Exception e) {
+            return isCurrentLoad(generation) ? new Page(Document.getErrorDocument(), null) : null;
+        }
+    }
+
+    /**
+     * Show the loaded document, unless a newer load has been started in the meantime.
+     *
+     * @param generation: the generation of the load the document belongs to.
+     * @param page: the {@link Page} of the loaded document.
+     * @param urlStringAfterLoad: the URL to be set, or {@code null} to leave the URL unchanged.
+     * @param newEntry: whether the document is added to the navigation history, or else replaces the page of its current entry.
+     * @param metrics: the metrics in which the latency of the apply phase is stored.
+     */
+    private void applyLoadedDocument(long generation, Page page, String urlStringAfterLoad, boolean newEntry, DocumentLoadMetrics metrics) {
+        if (page == null || !isCurrentLoad(generation))
+            return;
+        pendingLoad = null;
+        this.contentSpan = page.getContentSpan();
+        this.pageSource = page.getSource();
+        // The entry is updated first, so the listeners keep their view of the page in it.
+        // Error documents are not kept, so going back to a failed load tries it again.
+        if (page.getSource() == null) {
+            if (newEntry)
+                history.push(urlStringAfterLoad != null ? urlStringAfterLoad : getUrlString(), null);
+        } else if (newEntry)
+            history.push(urlStringAfterLoad != null ? urlStringAfterLoad : getUrlString(), page);
+        else
+            history.setPage(page);
+        fireContentsChanged();
+        metrics.endPhase(DocumentLoadMetrics.Phase.APPLY);
+        this.lastLoadMetrics = metrics;
+        if (urlStringAfterLoad != null)
+            setUrlString(urlStringAfterLoad);
+        // Error documents have no source, no links worth prefetching and are not worth suggesting
+        if (page.getSource() == null)
+            return;
+        if (prefetcher != null)
+            prefetcher.pageShown(getUrlString(), contentSpan);
+        if (autocompleteIndex != null)
+            autocompleteIndex.recordVisit(getUrlString());
+    }
+
+    /**
+     * Show the previous page of the navigation history.
+     *
+     * @return True iff there was a previous page.
+     */
+    public boolean goBack() {
+        return showEntry(history.back());
+    }
+
+    /**
+     * Show the next page of the navigation history.
+     *
+     * @return True iff there was a next page.
+     */
+    public boolean goForward() {
+        return showEntry(history.forward());
+    }
+
+    /**
+     * Show the page of the given entry of the navigation history, which has become the current one.
+     * A kept page is shown immediately; a dropped one is loaded again.
+     *
+     * @param entry: the entry to be shown, or {@code null}.
+     * @return True iff an entry was given.
+     */
+    private boolean showEntry(NavigationHistory.Entry entry) {
+        if (entry == null)
+            return false;
+        Page page = entry.getPage();
+        if (page == null) {
+            URL url;
+            try {
+                url = new URL(entry.getUrl());
+            } catch (MalformedURLException e) {
+                url = null;
+            }
+            load(url, entry.getUrl(), false);
+            return true;
+        }
+        ++loadGeneration;
+        if (pendingLoad != null) {
+            pendingLoad.cancel(true);
+            pendingLoad = null;
+        }
+        this.contentSpan = page.getContentSpan();
+        this.pageSource = page.getSource();
+        fireContentsChanged();
+        setUrlString(entry.getUrl());
+        return true;
+    }
+
+    /**
+     * Retrieve the navigation history of this document.
+     *
+     * @return history: the {@link NavigationHistory} of the pages this document has shown.
+     */
+    public NavigationHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Check whether the load of the given generation is the most recent one.
+     *
+     * @param generation: the generation of the load to check.
+     * @return True iff no load has been started after the load of the given generation.
+     */
+    private boolean isCurrentLoad(long generation) {
+        return generation == loadGeneration;
+    }
+
+    /**
+     * Load documents asynchronously from now on.
+     *
+     * @param loadExecutor: the executor on which documents are fetched and parsed.
+     * @param listenerExecutor: the executor on which the listeners are notified of the results,
+     *                        e.g. the event dispatch thread of the user interface.
+     */
+    public void setAsynchronousLoading(ExecutorService loadExecutor, Executor listenerExecutor) {
+        this.loadExecutor = loadExecutor;
+        this.listenerExecutor = listenerExecutor;
+    }
+
+    /**
+     * Prefetch the likeliest targets of the hyperlinks of every page that is shown from now on.
+     *
+     * @param prefetcher: the {@link PagePrefetcher} that prefetches into the page cache of this document,
+     *                  or {@code null} to stop prefetching.
+     */
+    public void setPrefetcher(PagePrefetcher prefetcher) {
+        if (this.prefetcher != null && this.prefetcher != prefetcher)
+            this.prefetcher.shutdown();
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * Record every page that is shown from now on as a visit in the given index.
+     *
+     * @param autocompleteIndex: the {@link AutocompleteIndex} the visits are recorded in,
+     *                         or {@code null} to stop recording visits.
+     */
+    public void setAutocompleteIndex(AutocompleteIndex autocompleteIndex) {
+        this.autocompleteIndex = autocompleteIndex;
+    }
+
+    /**
+     * Retrieve the latencies of the phases of the last load that was shown.
+     *
+     * @return metrics: the {@link DocumentLoadMetrics} of the last load, or {@code null} if nothing has been loaded yet.
+     */
+    public DocumentLoadMetrics getLastLoadMetrics() {
+        return lastLoadMetrics;
     }
 
     /**
@@ -153,6 +414,8 @@ public class Document {
      */
     public void changeContentSpan(ContentSpan span) {
         this.contentSpan = span;
+        this.pageSource = null;
+        history.setPage(new Page(span, null));
         this.fireContentsChanged();
     }
 
@@ -199,6 +462,29 @@ public class Document {
             u.contentChanged();
     }
 
+    /**
+     * Check whether one of the documentListeners wants partial updates
+     *
+     * @return True iff at least one of the documentListeners is a {@link PartialDocumentListener}
+     */
+    private boolean hasPartialDocumentListeners() {
+        for (DocumentListener d : documentListeners)
+            if (d instanceof PartialDocumentListener)
+                return true;
+        return false;
+    }
+
+    /**
+     * Let the PartialDocumentListeners know that a new part of the loading document is available
+     *
+     * @param partialContent: the part of the document that has been parsed so far.
+     */
+    private void firePartialContentChanged(ContentSpan partialContent) {
+        for (DocumentListener d : documentListeners)
+            if (d instanceof PartialDocumentListener)
+                ((PartialDocumentListener) d).partialContentChanged(partialContent);
+    }
+
     /**
      * Let the urlListeners know that the URL has been changed
      */
@@ -216,9 +502,67 @@ public class Document {
      * @throws java.io.IOException: If one of the parts of the code isn't code that is currently supported.
      */
     public ContentSpan composeDocument(URL url) throws IOException {
-        return ContentSpanBuilder.buildContentSpan(url);
+        return composeDocument(url, loadGeneration, new DocumentLoadMetrics(url.toString())).getContentSpan();
+    }
+
+    /**
+     * Compose the document from a given url as part of the load of the given generation.
+     * Listeners are only updated with partial content while that load is the most recent one.
+     *
+     * @param url: the url of the document that is to be composed.
+     * @param generation: the generation of the load this document is composed for.
+     * @param metrics: the metrics in which the latencies of the connect and parse phases are stored.
+     * @return the {@link Page} of the given {@code document}, holding its ContentSpan and raw bytes.
+     * @throws IOException: If the document at the given url can't be fetched.
+     * @throws CancellationException: If a newer load was started while the document was being composed.
+     */
+    private Page composeDocument(URL url, long generation, DocumentLoadMetrics metrics) throws IOException {
+        Page page = pageCache.load(url, reader -> {
+            metrics.endPhase(DocumentLoadMetrics.Phase.CONNECT);
+            if (!hasPartialDocumentListeners())
+                return ContentSpanBuilder.buildContentSpan(reader);
+            return StreamingContentSpanBuilder.buildContentSpan(reader, partialContent -> {
+                if (!isCurrentLoad(generation))
+                    throw new CancellationException();
+                if (listenerExecutor == null)
+                    firePartialContentChanged(partialContent);
+                else
+                    listenerExecutor.execute(() -> {
+                        if (isCurrentLoad(generation))
+                            firePartialContentChanged(partialContent);
+                    });
+            }, PARTIAL_CONTENT_INTERVAL);
+        });
+        metrics.endPhase(DocumentLoadMetrics.Phase.PARSE);
+        return page;
     }
 
+    /**
+     * The minimum number of milliseconds between two partial
+     * updates of the listeners while a document is loading.
+     */
+    private static final long PARTIAL_CONTENT_INTERVAL = 100;
+
+    /**
+     * Retrieve the cache of recently visited pages of this document.
+     *
+     * @return pageCache: the {@link PageCache} of this document.
+     */
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    /**
+     * The cache of recently visited pages, bounded to
+     * 64 pages and an estimated 16 MiB of HTML code.
+     */
+    private final PageCache pageCache = new PageCache(64, 16 * 1024 * 1024);
+
+    /**
+     * The pages this document has shown, with their views while they fit in 32 MiB.
+     */
+    private final NavigationHistory history = new NavigationHistory(32 * 1024 * 1024);
+
     /**
      * Retrieve the contents of a docoument
      * that should be displayed when a malformed
@@ -242,45 +586,20 @@ public class Document {
     }
 
     /**
-     * A method to save a document to a file
-     * Inspiration from: https://stackoverflow.com/questions/17440236/getting-java-to-save-a-html-file
+     * A method to save a document to a file.
+     * The raw bytes the current document was parsed from are written
+     * to the file, so the page is not downloaded again.
      *
      * @param fileName: The name that will be given to the saved file.
-     * @throws IOException: if the current document is the Welcome document
+     * @throws IOException: if the current document was not loaded from a URL, e.g. the Welcome document
      */
     public void saveDocument(String fileName) throws Exception {
-        if (contentSpan instanceof TextSpan && ((TextSpan) contentSpan).getText().equals(((TextSpan) getWelcomeDocument()).getText())) {
-            // We should only save a document when that document is currently *also* displayed in the DocumentArea
-            // Thus, if there's a URL typed in the AddressBar, but the Welcome Document is still displayed in the DocumentArea,
-            // no document should be saved.
-            throw new Exception("Can't get the source code of a local Document.");
-        } else {
-            String url = this.getUrlString();
-            URL tmpUrl = new URL(url);
-            URLConnection con = tmpUrl.openConnection();
-            InputStream stream = con.getInputStream();
-
-            BufferedReader buffer = new BufferedReader(new InputStreamReader(stream));
-
-            // First we download the HTML-code to verify whether it's valid
-            String line;
-            StringBuilder lines = new StringBuilder();
-            while((line = buffer.readLine()) != null)
-                lines.append(line);
-            String document = lines.toString();
-
-            // Check whether the downloaded document only consists of HTML-code
-            // that our Browsr can parse.
-            ContentSpanBuilder.buildContentSpan(document);
-
-            // Only if it is, we save the document to a file
-            BufferedWriter outputWriter = new BufferedWriter(new FileWriter(fileName + ".html"));
-            outputWriter.write(document);
-
-            // Write out final remaining bytes that are still in buffer
-            outputWriter.flush();
-            outputWriter.close();
-            buffer.close();
-        }
+        // We should only save a document when that document is currently *also* displayed in the DocumentArea
+        // Thus, if there's a URL typed in the AddressBar, but the Welcome Document is still displayed in the DocumentArea,
+        // no document should be saved.
+        PageSource source = this.pageSource;
+        if (source == null)
+            throw new IOException("Can't get the source code of a local Document.");
+        source.saveTo(Path.of(fileName + ".html"));
     }
 }
@@ -0,0 +1,115 @@
+package domainlayer;
+
+/**
+ * A class to hold the latencies of the phases
+ * of loading a single {@link Document}.
+ *
+ * <p>
+ *     A load consists of the following phases:
+ *     <ul>
+ *         <li>queue: waiting for a worker thread to start the load,</li>
+ *         <li>connect: opening the connection to the URL,</li>
+ *         <li>parse: downloading and parsing the page into a {@link ContentSpan},</li>
+ *         <li>apply: waiting for and running the listeners that show the result.</li>
+ *     </ul>
+ *     All latencies are expressed in nanoseconds.
+ * </p>
+ */
+public class DocumentLoadMetrics {
+
+    /**
+     * Start measuring a load of the given URL.
+     *
+     * @param urlString: the String representation of the URL that is loaded.
+     */
+    DocumentLoadMetrics(String urlString) {
+        this.urlString = urlString;
+        this.startNanos = System.nanoTime();
+        this.phaseStartNanos = startNanos;
+    }
+
+    /**
+     * End the current phase and store its latency in the given phase.
+     *
+     * @param phase: the phase that ends now.
+     */
+    void endPhase(Phase phase) {
+        long now = System.nanoTime();
+        latencies[phase.ordinal()] = now - phaseStartNanos;
+        phaseStartNanos = now;
+    }
+
+    /**
+     * The phases of loading a {@link Document}.
+     */
+    public enum Phase {
+        QUEUE,
+        CONNECT,
+        PARSE,
+        APPLY
+    }
+
+    /**
+     * Get the latency of the given phase.
+     *
+     * @param phase: the phase of which the latency is requested.
+     * @return latency: the latency of the given phase in nanoseconds, 0 if the phase did not happen.
+     */
+    public long getLatencyNanos(Phase phase) {
+        return latencies[phase.ordinal()];
+    }
+
+    /**
+     * Get the total latency of the load, from the request until the last ended phase.
+     *
+     * @return latency: the total latency of the load in nanoseconds.
+     */
+    public long getTotalLatencyNanos() {
+        return phaseStartNanos - startNanos;
+    }
+
+    /**
+     * Get the URL that was loaded.
+     *
+     * @return urlString: the String representation of the loaded URL.
+     */
+    public String getUrlString() {
+        return urlString;
+    }
+
+    /**
+     * Get a readable summary of these metrics.
+     *
+     * @return summary: the latency of each phase in milliseconds.
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("Loaded ").append(urlString).append(" in ")
+                .append(getTotalLatencyNanos() / 1_000_000).append(" ms (");
+        for (Phase phase : Phase.values()) {
+            if (phase.ordinal() > 0) summary.append(", ");
+            summary.append(phase.name().toLowerCase()).append(' ').append(getLatencyNanos(phase) / 1_000_000).append(" ms");
+        }
+        return summary.append(')').toString();
+    }
+
+    /**
+     * The String representation of the loaded URL.
+     */
+    private final String urlString;
+
+    /**
+     * The {@link System#nanoTime()} at which the load was requested.
+     */
+    private final long startNanos;
+
+    /**
+     * The {@link System#nanoTime()} at which the current phase started.
+     */
+    private long phaseStartNanos;
+
+    /**
+     * The latencies of the phases, indexed by the ordinal of the {@link Phase}.
+     */
+    private final long[] latencies = new long[Phase.values().length];
+}
@@ -0,0 +1,100 @@
+package domainlayer;
+
+import java.io.InputStream;
+
+/**
+ * A class that holds the response of a {@link PageFetcher}: either the
+ * body of a page together with the values needed to revalidate it later,
+ * or the message that a cached page is still valid.
+ */
+public class FetchResponse {
+
+    /**
+     * Construct a response holding the body of a page.
+     *
+     * @param body: the stream the (decoded) bytes of the page are read from.
+     * @param eTag: the {@code ETag} of the page, or {@code null} if there is none.
+     * @param lastModified: the last modification date of the page in milliseconds, or 0 if it is unknown.
+     * @param cacheControl: the {@code Cache-Control} value of the page, or {@code null} if there is none.
+     */
+    public FetchResponse(InputStream body, String eTag, long lastModified, String cacheControl) {
+        this.body = body;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * Construct a response telling that a cached page is still valid.
+     *
+     * @return response: a {@code FetchResponse} without a body.
+     */
+    public static FetchResponse notModified() {
+        return new FetchResponse(null, null, 0, null);
+    }
+
+    /**
+     * Check whether the cached page is still valid, so that this response has no body.
+     *
+     * @return notModified: true if and only if this response has no body.
+     */
+    public boolean isNotModified() {
+        return body == null;
+    }
+
+    /**
+     * Retrieve the stream the bytes of the page are read from. The stream has to be closed by the caller.
+     *
+     * @return body: the stream of the page, or {@code null} if the page was not modified.
+     */
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Retrieve the {@code ETag} of the page.
+     *
+     * @return eTag: the {@code ETag} of the page, or {@code null} if there is none.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Retrieve the last modification date of the page.
+     *
+     * @return lastModified: the last modification date in milliseconds, or 0 if it is unknown.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Retrieve the {@code Cache-Control} value of the page.
+     *
+     * @return cacheControl: the {@code Cache-Control} value, or {@code null} if there is none.
+     */
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * The stream the bytes of the page are read from, or {@code null} if the page was not modified.
+     */
+    private final InputStream body;
+
+    /**
+     * The {@code ETag} of the page, or {@code null}.
+     */
+    private final String eTag;
+
+    /**
+     * The last modification date of the page in milliseconds, or 0.
+     */
+    private final long lastModified;
+
+    /**
+     * The {@code Cache-Control} value of the page, or {@code null}.
+     */
+    private final String cacheControl;
+}
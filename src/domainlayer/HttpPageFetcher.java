@@ -0,0 +1,282 @@
+package domainlayer;
+
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A {@link PageFetcher} that fetches http(s) pages with a shared {@link HttpClient}.
+ *
+ * <p>
+ *     The client keeps connections alive between requests and negotiates HTTP/2 where
+ *     the server supports it, so that navigating within a site doesn't pay a new
+ *     connection setup for every page. The number of concurrent requests per host is
+ *     bounded, and gzip and deflate encoded pages are decoded. Pages with another
+ *     protocol, e.g. local files, are fetched through their {@link URLConnection}.
+ * </p>
+ */
+public class HttpPageFetcher implements PageFetcher {
+
+    /**
+     * Construct a new {@code HttpPageFetcher} with the default timeouts and concurrency limit.
+     */
+    public HttpPageFetcher() {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_MAX_REQUESTS_PER_HOST);
+    }
+
+    /**
+     * Construct a new {@code HttpPageFetcher} with the given timeouts and concurrency limit.
+     *
+     * @param connectTimeout: the maximum time to wait for a connection to be set up.
+     * @param readTimeout: the maximum time to wait for the response of a server after sending a request.
+     * @param maxRequestsPerHost: the maximum number of pages fetched from the same host at the same time.
+     * @throws IllegalArgumentException: if one of the timeouts or the concurrency limit is not positive.
+     */
+    public HttpPageFetcher(Duration connectTimeout, Duration readTimeout, int maxRequestsPerHost) {
+        if (connectTimeout.isNegative() || connectTimeout.isZero() || readTimeout.isNegative() || readTimeout.isZero())
+            throw new IllegalArgumentException("The timeouts of a page fetcher must be positive.");
+        if (maxRequestsPerHost <= 0)
+            throw new IllegalArgumentException("The number of requests per host must be positive.");
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    /**
+     * Fetch the page at the given URL.
+     *
+     * <p>
+     *     The body of an http(s) page holds one of the permits of its host until it is closed.
+     * </p>
+     *
+     * @param url: the URL of the page to be fetched.
+     * @param eTag: the {@code ETag} of the cached page, or {@code null} if there is none.
+     * @param lastModified: the last modification date of the cached page in milliseconds, or 0 if there is none.
+     * @return response: the {@link FetchResponse} holding the page, or telling that the cached page is still valid.
+     * @throws IOException: if the page at the given URL can't be fetched, or the server doesn't respond in time.
+     */
+    @Override
+    public FetchResponse fetch(URL url, String eTag, long lastModified) throws IOException {
+        String protocol = url.getProtocol();
+        if (!protocol.equals("http") && !protocol.equals("https"))
+            return fetchConnection(url, lastModified);
+
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IOException("Invalid URL: " + url, e);
+        }
+        request.timeout(readTimeout).header("Accept-Encoding", "gzip, deflate").GET();
+        if (eTag != null)
+            request.header("If-None-Match", eTag);
+        if (lastModified != 0)
+            request.header("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                    ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneOffset.UTC)));
+
+        Semaphore permits = hostPermits.computeIfAbsent(url.getAuthority(), host -> new Semaphore(maxRequestsPerHost));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to fetch " + url);
+        }
+        boolean released = true;
+        try {
+            HttpResponse<InputStream> response = getClient().send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            int status = response.statusCode();
+            if (status == 304) {
+                response.body().close();
+                return FetchResponse.notModified();
+            }
+            if (status >= 400) {
+                response.body().close();
+                // The same exceptions as an HttpURLConnection would throw
+                if (status == 404 || status == 410)
+                    throw new FileNotFoundException(url.toString());
+                throw new IOException("Server returned HTTP response code: " + status + " for URL: " + url);
+            }
+            HttpHeaders headers = response.headers();
+            InputStream decoded;
+            try {
+                decoded = decode(response.body(), headers);
+            } catch (IOException e) {
+                // The connection is only handed back once its body is closed
+                response.body().close();
+                throw e;
+            }
+            InputStream body = new ReleasingInputStream(decoded, permits);
+            released = false;
+            return new FetchResponse(body, headers.firstValue("ETag").orElse(null),
+                    parseDate(headers.firstValue("Last-Modified").orElse(null)),
+                    headers.firstValue("Cache-Control").orElse(null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + url);
+        } finally {
+            if (released)
+                permits.release();
+        }
+    }
+
+    /**
+     * Fetch the page at the given URL through its {@link URLConnection},
+     * revalidating a cached page by its last modification date.
+     *
+     * @param url: the URL of the page to be fetched.
+     * @param lastModified: the last modification date of the cached page in milliseconds, or 0 if there is none.
+     * @return response: the {@link FetchResponse} holding the page, or telling that the cached page is still valid.
+     * @throws IOException: if the page at the given URL can't be fetched.
+     */
+    private FetchResponse fetchConnection(URL url, long lastModified) throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout((int) connectTimeout.toMillis());
+        connection.setReadTimeout((int) readTimeout.toMillis());
+        if (lastModified != 0 && lastModified == connection.getLastModified()) {
+            // Some connections open the page to retrieve its headers
+            connection.getInputStream().close();
+            return FetchResponse.notModified();
+        }
+        return new FetchResponse(connection.getInputStream(), null, connection.getLastModified(), null);
+    }
+
+    /**
+     * Retrieve the shared client, creating it when the first http(s) page is fetched.
+     *
+     * @return client: the {@link HttpClient} of this fetcher.
+     */
+    private synchronized HttpClient getClient() {
+        if (client == null)
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .connectTimeout(connectTimeout)
+                    .build();
+        return client;
+    }
+
+    /**
+     * Decode the given body according to its {@code Content-Encoding}.
+     *
+     * @param body: the stream of the encoded body.
+     * @param headers: the headers of the response.
+     * @return decoded: the stream of the decoded body.
+     * @throws IOException: if the header of a gzip encoded body can't be read.
+     */
+    private static InputStream decode(InputStream body, HttpHeaders headers) throws IOException {
+        String encoding = headers.firstValue("Content-Encoding").orElse("identity").trim().toLowerCase();
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(body);
+            case "deflate":
+                return new InflaterInputStream(body);
+            default:
+                return body;
+        }
+    }
+
+    /**
+     * Parse the given HTTP date.
+     *
+     * @param date: the date in the format of RFC 1123, or {@code null}.
+     * @return millis: the date in milliseconds, or 0 if it is missing or invalid.
+     */
+    private static long parseDate(String date) {
+        if (date == null)
+            return 0;
+        try {
+            return ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * A stream that releases a permit of the host of its page when it is closed.
+     */
+    private static class ReleasingInputStream extends FilterInputStream {
+
+        ReleasingInputStream(InputStream in, Semaphore permits) {
+            super(in);
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                synchronized (this) {
+                    if (!closed) {
+                        closed = true;
+                        permits.release();
+                    }
+                }
+            }
+        }
+
+        private final Semaphore permits;
+        private boolean closed;
+    }
+
+    /**
+     * The default maximum time to wait for a connection to be set up.
+     */
+    static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * The default maximum time to wait for the response of a server.
+     */
+    static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The default maximum number of pages fetched from the same host at the same time.
+     */
+    static final int DEFAULT_MAX_REQUESTS_PER_HOST = 6;
+
+    /**
+     * The maximum time to wait for a connection to be set up.
+     */
+    private final Duration connectTimeout;
+
+    /**
+     * The maximum time to wait for the response of a server after sending a request.
+     */
+    private final Duration readTimeout;
+
+    /**
+     * The maximum number of pages fetched from the same host at the same time.
+     */
+    private final int maxRequestsPerHost;
+
+    /**
+     * The permits of the hosts pages are fetched from, keyed by their authority.
+     */
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    /**
+     * The shared client, or {@code null} if no http(s) page has been fetched yet.
+     */
+    private HttpClient client;
+}
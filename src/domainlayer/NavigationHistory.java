@@ -0,0 +1,274 @@
+package domainlayer;
+
+import java.util.ArrayList;
+
+/**
+ * A class that keeps the pages a {@link Document} has shown, so the user
+ * can go back and forward through them.
+ *
+ * <p>
+ *     Recent entries keep their parsed {@link Page} and the view the user interface
+ *     built for it, so going back shows the page as it was left, e.g. with the text
+ *     typed in its forms, without fetching, parsing or laying it out again. The
+ *     estimated size of the kept pages and views is bounded: the entries furthest
+ *     from the current one drop their views first and their pages next. An entry
+ *     without a page is loaded again when it is shown.
+ * </p>
+ *
+ * <p>
+ *     The view of an entry is opaque to the domain layer; it is set and used by the
+ *     user interface only.
+ * </p>
+ */
+public class NavigationHistory {
+
+    /**
+     * Construct a new, empty {@code NavigationHistory} with the given budget.
+     *
+     * @param maxSize: the maximum estimated size in bytes of the kept pages and views.
+     * @throws IllegalArgumentException: if the budget is negative.
+     */
+    public NavigationHistory(long maxSize) {
+        if (maxSize < 0)
+            throw new IllegalArgumentException("The size of a navigation history can't be negative.");
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Add a newly shown page after the current entry, dropping the entries that could be gone forward to.
+     *
+     * @param url: the URL of the page.
+     * @param page: the shown {@link Page}.
+     */
+    public synchronized void push(String url, Page page) {
+        while (entries.size() > current + 1)
+            entries.remove(entries.size() - 1).drop(this);
+        if (entries.size() == MAX_ENTRIES) {
+            entries.remove(0).drop(this);
+            current--;
+        }
+        entries.add(new Entry(url));
+        current = entries.size() - 1;
+        setPage(page);
+    }
+
+    /**
+     * Go back to the previous entry.
+     *
+     * @return entry: the previous entry, which is now the current one, or {@code null} if there is none.
+     */
+    public synchronized Entry back() {
+        if (current <= 0)
+            return null;
+        return entries.get(--current);
+    }
+
+    /**
+     * Go forward to the next entry.
+     *
+     * @return entry: the next entry, which is now the current one, or {@code null} if there is none.
+     */
+    public synchronized Entry forward() {
+        if (current + 1 >= entries.size())
+            return null;
+        return entries.get(++current);
+    }
+
+    /**
+     * Retrieve the current entry.
+     *
+     * @return entry: the entry of the page that is shown, or {@code null} if nothing has been shown yet.
+     */
+    public synchronized Entry getCurrent() {
+        return current < 0 ? null : entries.get(current);
+    }
+
+    /**
+     * Set the page of the current entry, e.g. after it was loaded again, dropping its view.
+     *
+     * @param page: the {@link Page} of the current entry.
+     */
+    public synchronized void setPage(Page page) {
+        Entry entry = getCurrent();
+        if (entry == null)
+            return;
+        entry.setView(this, null, 0);
+        entry.setPage(this, page, page == null || page.getSource() == null ? 0 : page.getSource().getSize());
+        trim();
+    }
+
+    /**
+     * Set the view of the page of the current entry.
+     *
+     * @param view: the view the user interface built for the page.
+     * @param size: the estimated size of the view in bytes.
+     */
+    public synchronized void setView(Object view, long size) {
+        Entry entry = getCurrent();
+        if (entry == null)
+            return;
+        entry.setView(this, view, size);
+        trim();
+    }
+
+    /**
+     * Retrieve the view of the page of the current entry.
+     *
+     * @return view: the view of the current page, or {@code null} if it has none.
+     */
+    public synchronized Object getView() {
+        Entry entry = getCurrent();
+        return entry == null ? null : entry.view;
+    }
+
+    /**
+     * Drop views and then pages, furthest from the current entry first, until the kept size fits the budget.
+     */
+    private void trim() {
+        while (size > maxSize) {
+            Entry furthest = furthest(true);
+            if (furthest != null) {
+                furthest.setView(this, null, 0);
+                continue;
+            }
+            furthest = furthest(false);
+            if (furthest == null)
+                // Only the current entry is left; it is kept regardless of the budget
+                return;
+            furthest.setPage(this, null, 0);
+        }
+    }
+
+    /**
+     * Find the entry furthest from the current one that keeps a view or a page.
+     * Of two entries equally far, the older one is found.
+     *
+     * @param view: whether an entry with a view is searched, or else an entry with a page.
+     * @return entry: the furthest entry other than the current one, or {@code null} if there is none.
+     */
+    private Entry furthest(boolean view) {
+        Entry furthest = null;
+        int distance = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (view ? entry.view == null : entry.page == null)
+                continue;
+            if (Math.abs(i - current) > distance) {
+                furthest = entry;
+                distance = Math.abs(i - current);
+            }
+        }
+        return furthest;
+    }
+
+    /**
+     * Retrieve the number of entries in this history.
+     *
+     * @return count: the number of entries.
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Retrieve the estimated size of the kept pages and views.
+     *
+     * @return size: the estimated size in bytes.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * An entry of a {@link NavigationHistory}: the URL of a page that was shown,
+     * together with the page and its view while they are kept.
+     */
+    public static class Entry {
+
+        private Entry(String url) {
+            this.url = url;
+        }
+
+        /**
+         * Retrieve the URL of this entry.
+         *
+         * @return url: the URL of the page.
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Retrieve the page of this entry.
+         *
+         * @return page: the {@link Page}, or {@code null} if it has been dropped and must be loaded again.
+         */
+        public Page getPage() {
+            return page;
+        }
+
+        /**
+         * Retrieve the view of this entry.
+         *
+         * @return view: the view, or {@code null} if it has been dropped.
+         */
+        public Object getView() {
+            return view;
+        }
+
+        private void setPage(NavigationHistory history, Page page, long pageSize) {
+            history.size += pageSize - this.pageSize;
+            this.page = page;
+            this.pageSize = pageSize;
+        }
+
+        private void setView(NavigationHistory history, Object view, long viewSize) {
+            history.size += viewSize - this.viewSize;
+            this.view = view;
+            this.viewSize = viewSize;
+        }
+
+        /**
+         * Drop the page and view of this entry, which is removed from the given history.
+         */
+        private void drop(NavigationHistory history) {
+            setView(history, null, 0);
+            setPage(history, null, 0);
+        }
+
+        private final String url;
+
+        /**
+         * The page and view of this entry, set while the history is locked.
+         */
+        private volatile Page page;
+        private long pageSize;
+        private volatile Object view;
+        private long viewSize;
+    }
+
+    /**
+     * The maximum number of entries of a history.
+     */
+    static final int MAX_ENTRIES = 256;
+
+    /**
+     * The entries of this history, oldest first.
+     */
+    private final ArrayList<Entry> entries = new ArrayList<>();
+
+    /**
+     * The index of the current entry, or -1 if nothing has been shown yet.
+     */
+    private int current = -1;
+
+    /**
+     * The maximum estimated size in bytes of the kept pages and views.
+     */
+    private final long maxSize;
+
+    /**
+     * The estimated size in bytes of the kept pages and views.
+     */
+    private long size;
+}
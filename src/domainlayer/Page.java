@@ -0,0 +1,47 @@
+package domainlayer;
+
+/**
+ * A class that represents a fetched page: its parsed
+ * {@link ContentSpan} together with the raw bytes it was parsed from.
+ */
+public class Page {
+
+    /**
+     * Initialise this {@code Page} with the given content and source.
+     *
+     * @param contentSpan: the parsed content of the page.
+     * @param source: the raw bytes of the page, or {@code null} if the page was not fetched.
+     */
+    public Page(ContentSpan contentSpan, PageSource source) {
+        this.contentSpan = contentSpan;
+        this.source = source;
+    }
+
+    /**
+     * Retrieve the parsed content of this page.
+     *
+     * @return contentSpan: the {@link ContentSpan} of this page.
+     */
+    public ContentSpan getContentSpan() {
+        return contentSpan;
+    }
+
+    /**
+     * Retrieve the raw bytes of this page.
+     *
+     * @return source: the {@link PageSource} of this page, or {@code null} if the page was not fetched.
+     */
+    public PageSource getSource() {
+        return source;
+    }
+
+    /**
+     * The parsed content of this page.
+     */
+    private final ContentSpan contentSpan;
+
+    /**
+     * The raw bytes of this page.
+     */
+    private final PageSource source;
+}
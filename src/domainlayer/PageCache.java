@@ -0,0 +1,495 @@
+package domainlayer;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A class that keeps the parsed {@link ContentSpan}s and raw bytes of
+ * recently visited pages, so that revisiting a page does not
+ * require downloading and parsing it again.
+ *
+ * <p>
+ *     Pages are kept in least recently used order and evicted once either
+ *     the number of pages or their estimated size exceeds the bounds of this cache.
+ *     A cached page is revalidated before it is served: http(s) pages through a
+ *     conditional request with their {@code ETag} and {@code Last-Modified} values,
+ *     other pages by comparing their last modification date. Pages are fetched
+ *     through a {@link PageFetcher}, by default an {@link HttpPageFetcher}.
+ * </p>
+ */
+public class PageCache {
+
+    /**
+     * Construct a new, empty {@code PageCache} with the given bounds.
+     *
+     * @param maxEntries: the maximum number of pages this cache keeps.
+     * @param maxSize: the maximum estimated size in bytes of the pages this cache keeps.
+     * @throws IllegalArgumentException: if one of the bounds is not positive.
+     */
+    public PageCache(int maxEntries, long maxSize) {
+        this(maxEntries, maxSize, new HttpPageFetcher());
+    }
+
+    /**
+     * Construct a new, empty {@code PageCache} with the given bounds, fetching pages with the given fetcher.
+     *
+     * @param maxEntries: the maximum number of pages this cache keeps.
+     * @param maxSize: the maximum estimated size in bytes of the pages this cache keeps.
+     * @param fetcher: the {@link PageFetcher} used to fetch and revalidate pages.
+     * @throws IllegalArgumentException: if one of the bounds is not positive, or the fetcher is {@code null}.
+     */
+    public PageCache(int maxEntries, long maxSize, PageFetcher fetcher) {
+        if (maxEntries <= 0 || maxSize <= 0)
+            throw new IllegalArgumentException("The bounds of a page cache must be positive.");
+        if (fetcher == null)
+            throw new IllegalArgumentException("A page cache needs a page fetcher.");
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * A functional interface for parsing the HTML code of a page into a {@link ContentSpan}.
+     */
+    @FunctionalInterface
+    public interface ContentSpanParser {
+
+        /**
+         * Parse the HTML code read by the given reader.
+         *
+         * @param reader: the {@link Reader} the HTML code is read from.
+         * @return contentSpan: the {@link ContentSpan} corresponding to the HTML code.
+         * @throws IOException: if the HTML code can't be read.
+         */
+        ContentSpan parse(Reader reader) throws IOException;
+    }
+
+    /**
+     * Retrieve the page at the given URL.
+     *
+     * <p>
+     *     If the page is cached and still valid, the cached {@link Page} is returned.
+     *     Otherwise the page is downloaded and parsed with the given parser, and the result
+     *     is cached unless the server forbids it.
+     * </p>
+     *
+     * @param url: the URL of the page to be retrieved.
+     * @param parser: the parser used when the page has to be downloaded.
+     * @return page: the {@link Page} at the given URL, holding its parsed content and raw bytes.
+     * @throws IOException: if the page at the given URL can't be fetched.
+     */
+    public Page load(URL url, ContentSpanParser parser) throws IOException {
+        return load(url, parser, false);
+    }
+
+    /**
+     * Fetch the page at the given URL ahead of a likely visit.
+     *
+     * <p>
+     *     The page is fetched or revalidated like in {@link #load(URL, ContentSpanParser)},
+     *     and is then served without revalidation by the first load within
+     *     {@link #PREFETCH_LIFETIME} nanoseconds, so that load needs no network round trip.
+     *     A load that arrives while the prefetch is still running waits for it instead of
+     *     fetching the page a second time. Prefetches are not counted as hits or misses.
+     * </p>
+     *
+     * @param url: the URL of the page to be prefetched.
+     * @param parser: the parser used when the page has to be downloaded.
+     * @return page: the {@link Page} at the given URL, holding its parsed content and raw bytes.
+     * @throws IOException: if the page at the given URL can't be fetched.
+     */
+    public Page prefetch(URL url, ContentSpanParser parser) throws IOException {
+        return load(url, parser, true);
+    }
+
+    /**
+     * Retrieve the page at the given URL, either for a visit or for a prefetch.
+     *
+     * @param url: the URL of the page to be retrieved.
+     * @param parser: the parser used when the page has to be downloaded.
+     * @param prefetch: whether the page is retrieved ahead of a likely visit.
+     * @return page: the {@link Page} at the given URL, holding its parsed content and raw bytes.
+     * @throws IOException: if the page at the given URL can't be fetched.
+     */
+    private Page load(URL url, ContentSpanParser parser, boolean prefetch) throws IOException {
+        // URL.equals resolves host names, so pages are keyed by their external form instead
+        String key = url.toExternalForm();
+        Entry cached;
+        CompletableFuture<Page> running;
+        CompletableFuture<Page> started = null;
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached != null && !prefetch && cached.takePrefetch(System.nanoTime())) {
+                hits++;
+                return cached.page;
+            }
+            running = prefetches.get(key);
+            if (running == null && prefetch) {
+                started = new CompletableFuture<>();
+                prefetches.put(key, started);
+            }
+        }
+        if (running != null) {
+            Page page = await(running);
+            if (page != null) {
+                if (!prefetch)
+                    takePrefetch(key, page);
+                return page;
+            }
+            // The prefetch failed, so the page is fetched again to report why
+        }
+        if (started == null)
+            return fetch(url, key, parser, prefetch, cached);
+        try {
+            Page page = fetch(url, key, parser, true, cached);
+            started.complete(page);
+            return page;
+        } catch (IOException | RuntimeException e) {
+            started.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                prefetches.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Wait for the given prefetch to finish.
+     *
+     * @param prefetch: the prefetch to wait for.
+     * @return page: the prefetched {@link Page}, or {@code null} if the prefetch failed.
+     * @throws InterruptedIOException: if the current thread is interrupted while waiting.
+     */
+    private static Page await(CompletableFuture<Page> prefetch) throws InterruptedIOException {
+        try {
+            return prefetch.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a prefetch");
+        }
+    }
+
+    /**
+     * Count a hit for a page served by a prefetch that was still running when it was asked for,
+     * and consume that prefetch, so the next load revalidates the page again.
+     *
+     * @param key: the key of the page.
+     * @param page: the prefetched page.
+     */
+    private synchronized void takePrefetch(String key, Page page) {
+        hits++;
+        Entry entry = entries.get(key);
+        if (entry != null && entry.page == page)
+            entry.prefetchedAt = 0;
+    }
+
+    /**
+     * Fetch or revalidate the page at the given URL.
+     *
+     * @param url: the URL of the page to be retrieved.
+     * @param key: the key of the page in this cache.
+     * @param parser: the parser used when the page has to be downloaded.
+     * @param prefetch: whether the page is retrieved ahead of a likely visit.
+     * @param cached: the cached page, or {@code null} if the page is not cached in memory.
+     * @return page: the {@link Page} at the given URL, holding its parsed content and raw bytes.
+     * @throws IOException: if the page at the given URL can't be fetched.
+     */
+    private Page fetch(URL url, String key, ContentSpanParser parser, boolean prefetch, Entry cached) throws IOException {
+        DiskPageCache disk = diskCache;
+        boolean restored = false;
+        if (cached == null && disk != null) {
+            DiskPageCache.StoredPage stored = disk.get(url);
+            if (stored != null) {
+                PageSource source = stored.getPage().getSource();
+                // The number of parsed characters is estimated by the number of raw bytes
+                cached = new Entry(stored.getPage(), 2 * source.getSize() + source.getMemorySize(),
+                        stored.getETag(), stored.getLastModified());
+                restored = true;
+            }
+        }
+
+        FetchResponse response = cached == null ? fetcher.fetch(url, null, 0)
+                : fetcher.fetch(url, cached.eTag, cached.lastModified);
+        if (response.isNotModified()) {
+            if (cached == null)
+                throw new IOException("Unexpected not modified response for " + url);
+            if (restored)
+                put(key, cached);
+            return prefetch ? markPrefetched(key, cached) : hit(key, cached);
+        }
+
+        if (!prefetch) {
+            synchronized (this) {
+                misses++;
+            }
+        }
+        try (PageSource.Recorder recorder = PageSource.record(response.getBody());
+             CountingReader reader = new CountingReader(new InputStreamReader(recorder))) {
+            ContentSpan span = parser.parse(reader);
+            Page page = new Page(span, recorder.finish());
+            String cacheControl = response.getCacheControl();
+            if (cacheControl == null || !cacheControl.contains("no-store")) {
+                long size = 2 * reader.count + page.getSource().getMemorySize();
+                Entry entry = new Entry(page, size, response.getETag(), response.getLastModified());
+                if (prefetch)
+                    entry.prefetchedAt = System.nanoTime();
+                put(key, entry);
+                if (disk != null)
+                    store(disk, url, entry);
+            }
+            return page;
+        }
+    }
+
+    /**
+     * Store the given page in the given disk cache. The disk cache only saves work
+     * in later sessions, so a page that can't be stored is simply left out.
+     *
+     * @param disk: the disk cache the page is stored in.
+     * @param url: the URL of the page.
+     * @param entry: the page to be stored.
+     */
+    private static void store(DiskPageCache disk, URL url, Entry entry) {
+        try {
+            disk.put(url, entry.page, entry.eTag, entry.lastModified);
+        } catch (IOException | IllegalArgumentException e) {
+            disk.remove(url);
+        }
+    }
+
+    /**
+     * Keep the pages of this cache on disk as well from now on, and look up pages
+     * that are not in memory in the given disk cache before downloading them.
+     *
+     * @param diskCache: the {@link DiskPageCache} to be used, or {@code null} to only keep pages in memory.
+     */
+    public void setDiskCache(DiskPageCache diskCache) {
+        this.diskCache = diskCache;
+    }
+
+    /**
+     * Retrieve the disk cache of this cache.
+     *
+     * @return diskCache: the {@link DiskPageCache} of this cache, or {@code null} if pages are only kept in memory.
+     */
+    public DiskPageCache getDiskCache() {
+        return diskCache;
+    }
+
+    /**
+     * Mark the given cached page as most recently used and count a hit.
+     *
+     * @param key: the key of the cached page.
+     * @param cached: the cached page.
+     * @return page: the cached {@link Page}.
+     */
+    private synchronized Page hit(String key, Entry cached) {
+        hits++;
+        entries.get(key);
+        return cached.page;
+    }
+
+    /**
+     * Mark the given cached page as prefetched, so the next load serves it without revalidation.
+     *
+     * @param key: the key of the cached page.
+     * @param cached: the cached page.
+     * @return page: the cached {@link Page}.
+     */
+    private synchronized Page markPrefetched(String key, Entry cached) {
+        entries.get(key);
+        cached.prefetchedAt = System.nanoTime();
+        return cached.page;
+    }
+
+    /**
+     * Cache the given page and evict the least recently used pages
+     * until this cache is within its bounds again.
+     *
+     * @param key: the key of the page to be cached.
+     * @param entry: the page to be cached.
+     */
+    private synchronized void put(String key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null)
+            size -= previous.size;
+        size += entry.size;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || (size > maxSize && entries.size() > 1)) {
+            size -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Remove all pages from this cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Retrieve the number of pages that were served from this cache.
+     *
+     * @return hits: the number of cache hits.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Retrieve the number of pages that had to be downloaded.
+     *
+     * @return misses: the number of cache misses.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Retrieve the number of pages that are currently cached.
+     *
+     * @return entryCount: the number of cached pages.
+     */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Retrieve the estimated size in bytes of the pages that are currently cached.
+     *
+     * @return size: the estimated size of the cached pages.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * A cached page together with the values needed to revalidate it.
+     */
+    private static class Entry {
+
+        Entry(Page page, long size, String eTag, long lastModified) {
+            this.page = page;
+            this.size = size;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Check whether this page was prefetched recently enough to be served
+         * without revalidation, and consume the prefetch if so.
+         *
+         * @param now: the current value of {@link System#nanoTime()}.
+         * @return True iff this page was prefetched less than {@link #PREFETCH_LIFETIME} ago.
+         */
+        boolean takePrefetch(long now) {
+            boolean fresh = prefetchedAt != 0 && now - prefetchedAt < PREFETCH_LIFETIME;
+            prefetchedAt = 0;
+            return fresh;
+        }
+
+        private final Page page;
+        private final long size;
+        private final String eTag;
+        private final long lastModified;
+
+        /**
+         * The value of {@link System#nanoTime()} when this page was prefetched, or 0 if it is not prefetched.
+         */
+        private long prefetchedAt;
+    }
+
+    /**
+     * A {@link Reader} that counts the characters read through it,
+     * used to estimate the size of a page.
+     */
+    private static class CountingReader extends FilterReader {
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1)
+                count++;
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0)
+                count += read;
+            return read;
+        }
+
+        private long count;
+    }
+
+    /**
+     * The number of nanoseconds a prefetched page may be served without revalidation.
+     */
+    public static final long PREFETCH_LIFETIME = 5L * 60 * 1000 * 1000 * 1000;
+
+    /**
+     * The cached pages in least recently used order, keyed by their URL.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The prefetches that are still running, keyed by the URL of their page.
+     */
+    private final HashMap<String, CompletableFuture<Page>> prefetches = new HashMap<>();
+
+    /**
+     * The fetcher used to fetch and revalidate pages.
+     */
+    private final PageFetcher fetcher;
+
+    /**
+     * The cache that keeps pages on disk between sessions, or {@code null} if pages are only kept in memory.
+     */
+    private volatile DiskPageCache diskCache;
+
+    /**
+     * The maximum number of pages this cache keeps.
+     */
+    private final int maxEntries;
+
+    /**
+     * The maximum estimated size in bytes of the pages this cache keeps.
+     */
+    private final long maxSize;
+
+    /**
+     * The estimated size in bytes of the pages that are currently cached.
+     */
+    private long size;
+
+    /**
+     * The number of pages that were served from this cache.
+     */
+    private long hits;
+
+    /**
+     * The number of pages that had to be downloaded.
+     */
+    private long misses;
+}
@@ -0,0 +1,27 @@
+package domainlayer;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * An interface for fetching the raw bytes of a page, used by a {@link PageCache}.
+ *
+ * <p>
+ *     A fetcher revalidates a cached page when it is given the validators of that page:
+ *     if the page did not change, it returns a response for which
+ *     {@link FetchResponse#isNotModified()} holds instead of the page itself.
+ * </p>
+ */
+public interface PageFetcher {
+
+    /**
+     * Fetch the page at the given URL.
+     *
+     * @param url: the URL of the page to be fetched.
+     * @param eTag: the {@code ETag} of the cached page, or {@code null} if there is none.
+     * @param lastModified: the last modification date of the cached page in milliseconds, or 0 if there is none.
+     * @return response: the {@link FetchResponse} holding the page, or telling that the cached page is still valid.
+     * @throws IOException: if the page at the given URL can't be fetched.
+     */
+    FetchResponse fetch(URL url, String eTag, long lastModified) throws IOException;
+}
@@ -0,0 +1,216 @@
+package domainlayer;
+
+import browsrhtml.ContentSpanBuilder;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A class that fetches the likeliest targets of the hyperlinks on the current
+ * page into a {@link PageCache} before they are clicked, so that following
+ * such a link is served from memory.
+ *
+ * <p>
+ *     The candidates are the first hyperlinks of the page in document order,
+ *     which are the ones visible when the page is shown. They are ranked by how often
+ *     their target was visited before, and then by their position on the page.
+ *     Prefetches run on low priority daemon threads, and the prefetches of a page
+ *     are cancelled as soon as another page is shown.
+ * </p>
+ */
+public class PagePrefetcher {
+
+    /**
+     * Construct a new {@code PagePrefetcher} with the default limits.
+     *
+     * @param pageCache: the {@link PageCache} the pages are prefetched into.
+     */
+    public PagePrefetcher(PageCache pageCache) {
+        this(pageCache, DEFAULT_MAX_CANDIDATES, DEFAULT_MAX_PREFETCHES);
+    }
+
+    /**
+     * Construct a new {@code PagePrefetcher} with the given limits.
+     *
+     * @param pageCache: the {@link PageCache} the pages are prefetched into.
+     * @param maxCandidates: the number of hyperlinks, in document order, that are considered on each page.
+     * @param maxPrefetches: the maximum number of pages that are prefetched for each page.
+     * @throws IllegalArgumentException: if the page cache is {@code null}, or one of the limits is not positive.
+     */
+    public PagePrefetcher(PageCache pageCache, int maxCandidates, int maxPrefetches) {
+        if (pageCache == null)
+            throw new IllegalArgumentException("A page prefetcher needs a page cache.");
+        if (maxCandidates <= 0 || maxPrefetches <= 0)
+            throw new IllegalArgumentException("The limits of a page prefetcher must be positive.");
+        this.pageCache = pageCache;
+        this.maxCandidates = maxCandidates;
+        this.maxPrefetches = maxPrefetches;
+        this.executor = Executors.newFixedThreadPool(PREFETCH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "page-prefetcher");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Record a visit of the given page and prefetch the likeliest targets of its hyperlinks.
+     * The prefetches of the previously shown page are cancelled.
+     *
+     * @param urlString: the URL of the shown page, against which its hyperlinks are resolved.
+     * @param content: the {@link ContentSpan} of the shown page.
+     */
+    public synchronized void pageShown(String urlString, ContentSpan content) {
+        cancel();
+        URL base;
+        try {
+            base = new URL(urlString);
+        } catch (Exception e) {
+            return;
+        }
+        String current = withoutFragment(base);
+        visits.merge(current, 1, Integer::sum);
+
+        for (URL target : rankTargets(base, current, content))
+            pending.add(executor.submit(() -> {
+                try {
+                    pageCache.prefetch(target, ContentSpanBuilder::buildContentSpan);
+                } catch (Exception ignored) {
+                    // A failed prefetch is simply retried when the link is clicked
+                }
+            }));
+    }
+
+    /**
+     * Retrieve the targets that would be prefetched for the given page, likeliest first.
+     *
+     * @param base: the URL of the page.
+     * @param current: the URL of the page without its fragment.
+     * @param content: the {@link ContentSpan} of the page.
+     * @return targets: at most {@link #maxPrefetches} distinct URLs other than the page itself.
+     */
+    private List<URL> rankTargets(URL base, String current, ContentSpan content) {
+        ArrayList<HyperLink> links = new ArrayList<>();
+        collectHyperLinks(content, links);
+
+        // Distinct targets in document order
+        HashSet<String> seen = new HashSet<>();
+        ArrayList<URL> targets = new ArrayList<>();
+        for (HyperLink link : links) {
+            URL target;
+            try {
+                target = new URL(base, link.getHref());
+            } catch (Exception e) {
+                continue;
+            }
+            String key = withoutFragment(target);
+            if (!key.equals(current) && seen.add(key))
+                targets.add(target);
+        }
+
+        // The sort is stable, so equally visited targets keep their position on the page
+        targets.sort(Comparator.comparingInt((URL target) -> visits.getOrDefault(withoutFragment(target), 0)).reversed());
+        return targets.size() > maxPrefetches ? new ArrayList<>(targets.subList(0, maxPrefetches)) : targets;
+    }
+
+    /**
+     * Collect the first {@link #maxCandidates} hyperlinks of the given content in document order.
+     *
+     * @param content: the {@link ContentSpan} to search.
+     * @param links: the list the hyperlinks are added to.
+     */
+    private void collectHyperLinks(ContentSpan content, List<HyperLink> links) {
+        if (links.size() >= maxCandidates || content == null)
+            return;
+        if (content instanceof HyperLink)
+            links.add((HyperLink) content);
+        else if (content instanceof Form)
+            collectHyperLinks(((Form) content).getContent(), links);
+        else if (content instanceof Table)
+            for (TableRow row : ((Table) content).getRows())
+                for (TableCell cell : row.getCells())
+                    collectHyperLinks(cell.getContent(), links);
+    }
+
+    /**
+     * Cancel the prefetches that are still pending.
+     */
+    public synchronized void cancel() {
+        for (Future<?> prefetch : pending)
+            prefetch.cancel(true);
+        pending.clear();
+    }
+
+    /**
+     * Stop prefetching pages. Running prefetches are interrupted.
+     */
+    public synchronized void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Retrieve the given URL without its fragment, which doesn't change the fetched page.
+     *
+     * @param url: the URL to be stripped.
+     * @return key: the external form of the URL without its fragment.
+     */
+    private static String withoutFragment(URL url) {
+        String form = url.toExternalForm();
+        int hash = form.indexOf('#');
+        return hash < 0 ? form : form.substring(0, hash);
+    }
+
+    /**
+     * The default number of hyperlinks, in document order, that are considered on each page.
+     */
+    static final int DEFAULT_MAX_CANDIDATES = 32;
+
+    /**
+     * The default maximum number of pages that are prefetched for each page.
+     */
+    static final int DEFAULT_MAX_PREFETCHES = 4;
+
+    /**
+     * The number of threads pages are prefetched on.
+     */
+    private static final int PREFETCH_THREADS = 2;
+
+    /**
+     * The {@link PageCache} the pages are prefetched into.
+     */
+    private final PageCache pageCache;
+
+    /**
+     * The number of hyperlinks, in document order, that are considered on each page.
+     */
+    private final int maxCandidates;
+
+    /**
+     * The maximum number of pages that are prefetched for each page.
+     */
+    private final int maxPrefetches;
+
+    /**
+     * The executor on which pages are prefetched.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The number of times each page has been shown, keyed by its URL without fragment.
+     */
+    private final Map<String, Integer> visits = new HashMap<>();
+
+    /**
+     * The prefetches of the currently shown page.
+     */
+    private final List<Future<?>> pending = new ArrayList<>();
+}
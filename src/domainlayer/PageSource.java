@@ -0,0 +1,369 @@
+package domainlayer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A class that keeps the raw bytes of a fetched page, so that
+ * the page can be saved without downloading it again.
+ *
+ * <p>
+ *     Small pages are kept in memory. Pages larger than {@link #SPILL_THRESHOLD}
+ *     bytes are spilled to a temporary file, which is deleted once the
+ *     {@code PageSource} is no longer reachable. The spill files of a process are
+ *     kept in a directory of their own, which is removed when the process exits
+ *     and swept on the next start if the process was killed.
+ * </p>
+ */
+public class PageSource {
+
+    /**
+     * Initialise this {@code PageSource} with bytes kept in memory.
+     *
+     * @param bytes: the buffer holding the bytes of the page.
+     * @param size: the number of bytes of the page.
+     */
+    private PageSource(byte[] bytes, long size) {
+        this.bytes = bytes;
+        this.spillFile = null;
+        this.size = size;
+    }
+
+    /**
+     * Initialise this {@code PageSource} with bytes spilled to the given file.
+     *
+     * @param spillFile: the temporary file holding the bytes of the page.
+     * @param size: the number of bytes of the page.
+     */
+    private PageSource(Path spillFile, long size) {
+        this.bytes = null;
+        this.spillFile = spillFile;
+        this.size = size;
+        CLEANER.register(this, () -> {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException ignored) {
+            }
+        });
+    }
+
+    /**
+     * Record the bytes read from the given stream.
+     *
+     * @param in: the stream the page is read from.
+     * @return recorder: a stream that passes on the bytes of the given stream and records them.
+     */
+    static Recorder record(InputStream in) {
+        return new Recorder(in);
+    }
+
+    /**
+     * Retrieve the number of bytes of this page.
+     *
+     * @return size: the number of bytes of this page.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieve the number of bytes of this page that are kept in memory.
+     *
+     * @return memorySize: the number of bytes of this page, or 0 if they were spilled to a file.
+     */
+    long getMemorySize() {
+        return spillFile == null ? size : 0;
+    }
+
+    /**
+     * Write the bytes of this page to the file at the given path,
+     * replacing its contents if it exists.
+     *
+     * @param target: the path of the file to be written.
+     * @throws IOException: if the file can't be written.
+     */
+    public void saveTo(Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeTo(out);
+        }
+    }
+
+    /**
+     * Write the bytes of this page to the given channel at its current position.
+     *
+     * @param out: the channel the bytes are written to.
+     * @throws IOException: if the bytes can't be written.
+     */
+    void writeTo(FileChannel out) throws IOException {
+        if (spillFile == null) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, (int) size);
+            while (buffer.hasRemaining())
+                out.write(buffer);
+            return;
+        }
+        try (FileChannel in = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < size)
+                position += in.transferTo(position, size - position, out);
+        }
+    }
+
+    /**
+     * Copy the remaining bytes of the given buffer into a new {@code PageSource},
+     * spilling them to a temporary file if they exceed the spill threshold.
+     *
+     * @param buffer: the buffer holding the bytes of the page.
+     * @return source: the {@link PageSource} holding the bytes of the page.
+     * @throws IOException: if the bytes can't be spilled.
+     */
+    static PageSource copyOf(ByteBuffer buffer) throws IOException {
+        int size = buffer.remaining();
+        if (size <= SPILL_THRESHOLD) {
+            byte[] bytes = new byte[size];
+            buffer.get(bytes);
+            return new PageSource(bytes, size);
+        }
+        Path spillFile = createSpillFile();
+        try (FileChannel out = FileChannel.open(spillFile, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining())
+                out.write(buffer);
+        } catch (IOException e) {
+            Files.deleteIfExists(spillFile);
+            throw e;
+        }
+        return new PageSource(spillFile, size);
+    }
+
+    /**
+     * Create a new, empty spill file in the spill directory of this process.
+     *
+     * @return spillFile: the path of the new spill file.
+     * @throws IOException: if the spill file can't be created.
+     */
+    private static Path createSpillFile() throws IOException {
+        return Files.createTempFile(spillDirectory(), "browsr", ".html");
+    }
+
+    /**
+     * Retrieve the spill directory of this process, creating it on first use.
+     * The spill directories left behind by processes that no longer run are
+     * removed first, and the new directory is removed when this process exits.
+     *
+     * @return spillDirectory: the directory the spill files of this process are kept in.
+     * @throws IOException: if the spill directory can't be created.
+     */
+    private static synchronized Path spillDirectory() throws IOException {
+        if (spillDirectory == null) {
+            Path temporaryDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+            sweepSpillDirectories(temporaryDirectory);
+            Path directory = Files.createDirectories(
+                    temporaryDirectory.resolve(SPILL_DIRECTORY_PREFIX + ProcessHandle.current().pid()));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteSpillDirectory(directory), "spill-file-remover"));
+            spillDirectory = directory;
+        }
+        return spillDirectory;
+    }
+
+    /**
+     * Remove the spill directories in the given directory whose process no longer runs.
+     *
+     * @param temporaryDirectory: the directory holding the spill directories.
+     */
+    static void sweepSpillDirectories(Path temporaryDirectory) {
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(temporaryDirectory, SPILL_DIRECTORY_PREFIX + "*")) {
+            for (Path directory : directories) {
+                String pid = directory.getFileName().toString().substring(SPILL_DIRECTORY_PREFIX.length());
+                try {
+                    if (ProcessHandle.of(Long.parseLong(pid)).isEmpty())
+                        deleteSpillDirectory(directory);
+                } catch (NumberFormatException ignored) {
+                    // Not a spill directory
+                }
+            }
+        } catch (IOException ignored) {
+            // The spill directories are swept again on the next start
+        }
+    }
+
+    /**
+     * Delete the given spill directory together with the spill files in it.
+     *
+     * @param directory: the spill directory to be deleted.
+     */
+    private static void deleteSpillDirectory(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files)
+                Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        } catch (IOException ignored) {
+            // The spill directory is swept again on the next start
+        }
+    }
+
+    /**
+     * A stream that records the bytes read through it into a {@link PageSource}.
+     */
+    static class Recorder extends FilterInputStream {
+
+        /**
+         * Initialise this {@code Recorder} for the given stream.
+         *
+         * @param in: the stream to be recorded.
+         */
+        private Recorder(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1)
+                append(new byte[]{(byte) b}, 0, 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0)
+                append(buffer, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes still belong to the page, so they are read instead
+            byte[] skipped = new byte[(int) Math.min(n, 8192)];
+            int read = read(skipped, 0, skipped.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            // A page that was not finished is discarded together with its spill file
+            if (channel != null) {
+                channel.close();
+                Files.deleteIfExists(spillFile);
+            }
+        }
+
+        /**
+         * Read the remainder of the page and retrieve its recorded bytes.
+         *
+         * @return source: the {@link PageSource} holding all bytes of the page.
+         * @throws IOException: if the remainder of the page can't be read.
+         */
+        PageSource finish() throws IOException {
+            byte[] remainder = new byte[8192];
+            while (read(remainder, 0, remainder.length) != -1)
+                ;
+            if (channel == null)
+                return new PageSource(Arrays.copyOf(bytes, (int) count), count);
+            channel.close();
+            channel = null;
+            return new PageSource(spillFile, count);
+        }
+
+        /**
+         * Record the given bytes, spilling all recorded bytes to a
+         * temporary file once they exceed the spill threshold.
+         *
+         * @param buffer: the buffer holding the bytes.
+         * @param offset: the offset of the bytes in the buffer.
+         * @param length: the number of bytes.
+         * @throws IOException: if the bytes can't be spilled.
+         */
+        private void append(byte[] buffer, int offset, int length) throws IOException {
+            if (channel == null && count + length > SPILL_THRESHOLD) {
+                spillFile = createSpillFile();
+                channel = FileChannel.open(spillFile, StandardOpenOption.WRITE);
+                write(ByteBuffer.wrap(bytes, 0, (int) count));
+                bytes = null;
+            }
+            if (channel != null) {
+                write(ByteBuffer.wrap(buffer, offset, length));
+            } else {
+                if (count + length > bytes.length)
+                    bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, (int) count + length));
+                System.arraycopy(buffer, offset, bytes, (int) count, length);
+            }
+            count += length;
+        }
+
+        /**
+         * Write the given bytes to the spill file.
+         *
+         * @param buffer: the bytes to be written.
+         * @throws IOException: if the bytes can't be written.
+         */
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+
+        /**
+         * The bytes recorded so far, while they are kept in memory.
+         */
+        private byte[] bytes = new byte[8192];
+
+        /**
+         * The number of bytes recorded so far.
+         */
+        private long count;
+
+        /**
+         * The temporary file the bytes are spilled to, or {@code null}.
+         */
+        private Path spillFile;
+
+        /**
+         * The channel to the spill file, while bytes are spilled to it.
+         */
+        private FileChannel channel;
+    }
+
+    /**
+     * The number of bytes above which a page is spilled to a temporary file.
+     */
+    static final int SPILL_THRESHOLD = 1024 * 1024;
+
+    /**
+     * The prefix of the name of a spill directory, followed by the ID of the process it belongs to.
+     */
+    static final String SPILL_DIRECTORY_PREFIX = "browsr-spill-";
+
+    /**
+     * The directory the spill files of this process are kept in, or {@code null} if nothing was spilled yet.
+     */
+    private static Path spillDirectory;
+
+    /**
+     * The cleaner that deletes spill files once their {@code PageSource} is unreachable.
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * The bytes of this page, or {@code null} if they were spilled to a file.
+     */
+    private final byte[] bytes;
+
+    /**
+     * The temporary file holding the bytes of this page, or {@code null} if they are kept in memory.
+     */
+    private final Path spillFile;
+
+    /**
+     * The number of bytes of this page.
+     */
+    private final long size;
+}
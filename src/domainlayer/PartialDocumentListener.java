@@ -0,0 +1,27 @@
+package domainlayer;
+
+/**
+ * An interface for DocumentListeners that also want
+ * to be notified while the linked {@link Document} is
+ * still loading.
+ *
+ * <p>
+ *     While a page is being downloaded, these listeners
+ *     receive the part of the page that has been parsed so
+ *     far. Once loading finishes, {@link #contentChanged()}
+ *     is called as for any other {@link DocumentListener}.
+ * </p>
+ */
+public interface PartialDocumentListener extends DocumentListener {
+
+    /**
+     * Define what the class that implements this
+     * {@link PartialDocumentListener} Interface should do
+     * when a new part of the loading document is available.
+     *
+     * @param partialContent:
+     *                  The part of the document that has been parsed so far.
+     *                  It is never modified after this call.
+     */
+    void partialContentChanged(ContentSpan partialContent);
+}
@@ -1,6 +1,13 @@
 package domainlayer;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A class to account for the "Controller" - GRASP principle.
@@ -24,7 +31,30 @@ public class UIController {
      * The {@link BookmarksURLKeeper} that is
      * linked to this {@code Controller}.
      */
-    private final BookmarksURLKeeper bookmarksURLKeeper;
+    private BookmarksURLKeeper bookmarksURLKeeper;
+
+    /**
+     * The {@link AutocompleteIndex} of the visited
+     * pages and the bookmarks of this {@code Controller}.
+     */
+    private final AutocompleteIndex autocompleteIndex = new AutocompleteIndex();
+
+    /**
+     * The executor on which the {@link Document} of this {@code Controller}
+     * is loaded, or {@code null} if it is loaded synchronously.
+     */
+    private ExecutorService loadExecutor;
+
+    /**
+     * The executor on which the listeners are notified of asynchronously loaded documents.
+     */
+    private Executor listenerExecutor;
+
+    /**
+     * The shutdown hook that closes the disk cache of this {@code Controller},
+     * or {@code null} if no disk cache was ever enabled.
+     */
+    private Thread diskCacheCloser;
 
     /**
      * Initialise this Controller
@@ -32,6 +62,7 @@ public class UIController {
      */
     public UIController() {
         this.document = new Document();
+        this.document.setAutocompleteIndex(autocompleteIndex);
         this.bookmarksURLKeeper = new BookmarksURLKeeper();
     }
 
@@ -65,6 +96,59 @@ public class UIController {
         document.loadFromUrl(urlString);
     }
 
+    /**
+     * Show the previous page of the {@link Document}'s navigation history.
+     *
+     * @return True iff there was a previous page.
+     */
+    public boolean goBack() {
+        return document.goBack();
+    }
+
+    /**
+     * Show the next page of the {@link Document}'s navigation history.
+     *
+     * @return True iff there was a next page.
+     */
+    public boolean goForward() {
+        return document.goForward();
+    }
+
+    /**
+     * Retrieve the view the user interface built for the shown page,
+     * if it was kept since the page was shown before.
+     *
+     * @return view: the kept view of the shown page, or {@code null} if it has to be built.
+     */
+    public Object getDocumentView() {
+        if (!showsHistoryPage())
+            return null;
+        return document.getHistory().getView();
+    }
+
+    /**
+     * Keep the view the user interface built for the shown page,
+     * so it can be shown again when the user goes back to the page.
+     *
+     * @param view: the view of the shown page.
+     * @param size: the estimated size of the view in bytes.
+     */
+    public void setDocumentView(Object view, long size) {
+        if (showsHistoryPage())
+            document.getHistory().setView(view, size);
+    }
+
+    /**
+     * Check whether the shown page is the page of the current entry of the navigation history.
+     * Error documents are never kept in the history, so they have no view to keep either.
+     *
+     * @return True iff the {@link Document} shows the page of its current history entry.
+     */
+    private boolean showsHistoryPage() {
+        NavigationHistory.Entry entry = document.getHistory().getCurrent();
+        return entry != null && entry.getPage() != null && entry.getPage().getContentSpan() == document.getContentSpan();
+    }
+
     /**
      * Retrieve the {@link ContentSpan}
      * representation of the {@link Document}
@@ -86,6 +170,10 @@ public class UIController {
      */
     public void setDocument(Document doc){
         this.document = doc;
+        this.document.setAutocompleteIndex(autocompleteIndex);
+        // The load of the replaced document is stopped, and the new document gets its own loader
+        if (loadExecutor != null)
+            enableAsynchronousLoading(listenerExecutor);
     }
 
     /**
@@ -120,6 +208,82 @@ public class UIController {
         this.document.addDocumentListener(d);
     }
 
+    /**
+     * Load documents asynchronously from now on, so a slow page
+     * no longer blocks the thread that requested it.
+     * Documents are loaded one at a time on a single thread:
+     * a newer load cancels the running one and waits for it to stop.
+     *
+     * @param listenerExecutor: the executor on which the listeners are notified of loaded documents.
+     */
+    public void enableAsynchronousLoading(Executor listenerExecutor) {
+        if (this.loadExecutor != null)
+            this.loadExecutor.shutdownNow();
+        this.loadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "document-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.listenerExecutor = listenerExecutor;
+        this.document.setAsynchronousLoading(loadExecutor, listenerExecutor);
+    }
+
+    /**
+     * Prefetch the likeliest targets of the hyperlinks on each shown page from now on,
+     * so following one of them doesn't wait for the network.
+     */
+    public void enablePrefetching() {
+        this.document.setPrefetcher(new PagePrefetcher(this.document.getPageCache()));
+    }
+
+    /**
+     * Keep visited pages in the given directory from now on, so they can be
+     * shown in later sessions without being downloaded and parsed again.
+     *
+     * @param directory: the directory the pages are kept in.
+     * @throws IOException: if the directory can't be opened.
+     */
+    public void enableDiskCache(Path directory) throws IOException {
+        DiskPageCache diskCache = new DiskPageCache(directory, DISK_CACHE_SIZE);
+        closeDiskCache();
+        this.document.getPageCache().setDiskCache(diskCache);
+        if (this.diskCacheCloser == null) {
+            this.diskCacheCloser = new Thread(this::closeDiskCache, "disk-cache-closer");
+            Runtime.getRuntime().addShutdownHook(diskCacheCloser);
+        }
+    }
+
+    /**
+     * Stop keeping visited pages on disk and write the index of the disk cache, if any, to disk.
+     * This also happens when the virtual machine shuts down.
+     */
+    public void closeDiskCache() {
+        PageCache pageCache = this.document.getPageCache();
+        DiskPageCache diskCache = pageCache.getDiskCache();
+        if (diskCache == null)
+            return;
+        pageCache.setDiskCache(null);
+        try {
+            diskCache.close();
+        } catch (IOException e) {
+            System.out.println("Can't close the disk cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The maximum total size of the pages kept on disk: 64 MiB.
+     */
+    private static final long DISK_CACHE_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Retrieve the latencies of the phases of the last document load.
+     *
+     * @return metrics: the {@link DocumentLoadMetrics} of the last load, or {@code null} if nothing has been loaded yet.
+     */
+    public DocumentLoadMetrics getLastLoadMetrics() {
+        return this.document.getLastLoadMetrics();
+    }
+
     /**
      * Add a documentListener to the list of urlListeners of the controllers document
      *
@@ -141,6 +305,46 @@ public class UIController {
         return this.bookmarksURLKeeper.getHrefFromBookmark(bookmarkName);
     }
 
+    /**
+     * Get the names of the bookmarks of this {@code Controller}'s {@link BookmarksURLKeeper}.
+     *
+     * @return names: the names of the bookmarks, in the order they were first added.
+     */
+    public List<String> getBookmarkNames() {
+        return this.bookmarksURLKeeper.getBookmarkNames();
+    }
+
+    /**
+     * Keep the bookmarks in the log file at the given path from now on, so they are
+     * restored in later sessions. Bookmarks added before are added to the log.
+     *
+     * @param file: the path of the bookmark log.
+     * @throws IOException: if the bookmark log can't be opened.
+     */
+    public void enablePersistentBookmarks(Path file) throws IOException {
+        BookmarksURLKeeper keeper = new BookmarksURLKeeper(new BookmarkStore(file));
+        for (Map.Entry<String, String> bookmark : this.bookmarksURLKeeper.getStore().getBookmarks().entrySet())
+            keeper.addBookmarksHref(bookmark.getKey(), bookmark.getValue());
+        this.bookmarksURLKeeper = keeper;
+        for (Map.Entry<String, String> bookmark : keeper.getStore().getBookmarks().entrySet())
+            this.autocompleteIndex.addBookmark(bookmark.getKey(), bookmark.getValue());
+    }
+
+    /**
+     * Find the best completions of the given partially typed address
+     * among the visited pages and the bookmarks.
+     *
+     * @param prefix: the typed part of the address.
+     * @param urls: the array the completed addresses are stored in, best first;
+     *            its length is the maximum number of completions.
+     * @param keys: an array at least as long as {@code urls}, in which the matching keys are stored:
+     *            the address or bookmark name that starts with the prefix, apart from case.
+     * @return count: the number of completions that were found.
+     */
+    public int suggestAddresses(CharSequence prefix, String[] urls, String[] keys) {
+        return this.autocompleteIndex.suggest(prefix, urls, keys);
+    }
+
     // Temporary method for testing listeners
 
     /**
@@ -162,6 +366,7 @@ public class UIController {
      */
     public void addHref(String name, String href) {
         this.bookmarksURLKeeper.addBookmarksHref(name, href);
+        this.autocompleteIndex.addBookmark(name, href);
     }
 
     /**
@@ -3,6 +3,9 @@ package userinterface;
 import domainlayer.DocumentListener;
 import domainlayer.UIController;
 
+import java.awt.*;
+import java.awt.event.KeyEvent;
+
 /**
  * A class to represent an address bar in the browsr,
  * as an extension of a Frame, in the UI layer.
@@ -25,6 +28,93 @@ public class AddressBar extends UITextInputField implements DocumentListener {
         
     }
 
+    /**
+     * Renders this AddressBar, followed by the untyped part of the
+     * suggested completion in gray while the user is typing.
+     *
+     * @param g: The graphics object that is used to draw this AddressBar
+     */
+    @Override
+    public void Render(Graphics g) {
+        super.Render(g);
+        if (completionSuffix == null || !this.hasFocus)
+            return;
+        g.setColor(completionColor);
+        g.setFont(font);
+        g.drawString(completionSuffix, getTextEndX(), getTextBaseline());
+    }
+
+    /**
+     * Handle key presses, and suggest a completion of the typed address.
+     * <ul>
+     *     <li>Right or End at the end of the text accepts the suggested completion.</li>
+     *     <li>After a typed character at the end of the text, the best completion is looked up.</li>
+     *     <li>Any other key dismisses the suggested completion.</li>
+     * </ul>
+     *
+     * @param id: The KeyEvent (Associated with type of KeyEvent)
+     * @param keyCode: The KeyEvent code (Determines the involved key)
+     * @param keyChar: The character representation of the involved key
+     * @param modifiersEx: Specifies other keys that were involved in the event
+     */
+    @Override
+    public void handleKey(int id, int keyCode, char keyChar, int modifiersEx) {
+        if (id != KeyEvent.KEY_PRESSED || !this.hasFocus) {
+            super.handleKey(id, keyCode, keyChar, modifiersEx);
+            return;
+        }
+        if (completionUrl != null && (keyCode == KeyEvent.VK_RIGHT || keyCode == KeyEvent.VK_END)
+                && modifiersEx == 0 && isCursorAtEnd()) {
+            setURL(completionUrl);
+            moveCursor(completionUrl.length());
+            clearCompletion();
+            return;
+        }
+        super.handleKey(id, keyCode, keyChar, modifiersEx);
+        boolean typed = keyChar != KeyEvent.CHAR_UNDEFINED && !Character.isISOControl(keyChar)
+                && (keyCode < KeyEvent.VK_END || keyCode > KeyEvent.VK_DOWN);
+        if (typed && this.hasFocus && isCursorAtEnd())
+            updateCompletion();
+        else
+            clearCompletion();
+    }
+
+    /**
+     * Look up the best completion of the typed address.
+     * Only a completion that adds characters to the typed text is suggested.
+     */
+    private void updateCompletion() {
+        clearCompletion();
+        if (uiController == null)
+            return;
+        CharSequence typed = getTextSequence();
+        if (uiController.suggestAddresses(typed, suggestedUrls, suggestedKeys) == 0)
+            return;
+        if (suggestedKeys[0].length() > typed.length()) {
+            completionUrl = suggestedUrls[0];
+            completionSuffix = suggestedKeys[0].substring(typed.length());
+        }
+    }
+
+    /**
+     * Dismiss the suggested completion.
+     */
+    private void clearCompletion() {
+        if (completionSuffix != null)
+            invalidate();
+        completionUrl = null;
+        completionSuffix = null;
+    }
+
+    /**
+     * Get the address that is suggested as the completion of the typed text.
+     *
+     * @return url: the suggested address, or {@code null} if there is none.
+     */
+    public String getCompletion() {
+        return completionUrl;
+    }
+
     /**
      * Contains the actions needed for the escape key
      * <ul>
@@ -43,6 +133,7 @@ public class AddressBar extends UITextInputField implements DocumentListener {
     /**
      * Contains the actions needed for the enter key
      * <ul>
+     *     <li>A suggested completion replaces the typed url</li>
      *     <li>This AddressBars focus is set to false</li>
      *     <li>The editing of the url is finalized</li>
      *     <li>The cursor is moved to the end of the url</li>
@@ -50,6 +141,9 @@ public class AddressBar extends UITextInputField implements DocumentListener {
      */
     @Override
     void handleEnter() {
+        if (completionUrl != null)
+            this.setURL(completionUrl);
+        clearCompletion();
         this.toggleFocus(false);
         this.updateCopyUrl();
         this.moveCursor(this.getURL().length());
@@ -154,4 +248,26 @@ public class AddressBar extends UITextInputField implements DocumentListener {
      * Integer defining the distance between this AddressBar and the window edges
      */
     private final int offset;
+
+    /**
+     * The address that is suggested as the completion of the typed text, or {@code null}.
+     */
+    private String completionUrl;
+
+    /**
+     * The part of the suggested completion that has not been typed, or {@code null}.
+     */
+    private String completionSuffix;
+
+    /**
+     * Arrays in which the best completion is looked up, reused for every keystroke.
+     */
+    private final String[] suggestedUrls = new String[1];
+    private final String[] suggestedKeys = new String[1];
+
+    /**
+     * A variable to denote the
+     * {@link Color} of the suggested completion.
+     */
+    private final Color completionColor = Color.GRAY;
 }
@@ -28,6 +28,7 @@ public class BookmarksBar extends Frame {
         this.yCoordinate = y;
         this.height = height;
         this.offset = offset;
+        this.nextBookmarkX = x + offset;
     }
 
     /**
@@ -51,24 +52,37 @@ public class BookmarksBar extends Frame {
     public void addBookmark(String name, String url) throws IllegalArgumentException{
         if (name.equals("") || url.equals(""))
         	throw new IllegalArgumentException("name or url of new bookmark cannot be empty");
-    	int[] coordinates = getNextPosition();
-        UITextHyperlink textHyperlink = new UITextHyperlink(coordinates[0], coordinates[1], 0, 10, name);
-        textHyperLinks.add(textHyperlink);
+        addTextHyperlink(name);
         this.controller.addHref(name, url);
         handleResize(getWidth(), height);
+        invalidate();
+    }
+
+    /**
+     * Show a {@link UITextHyperlink} for each bookmark that is
+     * kept by the {@link UIController} of this {@code BookmarksBar},
+     * e.g. the bookmarks of an earlier session, in place of the
+     * bookmarks it showed before.
+     */
+    public void loadBookmarks() {
+        textHyperLinks.clear();
+        nextBookmarkX = getxPos() + offset;
+        for (String name : controller.getBookmarkNames())
+            addTextHyperlink(name);
+        handleResize(getWidth(), height);
+        invalidate();
     }
 
     /**
-     * Calculate the x and y coordinates of where
-     * a newly added URL should be placed.
+     * Add a {@link UITextHyperlink} with the given name after the
+     * last bookmark of this {@code BookmarksBar}.
      *
-     * @return coords:
-     *      an int[2] array: int[0] is the x-coordinate, int[1] the y-coordinate.
+     * @param name: The name of the bookmark that will be added.
      */
-    private int[] getNextPosition() {
-        int x = getxPos() + offset + textHyperLinks.stream().mapToInt(UITextHyperlink::getMaxWidth).map(t -> t + bookmarkSeperationDistance).sum();
-        int y = yCoordinate + height / 4;
-        return new int[]{x, y};
+    private void addTextHyperlink(String name) {
+        UITextHyperlink textHyperlink = new UITextHyperlink(nextBookmarkX, yCoordinate + height / 4, 0, 10, name);
+        textHyperLinks.add(textHyperlink);
+        nextBookmarkX += textHyperlink.getMaxWidth() + bookmarkSeperationDistance;
     }
 
     /**
@@ -80,7 +94,8 @@ public class BookmarksBar extends Frame {
         g.setColor(Color.GRAY);
         g.drawLine(getxPos() + offset, getyPos() + height, getWidth() - offset, getyPos() + height);
 //        g.drawRect(getxPos(), getyPos(), getWidth(), getHeight());
-        this.textHyperLinks.forEach(t -> t.Render(g));
+        for (UITextHyperlink textHyperLink : this.textHyperLinks)
+            textHyperLink.Render(g);
     }
 
     /**
@@ -157,6 +172,12 @@ public class BookmarksBar extends Frame {
      */
     private final ArrayList<UITextHyperlink> textHyperLinks = new ArrayList<>();
 
+    /**
+     * The x coordinate at which the next
+     * bookmark of this {@code BookmarksBar} is placed.
+     */
+    private int nextBookmarkX;
+
     /**
      * The y coordinate of this {@code BookmarksBar}
      * with the top left corner as (0, 0).
@@ -101,6 +101,17 @@ public class BookmarksDialog extends GenericDialogScreen {
         this.form.Render(g);
     }
 
+    /**
+     * Retrieve the out of date area of this {@code BookmarksDialog} and its form.
+     *
+     * @return dirtyRegion:
+     *              The {@link Rectangle} enclosing the out of date areas, or {@code null} if there are none.
+     */
+    @Override
+    public Rectangle collectDirtyRegion() {
+        return union(super.collectDirtyRegion(), form.collectDirtyRegion());
+    }
+
 
     @Override
     public void handleMouse(int id, int x, int y, int clickCount, int button, int modifiersEx) {
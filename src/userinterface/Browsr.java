@@ -1,6 +1,11 @@
 package userinterface;
 
 import canvaswindow.CanvasWindow;
+import canvaswindow.HeadlessReplay;
+import canvaswindow.ReplayResult;
+import canvaswindow.ReplayRunner;
+import domainlayer.ContentSpan;
+import domainlayer.PartialDocumentListener;
 import domainlayer.UIController;
 
 import java.awt.*;
@@ -8,7 +13,10 @@ import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A class to represent the UserInterface.Browsr window,
@@ -67,6 +75,8 @@ public class Browsr extends CanvasWindow {
             this.Frames.add(this.AddressBar);
             this.Frames.add(this.DocumentArea);
             this.Frames.add(this.bookmarksBar);
+            for (userinterface.Frame frame : Frames)
+                frame.setFocusManager(focusManager);
 
             AddressBar.setUiController(controller);
             DocumentArea.setController(controller);
@@ -86,12 +96,57 @@ public class Browsr extends CanvasWindow {
     /**
      * A method to describe the behaviour
      * when the method show is called.
+     *
+     * <p>
+     *     A session that is recorded or replayed starts from an empty profile and loads
+     *     pages synchronously, so each event is handled the same way, and the same
+     *     frames are painted, when the session is replayed.
+     * </p>
      */
     @Override
     protected void handleShown() {
+        Path profile = isReproducibleSession() ? null : profileDirectory;
+        if (!isReproducibleSession()) {
+            controller.enableAsynchronousLoading(EventQueue::invokeLater);
+            controller.enablePrefetching();
+        }
+        if (profile != null) {
+            try {
+                controller.enableDiskCache(profile.resolve("pages"));
+            } catch (IOException e) {
+                System.out.println("Pages can't be kept on disk: " + e.getMessage());
+            }
+            try {
+                controller.enablePersistentBookmarks(profile.resolve("bookmarks.log"));
+                bookmarksBar.loadBookmarks();
+            } catch (IOException e) {
+                System.out.println("Bookmarks can't be kept on disk: " + e.getMessage());
+            }
+        }
+        controller.addDocumentListener(new PartialDocumentListener() {
+            @Override
+            public void partialContentChanged(ContentSpan partialContent) {
+                repaintDirtyRegion(layout);
+            }
+
+            @Override
+            public void contentChanged() {
+                repaintDirtyRegion(layout);
+            }
+        });
         repaint();
     }
 
+    /**
+     * Set the directory in which the pages and bookmarks of this {@code Browsr}
+     * are kept between sessions. It is not used by recorded or replayed sessions.
+     *
+     * @param profileDirectory: the profile directory, or {@code null} to keep nothing between sessions.
+     */
+    public void setProfileDirectory(Path profileDirectory) {
+        this.profileDirectory = profileDirectory;
+    }
+
     /**
      * An abstract class which represents
      * the possible layouts of a {@code Browsr} object.
@@ -108,6 +163,13 @@ public class Browsr extends CanvasWindow {
          */
         abstract void Render(Graphics g);
 
+        /**
+         * Retrieve the area of this {@link Browsr.Layout} that is out of date, and mark it as up to date again.
+         *
+         * @return dirtyRegion: the {@link Rectangle} enclosing the out of date areas, or {@code null} if there are none.
+         */
+        abstract Rectangle collectDirtyRegion();
+
         /**
          * Handle mouseEvents. Determine which part of this
          * {@link Browsr.Layout} was pressed and do the right actions.
@@ -153,7 +215,17 @@ public class Browsr extends CanvasWindow {
          */
         @Override
         void Render(Graphics g) {
-            Frames.forEach(f -> f.Render(g));
+            for (userinterface.Frame frame : Frames)
+                if (frame.intersectsClip(g))
+                    frame.Render(g);
+        }
+
+        @Override
+        Rectangle collectDirtyRegion() {
+            Rectangle dirtyRegion = null;
+            for (userinterface.Frame frame : Frames)
+                dirtyRegion = userinterface.Frame.union(dirtyRegion, frame.collectDirtyRegion());
+            return dirtyRegion;
         }
 
         /**
@@ -173,7 +245,8 @@ public class Browsr extends CanvasWindow {
 
         /**
          * Handle keyboard input on this {@link Browsr.RegularLayout}.
-         * This method does the right action when a key is pressed.
+         * The key is sent to the focused {@link userinterface.Frame} only,
+         * since the other frames ignore key presses.
          *
          * @param id: The KeyEvent (Associated with type of KeyEvent).
          * @param keyCode: The KeyEvent code (Determines the involved key).
@@ -182,7 +255,7 @@ public class Browsr extends CanvasWindow {
          */
         @Override
         void handleKeyEvent(int id, int keyCode, char keyChar, int modifiersEx) {
-            Frames.forEach(f -> f.handleKey(id, keyCode, keyChar, modifiersEx));
+            focusManager.dispatchKey(id, keyCode, keyChar, modifiersEx);
         }
     }
 
@@ -210,6 +283,11 @@ public class Browsr extends CanvasWindow {
             bookmarksDialog.Render(g);
         }
 
+        @Override
+        Rectangle collectDirtyRegion() {
+            return bookmarksDialog.collectDirtyRegion();
+        }
+
         /**
          * Handle a mouse click on this {@code BookmarksDialogLayout}.
          *
@@ -266,6 +344,11 @@ public class Browsr extends CanvasWindow {
             saveDialog.Render(g);
         }
 
+        @Override
+        Rectangle collectDirtyRegion() {
+            return saveDialog.collectDirtyRegion();
+        }
+
         /**
          * Handle a mouse click on this {@code SaveDialogLayout}.
          *
@@ -307,6 +390,10 @@ public class Browsr extends CanvasWindow {
     @Override
     protected void paint(Graphics g) {
         layout.Render(g);
+        // Tables that were laid out again while rendering mark the cells that moved as out of date
+        Rectangle dirtyRegion = layout.collectDirtyRegion();
+        if (dirtyRegion != null)
+            repaint(dirtyRegion.x, dirtyRegion.y, dirtyRegion.width, dirtyRegion.height);
     }
 
     /**
@@ -342,8 +429,9 @@ public class Browsr extends CanvasWindow {
      */
     @Override
     protected void handleMouseEvent(int id, int x, int y, int clickCount, int button, int modifiersEx) {
-       layout.handleMouseEvent(id, x, y, clickCount, button, modifiersEx);
-        repaint();
+        Layout previousLayout = layout;
+        layout.handleMouseEvent(id, x, y, clickCount, button, modifiersEx);
+        repaintDirtyRegion(previousLayout);
     }
 
     /**
@@ -356,6 +444,7 @@ public class Browsr extends CanvasWindow {
      */
     @Override
     protected void handleKeyEvent(int id, int keyCode, char keyChar, int modifiersEx) {
+        Layout previousLayout = layout;
         if (modifiersEx == KeyEvent.CTRL_DOWN_MASK) {  // KeyEven.CTRL_DOWN_MASK == 128 == CTRL
             if (keyCode == 68 && layout instanceof RegularLayout) // 68 == d
                 handleBookmarksDialog();
@@ -364,8 +453,38 @@ public class Browsr extends CanvasWindow {
             else if (keyCode == 86)
                 handlePaste();
         }
+        if (modifiersEx == KeyEvent.ALT_DOWN_MASK && layout instanceof RegularLayout && id == KeyEvent.KEY_PRESSED
+                && (keyCode == KeyEvent.VK_LEFT || keyCode == KeyEvent.VK_RIGHT)) {
+            // ALT + LEFT and ALT + RIGHT go back and forward through the visited pages
+            if (keyCode == KeyEvent.VK_LEFT)
+                controller.goBack();
+            else
+                controller.goForward();
+            repaintDirtyRegion(previousLayout);
+            return;
+        }
         this.layout.handleKeyEvent(id, keyCode, keyChar, modifiersEx);
-        repaint();
+        repaintDirtyRegion(previousLayout);
+    }
+
+    /**
+     * Repaint the parts of this {@code Browsr} that are out of date.
+     *
+     * <p>
+     *     In the {@link RegularLayout}, only the area enclosing the out of date
+     *     {@link userinterface.Frame}s is repainted, e.g. only the {@link AddressBar}
+     *     while typing a URL. When the layout has changed, or a dialog is shown,
+     *     the whole window is repainted.
+     * </p>
+     *
+     * @param previousLayout: the {@link Layout} of this {@code Browsr} before the current event was handled.
+     */
+    private void repaintDirtyRegion(Layout previousLayout) {
+        Rectangle dirtyRegion = layout.collectDirtyRegion();
+        if (layout != previousLayout || !(layout instanceof RegularLayout))
+            repaint();
+        else if (dirtyRegion != null)
+            repaint(dirtyRegion.x, dirtyRegion.y, dirtyRegion.width, dirtyRegion.height);
     }
 
     /**
@@ -451,10 +570,78 @@ public class Browsr extends CanvasWindow {
     /**
      * Main method. This creates a UserInterface.Browsr window.
      *
+     * With {@code --replay <path> [--check-every <n>]}, the recording at the given path
+     * is replayed without a window instead, checking every n-th frame and the final frame,
+     * or only the final frame if n is not given.
+     * With {@code --replay-all <directory> [--check-every <n>] [--report <file>]}, all recordings
+     * under the given directory are replayed concurrently, and a JSON report is written to the given file.
+     * Both also accept {@code --latency-budget <milliseconds>}, which fails a recording whose p99
+     * input-to-paint latency exceeds the budget.
+     * With {@code --import <path> <binary path>}, the recording at the given path is converted to a binary recording.
+     * Other arguments print the usage of this program and exit with status 2.
+     *
      * @param args:
      *            provided command line arguments.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && !args[0].equals("--import") && !args[0].equals("--replay") && !args[0].equals("--replay-all"))
+            exitWithUsage("Unknown option " + args[0]);
+        if (args.length > 0 && args[0].equals("--import") && args.length != 3)
+            exitWithUsage("--import takes a recording and a binary recording");
+        if (args.length == 1)
+            exitWithUsage(args[0] + " takes a recording");
+        if (args.length == 3 && args[0].equals("--import")) {
+            try {
+                CanvasWindow.importRecording(args[1], args[2]);
+                System.exit(0);
+            } catch (IOException e) {
+                System.out.println(args[1] + " can't be imported: " + e.getMessage());
+                System.exit(2);
+            }
+        }
+        if (args.length >= 2 && (args[0].equals("--replay") || args[0].equals("--replay-all"))) {
+            int frameInterval = HeadlessReplay.FINAL_FRAME_ONLY;
+            String report = null;
+            long latencyBudget = -1;
+            for (int i = 2; i < args.length; i += 2) {
+                if (i + 1 == args.length)
+                    exitWithUsage(args[i] + " takes a value");
+                if (args[i].equals("--check-every"))
+                    frameInterval = (int) parseNonNegative(args[i], args[i + 1], Integer.MAX_VALUE);
+                else if (args[i].equals("--report") && args[0].equals("--replay-all"))
+                    report = args[i + 1];
+                else if (args[i].equals("--latency-budget"))
+                    latencyBudget = parseNonNegative(args[i], args[i + 1], Long.MAX_VALUE / 1000000) * 1000000;
+                else
+                    exitWithUsage("Unknown option " + args[i] + " for " + args[0]);
+            }
+            try {
+                if (args[0].equals("--replay")) {
+                    HeadlessReplay replay = new HeadlessReplay(new Browsr("Browsr"));
+                    if (latencyBudget >= 0)
+                        replay.setLatencyBudget(99, latencyBudget);
+                    ReplayResult result = replay.replay(args[1], frameInterval);
+                    System.out.println(args[1] + ": " + result);
+                    System.exit(result.isPassed() ? 0 : 1);
+                }
+                ReplayRunner runner = new ReplayRunner(() -> new Browsr("Browsr"));
+                if (latencyBudget >= 0)
+                    runner.setLatencyBudget(99, latencyBudget);
+                List<ReplayRunner.Outcome> outcomes = runner.run(Path.of(args[1]), frameInterval);
+                runner.close();
+                boolean passed = true;
+                for (ReplayRunner.Outcome outcome : outcomes) {
+                    System.out.println(outcome.getPath() + ": " + (outcome.getResult() != null ? outcome.getResult() : outcome.getError()));
+                    passed &= outcome.isPassed();
+                }
+                if (report != null)
+                    ReplayRunner.writeReport(outcomes, Path.of(report));
+                System.exit(passed ? 0 : 1);
+            } catch (IOException e) {
+                System.out.println(args[1] + " can't be read: " + e.getMessage());
+                System.exit(2);
+            }
+        }
         java.awt.EventQueue.invokeLater(() -> {
             try {
                 new Browsr("Browsr").show();
@@ -464,6 +651,45 @@ public class Browsr extends CanvasWindow {
         });
     }
 
+    /**
+     * Parse the value of the given command line option as a number between 0 and the given maximum,
+     * or exit with the usage of this program if it isn't one.
+     *
+     * @param option: the command line option the value belongs to.
+     * @param value: the value to be parsed.
+     * @param max: the largest value that is accepted.
+     * @return number: the parsed value.
+     */
+    private static long parseNonNegative(String option, String value, long max) {
+        try {
+            long number = Long.parseLong(value);
+            if (number >= 0 && number <= max)
+                return number;
+        } catch (NumberFormatException ignored) {
+        }
+        exitWithUsage(option + " takes a number between 0 and " + max + ", not " + value);
+        return -1;
+    }
+
+    /**
+     * Print the given problem with the command line arguments and the usage of this program,
+     * and exit with status 2.
+     *
+     * @param problem: what is wrong with the command line arguments.
+     */
+    private static void exitWithUsage(String problem) {
+        System.out.println(problem);
+        System.out.println(USAGE);
+        System.exit(2);
+    }
+
+    /**
+     * The usage of this program, printed when the command line arguments are invalid.
+     */
+    private static final String USAGE = "Usage: browsr [--replay <recording> [<options>]"
+            + " | --replay-all <directory> [<options>] [--report <file>] | --import <recording> <binary recording>]"
+            + ", where <options> are [--check-every <n>] [--latency-budget <milliseconds>]";
+
     /**
      * A variable that denotes the {@link AddressBar}
      * associated to this UserInterface.Browsr.
@@ -487,6 +713,12 @@ public class Browsr extends CanvasWindow {
      * {@link Frame}'s associated to this UserInterface.Browsr.
      */
     private final ArrayList<userinterface.Frame> Frames = new ArrayList<>();
+
+    /**
+     * A variable that denotes the {@link FocusManager} that keeps track
+     * of the focused {@link userinterface.Frame} in the regular layout.
+     */
+    private final FocusManager focusManager = new FocusManager();
     
     /**
      * @return the {@link AddressBar} of this {@link Browsr}, for testing/debug purposes
@@ -511,12 +743,28 @@ public class Browsr extends CanvasWindow {
 	    return this.controller;
     }
 
+    /**
+     * Retrieve the {@link FocusManager} that keeps track of the focused
+     * {@link userinterface.Frame} in the regular layout of this {@code Browsr} object.
+     *
+     * @return focusManager: The {@link FocusManager} of this {@code Browsr} object.
+     */
+    public FocusManager getFocusManager() {
+        return this.focusManager;
+    }
+
     /**
      * A variable that denotes the current
      * {@link Layout} of this {@code UserInterface.Browsr}.
      */
     private Layout layout;
 
+    /**
+     * The directory in which the pages and bookmarks of this {@code Browsr}
+     * are kept between sessions, or {@code null} if nothing is kept.
+     */
+    private Path profileDirectory = Path.of(System.getProperty("user.home"), ".browsr");
+
     /**
      * A variable that denotes the {@link BookmarksDialogLayout}
      * associated to this UserInterface.Browsr.
@@ -10,7 +10,7 @@ import java.util.List;
 /**
  * A class to represent the portion of Broswr that renders the document
  */
-public class DocumentArea extends Frame implements DocumentListener {
+public class DocumentArea extends Frame implements PartialDocumentListener {
     /**
      * Construct a {@code DocumentArea} with the given parameters.
      *
@@ -65,6 +65,7 @@ public class DocumentArea extends Frame implements DocumentListener {
      */
     private DocumentCell translateToUIElements(ContentSpan contents) {
         DocumentCell newUIContents = null;
+        translatedCells++;
 
         if (contents instanceof Table)
             newUIContents = translateTable((Table) contents);
@@ -263,12 +264,41 @@ public class DocumentArea extends Frame implements DocumentListener {
     }
 
     /**
-     * Notify the DocumentArea that the contents have been changed
+     * Notify the DocumentArea that the contents have been changed.
+     * A page that is shown again gets back the UI elements it was left with,
+     * including the text typed in its input fields; other pages are translated,
+     * and their UI elements are kept in the navigation history.
      */
     public void contentChanged() {
         try{
+            Object view = controller.getDocumentView();
+            if (view instanceof DocumentCell) {
+                DocumentCell restored = (DocumentCell) view;
+                // The window may have been resized since the page was left
+                restored.handleResize(getxPos() + getWidth(), getyPos() + getHeight());
+                this.setContent(restored);
+                return;
+            }
             ContentSpan newContentSpan = controller.getContentSpan();
-            this.setContent(this.translateToUIElements(newContentSpan));
+            translatedCells = 0;
+            DocumentCell translated = this.translateToUIElements(newContentSpan);
+            this.setContent(translated);
+            controller.setDocumentView(translated, translatedCells * CELL_SIZE);
+        }
+        catch(Exception e){
+            System.out.print(e);
+        }
+    }
+
+    /**
+     * Show the part of the loading document that has been parsed so far.
+     *
+     * @param partialContent: The part of the document that has been parsed so far.
+     */
+    @Override
+    public void partialContentChanged(ContentSpan partialContent) {
+        try{
+            this.setContent(this.translateToUIElements(partialContent));
         }
         catch(Exception e){
             System.out.print(e);
@@ -302,7 +332,64 @@ public class DocumentArea extends Frame implements DocumentListener {
      *               The content that should be set.
      */
     public void setContent(DocumentCell content) {
+        FocusManager focusManager = getFocusManager();
+        if (focusManager != null) {
+            // The input fields of the previous content can't have focus anymore
+            if (this.content != null)
+                this.content.setFocusManager(null);
+            if (content != null)
+                content.setFocusManager(focusManager);
+        }
         this.content = content;
+        invalidate();
+    }
+
+    /**
+     * Set the {@link FocusManager} of this DocumentArea and of its content.
+     *
+     * @param focusManager: The new {@link FocusManager}, or {@code null}.
+     */
+    @Override
+    public void setFocusManager(FocusManager focusManager) {
+        super.setFocusManager(focusManager);
+        if (content != null)
+            content.setFocusManager(focusManager);
+    }
+
+    /**
+     * Mark this DocumentArea as out of date. Its content may extend
+     * beyond its bounds, so everything below its top edge is marked.
+     */
+    @Override
+    public void invalidate() {
+        invalidate(0, getyPos() - DIRTY_MARGIN, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2);
+    }
+
+    /**
+     * Retrieve the out of date area of this DocumentArea and its content.
+     *
+     * @return dirtyRegion:
+     *              The {@link Rectangle} enclosing the out of date areas, or {@code null} if there are none.
+     */
+    @Override
+    public Rectangle collectDirtyRegion() {
+        Rectangle region = super.collectDirtyRegion();
+        if (content != null)
+            region = union(region, content.collectDirtyRegion());
+        return region;
+    }
+
+    /**
+     * Check whether this DocumentArea has to be rendered with the given graphics.
+     * Its content may extend beyond its bounds, so everything below its top edge is checked.
+     *
+     * @param g: The graphics this DocumentArea would be rendered with.
+     * @return True iff the clip of the given graphics extends below the top of this DocumentArea, or there is no clip.
+     */
+    @Override
+    public boolean intersectsClip(Graphics g) {
+        Rectangle clip = getClipBounds(g);
+        return clip == null || clip.y + clip.height > getyPos() - DIRTY_MARGIN;
     }
 
     /**
@@ -339,6 +426,17 @@ public class DocumentArea extends Frame implements DocumentListener {
      * The content that is represented by this DocumentArea.
      */
     private DocumentCell content;
+
+    /**
+     * The number of UI elements created by the current translation.
+     */
+    private int translatedCells;
+
+    /**
+     * The estimated size in bytes of a translated UI element,
+     * including its text and layout state.
+     */
+    private static final long CELL_SIZE = 256;
 }
 
 
@@ -84,7 +84,18 @@ public class DocumentCell extends Frame {
      * @return ReturnMessage(ReturnMessage.Type.Empty): a {@link ReturnMessage} which contains the empty string {@code ""}.
      */
     public ReturnMessage getHandleMouse(int id, int x, int y, int clickCount, int button, int modifier) {
-        return new ReturnMessage(ReturnMessage.Type.Empty);
+        return ReturnMessage.EMPTY;
+    }
+
+    /**
+     * Determine whether this DocumentCell has to receive mouse events outside of its area,
+     * e.g. to lose focus or to be released. Other cells only receive the mouse events
+     * on their area from the {@link UITable} they are in.
+     *
+     * @return False: a plain DocumentCell ignores all mouse events.
+     */
+    public boolean receivesMissedMouseEvents() {
+        return false;
     }
 
     /**
@@ -117,6 +128,25 @@ public class DocumentCell extends Frame {
         return getWidth();
     }
 
+    /**
+     * Let the cell this DocumentCell is contained in know that the maximum width or height
+     * of this DocumentCell changed, so the containing {@link UITable} is laid out again
+     * before it is rendered next.
+     */
+    protected void invalidateLayout() {
+        if (container != null)
+            container.invalidateLayout();
+    }
+
+    /**
+     * Set the cell this DocumentCell is contained in.
+     *
+     * @param container: The {@link UITable} or {@link UIForm} that contains this DocumentCell.
+     */
+    void setContainer(DocumentCell container) {
+        this.container = container;
+    }
+
     /**
      * The height-to-width-ratio is the ratio between the height of a character to its width.
      * This is used for estimating the width of a string given its height
@@ -136,12 +166,18 @@ public class DocumentCell extends Frame {
     /**
      * If calculateActualWidth is false, the estimation of the width is done as follows:
      * -> textHeight*(length of the text)*heightToWidthRatio
+     * Otherwise the text is measured when the cell is created, and again in the rendering context of each paint.
      */
-    private final boolean calculateActualWidth = false; // set to true if the actual width has to be calculated, otherwise an estimation is made
+    private final boolean calculateActualWidth = true; // set to true if the actual width has to be calculated, otherwise an estimation is made
 
     /**
      * The height to width ratio of this DocumentCell,
      * this is always equal to 2/3.
      */
     protected final double heightToWidthRatio = 2.0/3.0;
+
+    /**
+     * The cell this DocumentCell is contained in, or {@code null} if it is not contained in a cell.
+     */
+    private DocumentCell container;
 }
@@ -0,0 +1,142 @@
+package userinterface;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A class to keep track of the {@link Frame} that has focus
+ * in a {@link Browsr} and the document shown in it.
+ *
+ * <p>
+ *     Focusable frames register themselves when they are given a {@code FocusManager}
+ *     (see {@link Frame#setFocusManager(FocusManager)}), in the order in which focus
+ *     traverses them, and report every change of their focus. Key events are then
+ *     delivered to the focused frame only, instead of to every frame of the document.
+ * </p>
+ */
+public class FocusManager {
+
+    /**
+     * Register the given focusable frame, after all frames registered before it
+     * in the focus traversal order.
+     *
+     * @param frame: the frame to be registered.
+     */
+    void register(Frame frame) {
+        traversalOrder.add(frame);
+        if (frame.hasFocus)
+            focusOwner = frame;
+    }
+
+    /**
+     * Unregister the given frame, e.g. because it is no longer shown.
+     *
+     * @param frame: the frame to be unregistered.
+     */
+    void unregister(Frame frame) {
+        traversalOrder.remove(frame);
+        if (focusOwner == frame)
+            focusOwner = null;
+    }
+
+    /**
+     * Record that the given frame gained or lost focus.
+     *
+     * @param frame: the frame of which the focus changed.
+     * @param hasFocus: whether the frame has focus now.
+     */
+    void focusChanged(Frame frame, boolean hasFocus) {
+        if (hasFocus)
+            focusOwner = frame;
+        else if (focusOwner == frame)
+            focusOwner = null;
+    }
+
+    /**
+     * Retrieve the frame that has focus right now.
+     *
+     * @return focusOwner: the focused {@link Frame}, or {@code null} if no frame has focus.
+     */
+    public Frame getFocusOwner() {
+        return focusOwner;
+    }
+
+    /**
+     * Retrieve the registered frames in the order in which focus traverses them.
+     *
+     * @return traversalOrder: a list of the registered frames.
+     */
+    public List<Frame> getTraversalOrder() {
+        return new ArrayList<>(traversalOrder);
+    }
+
+    /**
+     * Send the given KeyEvent to the frame that has focus, if any.
+     *
+     * @param id: The KeyEvent (Associated with type of KeyEvent)
+     * @param keyCode: The KeyEvent code (Determines the involved key)
+     * @param keyChar: The character representation of the involved key
+     * @param modifiersEx: Specifies other keys that were involved in the event
+     */
+    public void dispatchKey(int id, int keyCode, char keyChar, int modifiersEx) {
+        if (focusOwner != null)
+            focusOwner.handleKey(id, keyCode, keyChar, modifiersEx);
+    }
+
+    /**
+     * Move the focus to the registered frame after the focused one,
+     * or to the first registered frame if no frame has focus.
+     */
+    public void focusNext() {
+        Frame next = null;
+        Iterator<Frame> frames = traversalOrder.iterator();
+        if (focusOwner != null) {
+            while (frames.hasNext() && frames.next() != focusOwner)
+                ;
+        }
+        if (frames.hasNext())
+            next = frames.next();
+        else if (!traversalOrder.isEmpty())
+            next = traversalOrder.iterator().next();
+        moveFocusTo(next);
+    }
+
+    /**
+     * Move the focus to the registered frame before the focused one,
+     * or to the last registered frame if no frame has focus.
+     */
+    public void focusPrevious() {
+        Frame previous = null;
+        for (Frame frame : traversalOrder) {
+            if (frame == focusOwner && previous != null)
+                break;
+            previous = frame;
+        }
+        moveFocusTo(previous);
+    }
+
+    /**
+     * Take the focus away from the focused frame and give it to the given frame.
+     *
+     * @param frame: the frame to be focused, or {@code null} to keep the focus where it is.
+     */
+    private void moveFocusTo(Frame frame) {
+        if (frame == null || frame == focusOwner)
+            return;
+        if (focusOwner != null)
+            focusOwner.toggleFocus(false);
+        frame.toggleFocus(true);
+    }
+
+    /**
+     * The registered focusable frames, in focus traversal order.
+     */
+    private final LinkedHashSet<Frame> traversalOrder = new LinkedHashSet<>();
+
+    /**
+     * The frame that has focus right now, or {@code null}.
+     */
+    private Frame focusOwner;
+}
@@ -22,10 +22,7 @@ public class Frame {
         if (x < 0 || y < 0 || width < 0 || height < 0)
         	throw new IllegalDimensionException();
 
-        this.xPos = x;
-        this.yPos = y;
-        this.width = width;
-        this.height = height;
+        this.bounds = new Rectangle(x, y, width, height);
         this.hasFocus = false;
     }
 
@@ -81,33 +78,164 @@ public class Frame {
      *                The new boolean value to denote whether this Frame has focus right now.
      */
     public void toggleFocus(boolean newState) {
+        if (this.hasFocus != newState)
+            invalidate();
         this.hasFocus = newState;
+        if (focusManager != null)
+            focusManager.focusChanged(this, newState);
     }
 
     /**
-     * An integer variable to denote the x coordinate of this Frame.
+     * Set the {@link FocusManager} that keeps track of the focus of this Frame.
+     * A focusable Frame registers itself with the new manager, after
+     * unregistering from its previous one.
+     *
+     * @param focusManager:
+     *                The new {@link FocusManager} of this Frame, or {@code null} if it is no longer shown.
      */
-    private int xPos;
+    public void setFocusManager(FocusManager focusManager) {
+        if (this.focusManager != null)
+            this.focusManager.unregister(this);
+        this.focusManager = focusManager;
+        if (focusManager != null && isFocusable())
+            focusManager.register(this);
+    }
 
     /**
-     * An integer variable to denote the y coordinate of this Frame.
+     * Retrieve the {@link FocusManager} that keeps track of the focus of this Frame.
+     *
+     * @return focusManager: The {@link FocusManager} of this Frame, or {@code null}.
      */
-    private int yPos;
+    protected FocusManager getFocusManager() {
+        return focusManager;
+    }
 
     /**
-     * A boolean variable to denote whether this Frame has focus right now.
+     * Determine whether this Frame can have focus, and thus receive key events.
+     *
+     * @return False: a plain Frame can't have focus.
      */
-    public boolean hasFocus;
+    public boolean isFocusable() {
+        return false;
+    }
 
     /**
-     * An integer variable to denote the width of this Frame.
+     * Mark the area covered by this Frame as out of date,
+     * so that only this area is repainted after the current event.
+     *
+     * <p>The area is widened by {@code DIRTY_MARGIN} pixels on each side,
+     *    to include the outline drawn around this Frame.</p>
      */
-    private int width;
+    public void invalidate() {
+        invalidate(getxPos() - DIRTY_MARGIN, getyPos() - DIRTY_MARGIN,
+                getWidth() + 2 * DIRTY_MARGIN + 1, getHeight() + 2 * DIRTY_MARGIN + 1);
+    }
 
     /**
-     * An integer variable to denote the height of this Frame.
+     * Mark the given area as out of date.
+     *
+     * @param x: The x coordinate of the area.
+     * @param y: The y coordinate of the area.
+     * @param width: The width of the area.
+     * @param height: The height of the area.
      */
-    private int height;
+    protected void invalidate(int x, int y, int width, int height) {
+        if (dirtyRegion == null)
+            dirtyRegion = new Rectangle(x, y, width, height);
+        else
+            dirtyRegion.add(new Rectangle(x, y, width, height));
+    }
+
+    /**
+     * Retrieve the area of this Frame that is out of date, and mark it as up to date again.
+     * Frames that contain other Frames include the out of date areas of their contents.
+     *
+     * @return dirtyRegion:
+     *              The {@link Rectangle} enclosing the out of date areas, or {@code null} if there are none.
+     */
+    public Rectangle collectDirtyRegion() {
+        Rectangle region = dirtyRegion;
+        dirtyRegion = null;
+        return region;
+    }
+
+    /**
+     * Compute the smallest area enclosing both given areas.
+     *
+     * @param region: The first area, or {@code null}.
+     * @param other: The second area, or {@code null}.
+     * @return union:
+     *              The {@link Rectangle} enclosing both areas, or {@code null} if both are {@code null}.
+     */
+    protected static Rectangle union(Rectangle region, Rectangle other) {
+        if (region == null)
+            return other;
+        if (other != null)
+            region.add(other);
+        return region;
+    }
+
+    /**
+     * Check whether this Frame has to be rendered with the given graphics,
+     * i.e. whether it overlaps the area that is being repainted.
+     *
+     * @param g: The graphics this Frame would be rendered with.
+     * @return True iff the clip of the given graphics overlaps this Frame, or there is no clip.
+     */
+    public boolean intersectsClip(Graphics g) {
+        Rectangle clip = getClipBounds(g);
+        return clip == null || clip.intersects(bounds.x - DIRTY_MARGIN, bounds.y - DIRTY_MARGIN,
+                bounds.width + 2 * DIRTY_MARGIN + 1, bounds.height + 2 * DIRTY_MARGIN + 1);
+    }
+
+    /**
+     * Retrieve the bounds of the clip of the given graphics, in a rectangle
+     * owned by this Frame instead of a new rectangle each paint.
+     *
+     * @param g: The graphics of which the clip is retrieved.
+     * @return clipBounds: The bounds of the clip, or {@code null} if there is no clip.
+     *                     The rectangle is overwritten by the next call.
+     */
+    protected Rectangle getClipBounds(Graphics g) {
+        if (clipBounds == null)
+            clipBounds = new Rectangle();
+        // The rectangle is left unchanged if there is no clip
+        clipBounds.setBounds(0, 0, -1, -1);
+        g.getClipBounds(clipBounds);
+        return clipBounds.width < 0 ? null : clipBounds;
+    }
+
+    /**
+     * The area of this Frame that is out of date, or {@code null} if it is up to date.
+     */
+    private Rectangle dirtyRegion;
+
+    /**
+     * The rectangle the clip bounds are retrieved in while this Frame is rendered, or {@code null}.
+     */
+    private Rectangle clipBounds;
+
+    /**
+     * The number of pixels an out of date area is widened by on each side.
+     */
+    static final int DIRTY_MARGIN = 2;
+
+    /**
+     * The bounding box of this Frame, holding its
+     * x and y coordinates, width and height.
+     */
+    private final Rectangle bounds;
+
+    /**
+     * A boolean variable to denote whether this Frame has focus right now.
+     */
+    public boolean hasFocus;
+
+    /**
+     * The {@link FocusManager} that keeps track of the focus of this Frame, or {@code null}.
+     */
+    private FocusManager focusManager;
+
 
     /**
      * A variable to denote the background {@link Color} of this Frame.
@@ -121,7 +249,7 @@ public class Frame {
      *          The x position of this Frame.
      */
     public int getxPos() {
-        return xPos;
+        return bounds.x;
     }
 
     /**
@@ -131,7 +259,7 @@ public class Frame {
      *          The y position of this Frame.
      */
     public int getyPos() {
-        return yPos;
+        return bounds.y;
     }
 
     /**
@@ -141,7 +269,7 @@ public class Frame {
      *             The value this Frame's x position should be set to.
      */
     public void setxPos(int xPos) {
-        this.xPos = xPos;
+        bounds.x = xPos;
     }
 
     /**
@@ -151,7 +279,7 @@ public class Frame {
      *             The value this Frame's y position should be set to.
      */
     public void setyPos(int yPos) {
-        this.yPos = yPos;
+        bounds.y = yPos;
     }
 
     /**
@@ -161,7 +289,7 @@ public class Frame {
      *              The width of this Frame.
      */
     public int getWidth() {
-        return width;
+        return bounds.width;
     }
 
     /**
@@ -171,7 +299,7 @@ public class Frame {
      *                The new value of this Frame's width should be set to.
      */
     public void setWidth(int newWidth){
-        this.width = newWidth;
+        bounds.width = newWidth;
     }
 
      /**
@@ -181,7 +309,7 @@ public class Frame {
      *              The height of this Frame.
      */
     public int getHeight() {
-        return height;
+        return bounds.height;
     }
 
     /**
@@ -191,7 +319,7 @@ public class Frame {
      *                The new value of this Frame's height should be set to.
      */
     public void setHeight(int newHeight){
-        this.height = newHeight;
+        bounds.height = newHeight;
     }
 
     /**
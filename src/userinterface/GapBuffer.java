@@ -0,0 +1,170 @@
+package userinterface;
+
+import java.util.Arrays;
+
+/**
+ * A class to hold the editable text of a {@link UITextInputField}.
+ *
+ * <p>
+ *     The characters are kept in an array with a gap at the position of the last edit.
+ *     Typing or deleting at the cursor only moves the gap when the cursor has moved,
+ *     so an edit costs O(1) amortized instead of copying the whole text.
+ *     The {@link String} form of the text is only built when it is asked for,
+ *     e.g. to render or submit it, and is cached until the next edit.
+ * </p>
+ */
+class GapBuffer implements CharSequence {
+
+    /**
+     * Insert the given character at the given index.
+     *
+     * @param index: the index at which the character is inserted.
+     * @param c: the character to be inserted.
+     * @throws IndexOutOfBoundsException: if the index is negative or larger than the length of the text.
+     */
+    void insert(int index, char c) {
+        checkPosition(index);
+        moveGapTo(index);
+        if (gapStart == gapEnd)
+            grow(1);
+        chars[gapStart++] = c;
+        string = null;
+    }
+
+    /**
+     * Delete the characters from the given start index up to the given end index,
+     * or up to the end of the text if the end index lies beyond it.
+     *
+     * @param start: the index of the first character to be deleted.
+     * @param end: the index after the last character to be deleted.
+     * @throws IndexOutOfBoundsException: if the start index is negative or larger than the end index or the length of the text.
+     */
+    void delete(int start, int end) {
+        end = Math.min(end, length());
+        if (start < 0 || start > end)
+            throw new IndexOutOfBoundsException("range [" + start + ", " + end + ") of length " + length());
+        if (start == end)
+            return;
+        moveGapTo(end);
+        gapStart = start;
+        string = null;
+    }
+
+    /**
+     * Replace the whole text by the given text.
+     *
+     * @param text: the new text.
+     */
+    void set(String text) {
+        if (chars.length < text.length())
+            chars = new char[text.length() + MIN_GAP];
+        text.getChars(0, text.length(), chars, 0);
+        gapStart = text.length();
+        gapEnd = chars.length;
+        string = text;
+    }
+
+    @Override
+    public int length() {
+        return chars.length - (gapEnd - gapStart);
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length())
+            throw new IndexOutOfBoundsException("index " + index + " of length " + length());
+        return index < gapStart ? chars[index] : chars[index + gapEnd - gapStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    /**
+     * Retrieve the text of this {@code GapBuffer}, cached until the next edit.
+     *
+     * @return text: the text as a {@link String}.
+     */
+    @Override
+    public String toString() {
+        if (string == null) {
+            char[] text = new char[length()];
+            System.arraycopy(chars, 0, text, 0, gapStart);
+            System.arraycopy(chars, gapEnd, text, gapStart, chars.length - gapEnd);
+            string = new String(text);
+        }
+        return string;
+    }
+
+    /**
+     * Check that the given index is a position in the text,
+     * where characters can be inserted.
+     *
+     * @param index: the index to be checked.
+     * @throws IndexOutOfBoundsException: if the index is negative or larger than the length of the text.
+     */
+    private void checkPosition(int index) {
+        if (index < 0 || index > length())
+            throw new IndexOutOfBoundsException("position " + index + " of length " + length());
+    }
+
+    /**
+     * Move the gap so that it starts at the given index,
+     * copying the characters between its old and new position.
+     *
+     * @param index: the index the gap should start at.
+     */
+    private void moveGapTo(int index) {
+        if (index < gapStart) {
+            int count = gapStart - index;
+            System.arraycopy(chars, index, chars, gapEnd - count, count);
+            gapStart -= count;
+            gapEnd -= count;
+        } else if (index > gapStart) {
+            int count = index - gapStart;
+            System.arraycopy(chars, gapEnd, chars, gapStart, count);
+            gapStart += count;
+            gapEnd += count;
+        }
+    }
+
+    /**
+     * Grow the array so that the gap holds at least the given number of characters.
+     *
+     * @param needed: the number of characters the gap must be able to hold.
+     */
+    private void grow(int needed) {
+        int after = chars.length - gapEnd;
+        int newLength = Math.max(2 * chars.length, chars.length + needed + MIN_GAP);
+        char[] grown = Arrays.copyOf(chars, newLength);
+        System.arraycopy(chars, gapEnd, grown, newLength - after, after);
+        gapEnd = newLength - after;
+        chars = grown;
+    }
+
+    /**
+     * The minimum number of characters the gap holds after growing.
+     */
+    private static final int MIN_GAP = 16;
+
+    /**
+     * The characters of the text, with a gap from {@code gapStart} up to {@code gapEnd}.
+     */
+    private char[] chars = new char[MIN_GAP];
+
+    /**
+     * The index of the first character of the gap.
+     */
+    private int gapStart = 0;
+
+    /**
+     * The index after the last character of the gap.
+     */
+    private int gapEnd = MIN_GAP;
+
+    /**
+     * The cached text, or {@code null} if it has been edited since it was last built.
+     */
+    private String string = "";
+}
@@ -0,0 +1,48 @@
+package userinterface;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A class holding the immutable {@link Font}s and {@link Stroke}s
+ * that are shared by all UI elements, so that they are created once
+ * instead of once per element or once per paint.
+ */
+final class PaintResources {
+
+    /**
+     * This class only holds shared resources and can't be instantiated.
+     */
+    private PaintResources() { }
+
+    /**
+     * Retrieve the shared font with the given name, style and size.
+     *
+     * @param name: the name of the font, e.g. {@link Font#SANS_SERIF}.
+     * @param style: the style of the font, e.g. {@link Font#PLAIN}.
+     * @param size: the point size of the font.
+     * @return font: the shared {@link Font} with the given name, style and size.
+     */
+    static Font getFont(String name, int style, int size) {
+        String key = name + '-' + style + '-' + size;
+        synchronized (FONTS) {
+            return FONTS.computeIfAbsent(key, k -> new Font(name, style, size));
+        }
+    }
+
+    /**
+     * The stroke used to draw regular outlines.
+     */
+    static final BasicStroke THIN_STROKE = new BasicStroke(1);
+
+    /**
+     * The stroke used to draw highlighted outlines, e.g. of a focused input field.
+     */
+    static final BasicStroke THICK_STROKE = new BasicStroke(2);
+
+    /**
+     * The shared fonts, keyed by their name, style and size.
+     */
+    private static final Map<String, Font> FONTS = new HashMap<>();
+}
@@ -51,6 +51,12 @@ public class ReturnMessage {
         this.contentList = contentList;
     }
 
+    /**
+     * The shared {@code ReturnMessage} of the type {@code Empty},
+     * returned by elements that were not clicked.
+     */
+    public static final ReturnMessage EMPTY = new ReturnMessage(Type.Empty);
+
     /**
      * An enumeration of the possible types of ReturnMessages.
      */
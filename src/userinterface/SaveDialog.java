@@ -89,6 +89,17 @@ public class SaveDialog extends GenericDialogScreen {
         this.form.Render(g);
     }
 
+    /**
+     * Retrieve the out of date area of this {@code SaveDialog} and its form.
+     *
+     * @return dirtyRegion:
+     *              The {@link Rectangle} enclosing the out of date areas, or {@code null} if there are none.
+     */
+    @Override
+    public Rectangle collectDirtyRegion() {
+        return union(super.collectDirtyRegion(), form.collectDirtyRegion());
+    }
+
     /**
      * Handle mouse clicks on the content of this {@code SaveDialog}.
      *
@@ -0,0 +1,205 @@
+package userinterface;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class to measure the width of text in a given {@link Font}.
+ *
+ * <p>
+ *     There is one {@code TextMeasurer} per font and rendering context, shared by
+ *     all UI elements. It caches the {@link FontMetrics} of its font, the widths
+ *     of recently measured strings and the advances of the Latin-1 characters,
+ *     so that measuring the same text every frame doesn't cost a new measurement.
+ * </p>
+ */
+public class TextMeasurer {
+
+    /**
+     * Initialise this {@code TextMeasurer} with the given metrics.
+     *
+     * @param metrics: the {@link FontMetrics} of the font to be measured.
+     */
+    private TextMeasurer(FontMetrics metrics) {
+        this.metrics = metrics;
+        LineMetrics lineMetrics = metrics.getFont().getLineMetrics("", metrics.getFontRenderContext());
+        this.underlineOffset = Math.round(lineMetrics.getUnderlineOffset());
+        this.underlineThickness = Math.max(1, Math.round(lineMetrics.getUnderlineThickness()));
+    }
+
+    /**
+     * Retrieve the shared {@code TextMeasurer} for the given font,
+     * as it would be rendered with the given graphics.
+     *
+     * @param g: the graphics the text will be rendered with.
+     * @param font: the font the text will be rendered in.
+     * @return measurer: the {@code TextMeasurer} of the given font.
+     */
+    public static TextMeasurer forFont(Graphics g, Font font) {
+        FontRenderContext context = g instanceof Graphics2D ? ((Graphics2D) g).getFontRenderContext() : null;
+        synchronized (MEASURERS) {
+            Map<FontRenderContext, TextMeasurer> measurers = MEASURERS.computeIfAbsent(font, f -> new HashMap<>());
+            TextMeasurer measurer = measurers.get(context);
+            if (measurer == null) {
+                measurer = new TextMeasurer(g.getFontMetrics(font));
+                measurers.put(context, measurer);
+            }
+            return measurer;
+        }
+    }
+
+    /**
+     * Retrieve the shared {@code TextMeasurer} for the given font, as it would be
+     * rendered offscreen with the default rendering context, e.g. to measure text
+     * before it is rendered for the first time.
+     *
+     * @param font: the font the text will be rendered in.
+     * @return measurer: the {@code TextMeasurer} of the given font.
+     */
+    public static TextMeasurer forFont(Font font) {
+        return forFont(DEFAULT_GRAPHICS, font);
+    }
+
+    /**
+     * Retrieve the {@link FontMetrics} of the font of this {@code TextMeasurer}.
+     *
+     * @return metrics: the {@link FontMetrics} of this font.
+     */
+    public FontMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retrieve the height of a line of text in the font of this {@code TextMeasurer}.
+     *
+     * @return height: the height of a line of text.
+     */
+    public int getHeight() {
+        return metrics.getHeight();
+    }
+
+    /**
+     * Retrieve the distance from the baseline to the top of an underline in the font of this {@code TextMeasurer}.
+     *
+     * @return underlineOffset: the offset of an underline below the baseline.
+     */
+    public int getUnderlineOffset() {
+        return underlineOffset;
+    }
+
+    /**
+     * Retrieve the thickness of an underline in the font of this {@code TextMeasurer}.
+     *
+     * @return underlineThickness: the thickness of an underline, at least 1.
+     */
+    public int getUnderlineThickness() {
+        return underlineThickness;
+    }
+
+    /**
+     * Measure the width of the given text.
+     *
+     * @param text: the text to be measured.
+     * @return width: the width of the given text, as {@link FontMetrics#stringWidth(String)} would return it.
+     */
+    public synchronized int stringWidth(String text) {
+        Integer width = widths.get(text);
+        if (width == null) {
+            width = metrics.stringWidth(text);
+            widths.put(text, width);
+        }
+        return width;
+    }
+
+    /**
+     * Measure the width of the first characters of the given text,
+     * e.g. to find the position of a cursor in the text.
+     *
+     * <p>
+     *     Prefixes consisting of Latin-1 characters are measured by summing the
+     *     cached advances of their characters, without creating a substring.
+     * </p>
+     *
+     * @param text: the text of which a prefix is to be measured.
+     * @param end: the number of characters in the prefix.
+     * @return width: the width of the first {@code end} characters of the given text.
+     */
+    public synchronized int prefixWidth(CharSequence text, int end) {
+        if (advances == null)
+            advances = computeAdvances();
+        float width = 0;
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= advances.length)
+                return metrics.stringWidth(text.subSequence(0, end).toString());
+            width += advances[c];
+        }
+        // Round the same way as FontMetrics.stringWidth
+        return (int) (0.5 + width);
+    }
+
+    /**
+     * Compute the advances of the Latin-1 characters in the font of this {@code TextMeasurer}.
+     *
+     * @return advances: the advance of each Latin-1 character, indexed by that character.
+     */
+    private float[] computeAdvances() {
+        float[] result = new float[256];
+        char[] character = new char[1];
+        for (char c = 0; c < result.length; c++) {
+            character[0] = c;
+            result[c] = (float) metrics.getFont().getStringBounds(character, 0, 1, metrics.getFontRenderContext()).getWidth();
+        }
+        return result;
+    }
+
+    /**
+     * The maximum number of string widths cached per font.
+     */
+    private static final int MAX_CACHED_WIDTHS = 4096;
+
+    /**
+     * The graphics of an offscreen image, whose rendering context is the default one.
+     */
+    private static final Graphics DEFAULT_GRAPHICS = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+
+    /**
+     * The shared measurers, per font and rendering context.
+     */
+    private static final Map<Font, Map<FontRenderContext, TextMeasurer>> MEASURERS = new HashMap<>();
+
+    /**
+     * The {@link FontMetrics} of the font of this {@code TextMeasurer}.
+     */
+    private final FontMetrics metrics;
+
+    /**
+     * The distance from the baseline to the top of an underline.
+     */
+    private final int underlineOffset;
+
+    /**
+     * The thickness of an underline.
+     */
+    private final int underlineThickness;
+
+    /**
+     * The widths of recently measured strings, in least recently used order.
+     */
+    private final LinkedHashMap<String, Integer> widths = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_CACHED_WIDTHS;
+        }
+    };
+
+    /**
+     * The advances of the Latin-1 characters, or {@code null} if they haven't been computed yet.
+     */
+    private float[] advances;
+}
@@ -79,7 +79,7 @@ public class UIButton extends DocumentCell{
      * font of the text to be displayed
      * in this {@code UIButton}.
      */
-    private Font font = new Font(Font.SERIF, Font.PLAIN, textHeight);
+    private Font font = PaintResources.getFont(Font.SERIF, Font.PLAIN, textHeight);
 
     /**
      * An abstract class to represent the states
@@ -127,7 +127,7 @@ public class UIButton extends DocumentCell{
             buttonColor = Color.LIGHT_GRAY;
             contourColor = Color.BLACK;
             textColor = Color.BLACK;
-            font = new Font(Font.SERIF, Font.PLAIN, textHeight);
+            font = PaintResources.getFont(Font.SERIF, Font.PLAIN, textHeight);
         }
 
         /**
@@ -172,7 +172,7 @@ public class UIButton extends DocumentCell{
         public ReturnMessage getHandleMouse(int id, int x, int y, int clickCount, int button, int modifier) {
             if (wasClicked(x, y) && id == MouseEvent.MOUSE_PRESSED)
                 state = new Pressed();
-            return new ReturnMessage(ReturnMessage.Type.Empty);
+            return ReturnMessage.EMPTY;
         }
     }
 
@@ -190,7 +190,7 @@ public class UIButton extends DocumentCell{
             buttonColor = Color.GRAY;
             contourColor = Color.BLACK;
             textColor = Color.BLACK;
-            font = new Font(Font.SERIF, Font.ITALIC, textHeight);
+            font = PaintResources.getFont(Font.SERIF, Font.ITALIC, textHeight);
         }
 
         /**
@@ -215,9 +215,9 @@ public class UIButton extends DocumentCell{
             g.fillRoundRect(getxPos(), getyPos(), getWidth(), getHeight(), 3,3);
             g.setColor(contourColor);
             Graphics2D g2 = (Graphics2D) g;
-            g2.setStroke(new BasicStroke(2));
+            g2.setStroke(PaintResources.THICK_STROKE);
             g.drawRoundRect(getxPos(), getyPos(), getWidth(), getHeight(), 3,3);
-            g2.setStroke(new BasicStroke(1));
+            g2.setStroke(PaintResources.THIN_STROKE);
         }
 
         /**
@@ -235,9 +235,9 @@ public class UIButton extends DocumentCell{
          */
         @Override
         public ReturnMessage getHandleMouse(int id, int x, int y, int clickCount, int button, int modifier) {
-            if (id != MouseEvent.MOUSE_RELEASED) return new ReturnMessage(ReturnMessage.Type.Empty);
+            if (id != MouseEvent.MOUSE_RELEASED) return ReturnMessage.EMPTY;
             state = new NotPressed();
-            if (!wasClicked(x, y)) return new ReturnMessage(ReturnMessage.Type.Empty);
+            if (!wasClicked(x, y)) return ReturnMessage.EMPTY;
             return new ReturnMessage(ReturnMessage.Type.Button, returnText);
         }
     }
@@ -249,7 +249,11 @@ public class UIButton extends DocumentCell{
      */
     @Override
     public void Render(Graphics g) {
-        setWidth(g.getFontMetrics().stringWidth(displayText)*3/2);
+        int width = TextMeasurer.forFont(g, font).stringWidth(displayText)*3/2;
+        if (width != getWidth()) {
+            setWidth(width);
+            invalidateLayout();
+        }
         state.Render(g);
     }
 
@@ -267,7 +271,21 @@ public class UIButton extends DocumentCell{
      */
     @Override
     public ReturnMessage getHandleMouse(int id, int x, int y, int clickCount, int button, int modifier) {
-        return state.getHandleMouse(id, x, y, clickCount, button, modifier);
+        State previousState = state;
+        ReturnMessage result = state.getHandleMouse(id, x, y, clickCount, button, modifier);
+        if (state != previousState)
+            invalidate();
+        return result;
+    }
+
+    /**
+     * A {@code UIButton} has to receive releases outside of its area to stop being pressed.
+     *
+     * @return True: a {@code UIButton} receives all mouse events.
+     */
+    @Override
+    public boolean receivesMissedMouseEvents() {
+        return true;
     }
 
     /**
@@ -279,7 +297,7 @@ public class UIButton extends DocumentCell{
         g.setColor(textColor);
         g.setFont(font);
         int centerY = getyPos()+textHeight;
-        int textWidth = g.getFontMetrics().stringWidth(displayText);
+        int textWidth = TextMeasurer.forFont(g, font).stringWidth(displayText);
         int centerX = getxPos() + (getWidth()-textWidth)/2;
         g.drawString(displayText, centerX, centerY);
     }
@@ -24,6 +24,7 @@ public class UIForm extends DocumentCell {
         super(x, y, formContent.getMaxWidth(), formContent.getMaxHeight());
         this.action = action;
         this.formContent = formContent;
+        this.formContent.setContainer(this);
         this.formContent.setxPos(x);
         this.formContent.setyPos(y);
     }
@@ -60,6 +61,27 @@ public class UIForm extends DocumentCell {
         return response;
     }
 
+    /**
+     * A UIForm receives the mouse events outside of its area if its content does.
+     *
+     * @return True if and only if the content of this UIForm receives missed mouse events.
+     */
+    @Override
+    public boolean receivesMissedMouseEvents() {
+        return formContent.receivesMissedMouseEvents();
+    }
+
+    /**
+     * Set the {@link FocusManager} of this UIForm and of its content.
+     *
+     * @param focusManager: The new {@link FocusManager}, or {@code null}.
+     */
+    @Override
+    public void setFocusManager(FocusManager focusManager) {
+        super.setFocusManager(focusManager);
+        this.formContent.setFocusManager(focusManager);
+    }
+
     /**
      * Construct the string to be returned to the parent of this Form.
      *
@@ -86,6 +108,17 @@ public class UIForm extends DocumentCell {
         this.formContent.handleKey(id, keyCode, keyChar, modifiersEx);
     }
 
+    /**
+     * Retrieve the out of date area of this UIForm and its content.
+     *
+     * @return dirtyRegion:
+     *              The {@link Rectangle} enclosing the out of date areas, or {@code null} if there are none.
+     */
+    @Override
+    public Rectangle collectDirtyRegion() {
+        return union(super.collectDirtyRegion(), formContent.collectDirtyRegion());
+    }
+
     /**
      * Get the maximum height of this UIForm.
      *
@@ -2,8 +2,6 @@ package userinterface;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
-import java.awt.font.TextAttribute;
-import java.text.AttributedString;
 
 /**
  * A class to represent a hyperlink in the UI layer.
@@ -24,6 +22,7 @@ public class UIHyperlink extends UITextHyperlink{
         this.textHeight = link_size;
         this.textWidth = width;
         this.href = href;
+        measurer = TextMeasurer.forFont(hyperlinkFont);
         updateSizes();
         setWidth(getMaxWidth());
     }
@@ -39,29 +38,28 @@ public class UIHyperlink extends UITextHyperlink{
      */
     @Override
     public void Render(Graphics g) {
-        metrics = g.getFontMetrics(hyperlinkFont);
+        measurer = TextMeasurer.forFont(g, hyperlinkFont);
         updateSizes();
-        g.setColor(hyperlinkColor);
 
         // Underling the hyperlink
-        AttributedString link = new AttributedString(text);
-        link.addAttribute(TextAttribute.FONT, hyperlinkFont);
-        link.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
-
-        g.drawString(link.getIterator(), getxPos(), getyPos()+super.getMaxHeight());
+        drawLink(g, getyPos()+super.getMaxHeight());
 
         // Draw a rectangle around the text for debugging purposes
         //g.drawRect(getxPos(), getyPos(), getWidth(), getHeight());
     }
 
     /**
-     * Update the {@code textWidth} based on this {@code UIHyperlink} {@code href} attribute.
+     * Update the {@code textWidth} based on the text shown by this {@code UIHyperlink}.
      */
     private void updateSizes() {
         if (!isCalculateActualWidth()) textWidth =  (int) (super.getMaxHeight()*text.length()*heightToWidthRatio);
         else {
-            if (metrics == null) return;
-            textWidth = metrics.stringWidth(href);
+            if (measurer == null) return;
+            int width = measurer.stringWidth(text);
+            if (width != textWidth) {
+                textWidth = width;
+                invalidateLayout();
+            }
         }
     }
 
@@ -87,7 +85,7 @@ public class UIHyperlink extends UITextHyperlink{
             if (wasClicked(x, y))
                 return new ReturnMessage(ReturnMessage.Type.Hyperlink, this.href);
         }
-        return new ReturnMessage(ReturnMessage.Type.Empty);
+        return ReturnMessage.EMPTY;
     }
 
     /**
@@ -147,13 +145,9 @@ public class UIHyperlink extends UITextHyperlink{
     /**
      * A variable to denote the {@link Font} of the text of this UIHyperlink
      */
-    private final Font hyperlinkFont = new Font(Font.SANS_SERIF, Font.PLAIN, getHeight());
-    /**
-     * A variable to denote the {@link Color} of the text of this UIHyperlink
-     */
-    private final Color hyperlinkColor = Color.BLUE;
+    private final Font hyperlinkFont = PaintResources.getFont(Font.SANS_SERIF, Font.PLAIN, getHeight());
     /**
-     * A variable to denote the {@link FontMetrics} of the text of this UIHyperlink.
+     * A variable to denote the {@link TextMeasurer} of the text of this UIHyperlink.
      */
-    private FontMetrics metrics;
+    private TextMeasurer measurer;
 }
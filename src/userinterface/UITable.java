@@ -2,6 +2,7 @@ package userinterface;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * A class to represent tables in the UI layer.
@@ -25,8 +26,13 @@ public class UITable extends DocumentCell{
         this.grid = rows;
 
         // => 2. Set the dimensions of the table contents
-        setColumnWidths();
-        setRowHeights();
+        for (ArrayList<DocumentCell> row : grid)
+            for (DocumentCell cell : row)
+                cell.setContainer(this);
+        layOut();
+
+        // => 3. Index the cells that receive every mouse event
+        indexMissedMouseReceivers();
     }
 
     /**
@@ -36,14 +42,27 @@ public class UITable extends DocumentCell{
      */
     @Override
     public void Render(Graphics g) {
-        for (ArrayList<DocumentCell> row : grid) {
-            for (DocumentCell cell : row) {
-                cell.Render(g);
+        // Only the rows that overlap the clip are rendered
+        int first = 0;
+        int last = grid.size() - 1;
+        Rectangle clip = getClipBounds(g);
+        if (clip != null) {
+            first = firstRowEndingAfter(clip.y - DIRTY_MARGIN);
+            last = lastRowStartingBefore(clip.y + clip.height + DIRTY_MARGIN);
+        }
+        for (int i = first; i <= last; i++) {
+            // Indexed, so that painting doesn't allocate an iterator per row
+            ArrayList<DocumentCell> row = grid.get(i);
+            for (int j = 0; j < row.size(); j++) {
+                row.get(j).Render(g);
             }
         }
-        if (isCalculateActualWidth()) {
-            setColumnWidths();
-            setRowHeights();
+        // Rendering the cells may have measured new sizes for them. The cells that move
+        // were painted where they were, so both their old and new areas are repainted next.
+        if (!layoutValid) {
+            invalidate();
+            layOut();
+            invalidate();
         }
         // Draw a rectangle around the table for debugging purposes
         g.setColor(Color.BLACK);
@@ -51,10 +70,80 @@ public class UITable extends DocumentCell{
     }
 
     /**
-     * Handle mouse events by forwarding the click to each cell.
+     * Find the first row of this {@code UITable} that ends at or below the given y coordinate,
+     * using a binary search over the tops and heights of the rows.
+     *
+     * @param y: The y coordinate.
+     * @return index: The index of the first row ending at or below {@code y},
+     *                or the number of rows if there is no such row.
+     */
+    private int firstRowEndingAfter(int y) {
+        int low = 0;
+        int high = rowTops.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (rowTops[middle] + rowHeights[middle] < y)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Find the last row of this {@code UITable} that starts at or above the given y coordinate,
+     * using a binary search over the tops of the rows.
+     *
+     * @param y: The y coordinate.
+     * @return index: The index of the last row starting at or above {@code y},
+     *                or -1 if there is no such row.
+     */
+    private int lastRowStartingBefore(int y) {
+        return lastStartingBefore(rowTops, y);
+    }
+
+    /**
+     * Find the last column of this {@code UITable} that starts at or left of the given x coordinate,
+     * using a binary search over the left edges of the columns.
+     *
+     * @param x: The x coordinate.
+     * @return index: The index of the last column starting at or left of {@code x},
+     *                or -1 if there is no such column.
+     */
+    private int lastColumnStartingBefore(int x) {
+        return lastStartingBefore(columnLefts, x);
+    }
+
+    /**
+     * Find the last of the given increasing coordinates that is at most the given coordinate.
+     *
+     * @param starts: The increasing coordinates.
+     * @param value: The coordinate to look up.
+     * @return index: The index of the last coordinate at most {@code value}, or -1 if there is none.
+     */
+    private static int lastStartingBefore(int[] starts, int value) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low - 1;
+    }
+
+    /**
+     * Handle mouse events by forwarding the click to the cell under it,
+     * and to the cells that receive missed mouse events (e.g. to lose focus).
      * If a cell returns something (=href) this method returns this.
      * Else, it returns the empty string (= "")
      *
+     * <p>The cell under the click is found with a binary search over the rows and columns,
+     *    the other cells are not visited. The cells receive the event in the order of the grid,
+     *    as if it were sent to every cell.</p>
+     *
      * @param id: The type of mouse action
      * @param x: The x coordinate of the mouse action.
      * @param y: The y coordinate of the mouse action.
@@ -68,14 +157,60 @@ public class UITable extends DocumentCell{
     @Override
     public ReturnMessage getHandleMouse(int id, int x, int y, int clickCount, int button, int modifier) {
         ReturnMessage result;
-        for (ArrayList<DocumentCell> row : grid) {
-            for (DocumentCell cell : row) {
-                // Let all the cells handle their click, and if the click ended up on a hyperlink, the href is passed into result
-                result = cell.getHandleMouse(id, x, y, clickCount, button, modifier);
-                if (result.getType() != ReturnMessage.Type.Empty) return result;
+        int hitRow = lastRowStartingBefore(y);
+        int hitColumn = hitRow < 0 ? -1 : lastColumnStartingBefore(x);
+        DocumentCell hit = hitColumn < 0 || hitColumn >= grid.get(hitRow).size() ? null : grid.get(hitRow).get(hitColumn);
+        for (int i = 0; i < missedMouseReceiverRows.length; i++) {
+            int row = missedMouseReceiverRows[i];
+            int column = missedMouseReceiverColumns[i];
+            if (hit != null && (hitRow < row || (hitRow == row && hitColumn <= column))) {
+                // The cell under the click comes before this cell in the grid
+                if (hitRow != row || hitColumn != column) {
+                    result = hit.getHandleMouse(id, x, y, clickCount, button, modifier);
+                    if (result.getType() != ReturnMessage.Type.Empty) return result;
+                }
+                hit = null;
+            }
+            // If the click ended up on a hyperlink, the href is passed into result
+            result = grid.get(row).get(column).getHandleMouse(id, x, y, clickCount, button, modifier);
+            if (result.getType() != ReturnMessage.Type.Empty) return result;
+        }
+        if (hit != null)
+            return hit.getHandleMouse(id, x, y, clickCount, button, modifier);
+        return ReturnMessage.EMPTY;
+    }
+
+    /**
+     * A {@code UITable} receives the mouse events outside of its area if one of its cells does.
+     *
+     * @return True if and only if one of the cells of this {@code UITable} receives missed mouse events.
+     */
+    @Override
+    public boolean receivesMissedMouseEvents() {
+        return missedMouseReceiverRows.length > 0;
+    }
+
+    /**
+     * Collect the positions of the cells that receive missed mouse events, in the order of the grid.
+     */
+    private void indexMissedMouseReceivers() {
+        int count = 0;
+        for (ArrayList<DocumentCell> row : grid)
+            for (DocumentCell cell : row)
+                if (cell.receivesMissedMouseEvents()) count++;
+        missedMouseReceiverRows = new int[count];
+        missedMouseReceiverColumns = new int[count];
+        count = 0;
+        for (int i = 0; i < grid.size(); i++) {
+            ArrayList<DocumentCell> row = grid.get(i);
+            for (int j = 0; j < row.size(); j++) {
+                if (row.get(j).receivesMissedMouseEvents()) {
+                    missedMouseReceiverRows[count] = i;
+                    missedMouseReceiverColumns[count] = j;
+                    count++;
+                }
             }
         }
-        return new ReturnMessage(ReturnMessage.Type.Empty);
     }
 
     /**
@@ -96,129 +231,209 @@ public class UITable extends DocumentCell{
     }
 
     /**
-     * Re-calculates the necessary widths and heights of the DocumentCells
+     * Set the {@link FocusManager} of this {@code UITable} and of its {@code DocumentCells},
+     * which register in the order of the grid.
+     *
+     * @param focusManager: The new {@link FocusManager}, or {@code null}.
+     */
+    @Override
+    public void setFocusManager(FocusManager focusManager) {
+        super.setFocusManager(focusManager);
+        for (ArrayList<DocumentCell> row : grid) {
+            for (DocumentCell cell : row) {
+                cell.setFocusManager(focusManager);
+            }
+        }
+    }
+
+    /**
+     * Re-calculates the necessary widths and heights of the DocumentCells,
+     * after letting the cells (e.g. nested tables) lay out their own contents.
      */
     @Override
     public void handleResize(int newWindowWidth, int newWindowHeight) {
+        for (ArrayList<DocumentCell> row : grid) {
+            for (DocumentCell cell : row) {
+                cell.handleResize(newWindowWidth, newWindowHeight);
+            }
+        }
+        layOut();
+    }
+
+    /**
+     * Set the widths of the columns and then the heights of the rows of this {@code UITable}.
+     */
+    private void layOut() {
         setColumnWidths();
         setRowHeights();
+        layoutValid = true;
+    }
+
+    /**
+     * The layout of this {@code UITable} is out of date once the size of one of its cells changed,
+     * and so is the layout of the table it is contained in.
+     */
+    @Override
+    protected void invalidateLayout() {
+        layoutValid = false;
+        super.invalidateLayout();
+    }
+
+    /**
+     * Retrieve the out of date area of this {@code UITable} and its cells.
+     *
+     * @return dirtyRegion:
+     *              The {@link Rectangle} enclosing the out of date areas, or {@code null} if there are none.
+     */
+    @Override
+    public Rectangle collectDirtyRegion() {
+        Rectangle region = super.collectDirtyRegion();
+        for (ArrayList<DocumentCell> row : grid) {
+            for (DocumentCell cell : row) {
+                region = union(region, cell.collectDirtyRegion());
+            }
+        }
+        return region;
     }
 
     /**
      * Returns the maximum height of the table.
-     * Only returns a useful answer after calling setRowHeights() to set the used ArrayList
+     * Only returns a useful answer after calling setRowHeights() to set the row heights
      */
     @Override
     public int getMaxHeight() {
-        int maxHeight = 0;
-        for (int height : rowHeights)
-            maxHeight += height + verticalOffset;
-        return maxHeight;
+        return totalHeight;
     }
 
     /**
      * Returns the maximum width of the table.
-     * Only returns a useful answer after colling setColumnWidths() to set the used ArrayList
+     * Only returns a useful answer after colling setColumnWidths() to set the column widths
      */
     @Override
     public int getMaxWidth() {
-        int maxWidth = 0;
-        for (int width : columnWidths)
-            maxWidth += width + horizontalOffset;
-        return maxWidth;
+        return totalWidth;
     }
 
     /**
      * This methods calculates the needed height of each row.
      * It also sets the desired height and y-position of the cells in {@code UITable}.
+     *
+     * <p>The rows are laid out in a single pass: the y-position of each row
+     *    is the running sum of the heights of the rows above it.</p>
      */
     public void setRowHeights() {
-        // Reset the array with the heights
-        rowHeights = new ArrayList<>();
-        // Iterate over the rows to find the highest cell in each row
-        int i = 0;
-        // Calculate the maximum height of the grid
-        for (ArrayList<DocumentCell> row : grid) {
+        if (rowHeights.length != grid.size()) {
+            rowHeights = new int[grid.size()];
+            rowTops = new int[grid.size()];
+        }
+        int top = getyPos();
+        for (int i = 0; i < rowHeights.length; i++) {
+            ArrayList<DocumentCell> row = grid.get(i);
+            // Find the highest cell in the row
             int max = 0;
             for (DocumentCell cell : row) {
                 int height = cell.getMaxHeight();
                 if (height > max) max = height;
             }
-            // Store the height if the highest cell in the row into an array
-            rowHeights.add(max);
-            // Set the height of each cell in the current row to this calculated height
+            rowHeights[i] = max;
+            rowTops[i] = top;
+            // Set the height and y-position of each cell in the current row
             for (DocumentCell cell : row) {
                 cell.setHeight(max);
-                // Also, the y-position needs to be updated. This is the y-position of the table + the heights of all the above cells
-                int offset = 0;
-                for (int j = 0; j < i; j++) offset += rowHeights.get(j)+verticalOffset;
-                cell.setyPos(getyPos()+offset);
+                cell.setyPos(top);
             }
-            i++;
+            top += max + verticalOffset;
         }
+        totalHeight = top - getyPos();
         // Set the height of the table to the max height of the table
-        setHeight(getMaxHeight());
+        setHeight(totalHeight);
     }
 
     /**
      * This methods calculates the needed width of each column.
      * It also sets the desired width and x-position of the cells in this {@code UITable}.
+     *
+     * <p>The columns are laid out in two passes over the cells: one to find the widest
+     *    cell of each column, and one to place the cells at the running sum of the
+     *    widths of the columns to their left.</p>
      */
     public void setColumnWidths() {
-        // Reset the array with the widths
-        columnWidths = new ArrayList<>();
-        // Iterate over the rows to update the array containing the widest cell per column
+        int columns = 0;
+        for (ArrayList<DocumentCell> row : grid)
+            columns = Math.max(columns, row.size());
+        if (columnWidths.length != columns) {
+            columnWidths = new int[columns];
+            columnLefts = new int[columns];
+        } else {
+            Arrays.fill(columnWidths, 0);
+        }
+        // Find the widest cell of each column
         for (ArrayList<DocumentCell> row : grid) {
             for (int i = 0; i < row.size(); i++) {
-                DocumentCell cell = row.get(i);
-                int width = cell.getMaxWidth();
-                // If there isn't already a max width for this column, just append it to the array
-                if (columnWidths.size() <= i)
-                    columnWidths.add(width);
-                // If there is, check to see whether this new cell is wider or not
-                else if (columnWidths.get(i) < width)
-                    // If it is wider, replace with newly found (wider) width
-                    columnWidths.set(i, width);
+                int width = row.get(i).getMaxWidth();
+                if (width > columnWidths[i]) columnWidths[i] = width;
             }
         }
-        // Set the width of each cell to the maximum width in its column
+        int left = getxPos();
+        for (int i = 0; i < columns; i++) {
+            columnLefts[i] = left;
+            left += columnWidths[i] + horizontalOffset;
+        }
+        totalWidth = left - getxPos();
+        // Set the width and x-position of each cell to those of its column
         for (ArrayList<DocumentCell> row : grid) {
             for (int i = 0; i < row.size(); i++) {
                 DocumentCell cell = row.get(i);
-                int width = columnWidths.get(i);
-                cell.setWidth(width);
-                // The x-position needs to be updated too. This is the x-pos of the table + the widths of all the cells to this cell's left
-                int offset = 0;
-                for (int j = 0; j < i; j++) offset += columnWidths.get(j)+horizontalOffset;
-                cell.setxPos(getxPos()+offset);
+                cell.setWidth(columnWidths[i]);
+                cell.setxPos(columnLefts[i]);
             }
         }
         // Set the width of the table to the max width of the table
-        setWidth(getMaxWidth());
+        setWidth(totalWidth);
     }
 
     /**
-     * Set the x position of this Table to the given value
+     * Set the x position of this Table to the given value.
+     * The column widths don't depend on the position, so the
+     * cells are moved along without laying out the columns again.
      *
      * @param xPos:
      *            The new x position this Table will be set to.
      */
     @Override
     public void setxPos(int xPos) {
+        int delta = xPos - getxPos();
         super.setxPos(xPos);
-        setColumnWidths();
+        if (delta == 0) return;
+        for (int i = 0; i < columnLefts.length; i++)
+            columnLefts[i] += delta;
+        for (ArrayList<DocumentCell> row : grid) {
+            for (DocumentCell cell : row) {
+                cell.setxPos(cell.getxPos() + delta);
+            }
+        }
     }
 
     /**
-     * Set the y position of this Table to the given value
+     * Set the y position of this Table to the given value.
+     * The row heights don't depend on the position, so the
+     * cells are moved along without laying out the rows again.
      *
      * @param yPos:
      *            The new y position this Table will be set to.
      */
     @Override
     public void setyPos(int yPos) {
+        int delta = yPos - getyPos();
         super.setyPos(yPos);
-        setRowHeights();
+        if (delta == 0) return;
+        for (int i = 0; i < rowTops.length; i++)
+            rowTops[i] += delta;
+        for (ArrayList<DocumentCell> row : grid) {
+            for (DocumentCell cell : row) {
+                cell.setyPos(cell.getyPos() + delta);
+            }
+        }
     }
 
     /**
@@ -286,14 +501,49 @@ public class UITable extends DocumentCell{
     private final ArrayList<ArrayList<DocumentCell>> grid;
 
     /**
-     * An {@link ArrayList} that contains integers that
-     * represent the heights of the rows in this Table.
+     * The heights of the rows in this Table.
+     */
+    private int[] rowHeights = new int[0];
+
+    /**
+     * The widths of the columns of this Table.
+     */
+    private int[] columnWidths = new int[0];
+
+    /**
+     * The y coordinates of the tops of the rows of this Table, in increasing order:
+     * the prefix sums of the row heights and vertical offsets.
+     */
+    private int[] rowTops = new int[0];
+
+    /**
+     * The x coordinates of the left edges of the columns of this Table:
+     * the prefix sums of the column widths and horizontal offsets.
+     */
+    private int[] columnLefts = new int[0];
+
+    /**
+     * The rows of the cells that receive missed mouse events, in the order of the grid.
+     */
+    private int[] missedMouseReceiverRows;
+
+    /**
+     * The columns of the cells that receive missed mouse events, in the order of the grid.
+     */
+    private int[] missedMouseReceiverColumns;
+
+    /**
+     * The sum of the heights of the rows of this Table, including their vertical offsets.
+     */
+    private int totalHeight;
+
+    /**
+     * The sum of the widths of the columns of this Table, including their horizontal offsets.
      */
-    private ArrayList<Integer> rowHeights = new ArrayList<>(); // Contains the height for each row
+    private int totalWidth;
 
     /**
-     * An {@link ArrayList} that contains integers that
-     * represent the widths of the columns of this Table.
+     * Whether the widths and heights of the cells of this Table still match their sizes.
      */
-    private ArrayList<Integer> columnWidths = new ArrayList<>(); // Contains the width for each column
+    private boolean layoutValid;
 }
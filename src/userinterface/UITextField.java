@@ -20,6 +20,7 @@ public class UITextField extends DocumentCell{
         super(x, y, width, text_size);
         textField = text;
         textHeight = text_size;
+        measurer = TextMeasurer.forFont(textFieldFont);
         updateSizes();
         setWidth(getMaxWidth());
     }
@@ -33,7 +34,7 @@ public class UITextField extends DocumentCell{
      */
     @Override
     public void Render(Graphics g) {
-        metrics = g.getFontMetrics(textFieldFont);
+        measurer = TextMeasurer.forFont(g, textFieldFont);
         updateSizes();
         g.setColor(textFieldColor);
         g.setFont(textFieldFont);
@@ -48,8 +49,12 @@ public class UITextField extends DocumentCell{
     private void updateSizes() {
         if (!isCalculateActualWidth()) textWidth =  (int) (textHeight*textField.length()*heightToWidthRatio);
         else {
-            if (metrics == null) return;
-            textWidth = metrics.stringWidth(textField);
+            if (measurer == null) return;
+            int width = measurer.stringWidth(textField);
+            if (width != textWidth) {
+                textWidth = width;
+                invalidateLayout();
+            }
         }
     }
 
@@ -100,14 +105,14 @@ public class UITextField extends DocumentCell{
     /**
      * A variable to denote the {@link Font} used for the text of this UITextField.
      */
-    private final Font textFieldFont = new Font(Font.SANS_SERIF, Font.PLAIN, getHeight());
+    private final Font textFieldFont = PaintResources.getFont(Font.SANS_SERIF, Font.PLAIN, getHeight());
     /**
      * A variable to denote the {@link Color} used for the text of this UITextField.
      */
     private final Color textFieldColor = Color.BLACK;
     
     /**
-     * A variable to denote the {@link FontMetrics} used for the text of this UITextField.
+     * A variable to denote the {@link TextMeasurer} used for the text of this UITextField.
      */
-    private FontMetrics metrics;
+    private TextMeasurer measurer;
 }
@@ -2,8 +2,6 @@ package userinterface;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
-import java.awt.font.TextAttribute;
-import java.text.AttributedString;
 
 /**
  * A class to represent a hyperlink in the UI layer.
@@ -23,6 +21,7 @@ public class UITextHyperlink extends DocumentCell {
         super(x, y, width, link_size);
         this.text = text;
         textHeight = link_size;
+        measurer = TextMeasurer.forFont(hyperlinkFont);
 
         // TODO: Decide whether the following two calls can be omitted in this class's constructor:
         updateSizes();
@@ -39,25 +38,48 @@ public class UITextHyperlink extends DocumentCell {
      */
     @Override
     public void Render(Graphics g) {
-        metrics = g.getFontMetrics(hyperlinkFont);
+        measurer = TextMeasurer.forFont(g, hyperlinkFont);
         updateSizes();
-        AttributedString link = new AttributedString(text);
-        g.setColor(Color.BLUE);
-        link.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON);
-        g.drawString(link.getIterator(), getxPos(), getyPos()+textHeight);
+        drawLink(g, getyPos()+textHeight);
 
         // Draw a rectangle around the text for debugging purposes
 //        g.drawRect(getxPos(), getyPos(), getWidth(), getHeight());
     }
 
+    /**
+     * Draw the text of this {@code UITextHyperlink} in blue and underlined.
+     *
+     * <p>The underline is drawn as a rectangle below the text, instead of rendering
+     *    a new underlined {@code AttributedString} each paint. Its width is only
+     *    measured again when the font or rendering context changes.</p>
+     *
+     * @param g: The graphics that will be updated
+     * @param baseline: The y coordinate of the baseline of the text
+     */
+    protected void drawLink(Graphics g, int baseline) {
+        TextMeasurer linkMeasurer = TextMeasurer.forFont(g, hyperlinkFont);
+        if (linkMeasurer != this.linkMeasurer) {
+            this.linkMeasurer = linkMeasurer;
+            this.linkWidth = linkMeasurer.stringWidth(text);
+        }
+        g.setColor(Color.BLUE);
+        g.setFont(hyperlinkFont);
+        g.drawString(text, getxPos(), baseline);
+        g.fillRect(getxPos(), baseline + linkMeasurer.getUnderlineOffset(), linkWidth, linkMeasurer.getUnderlineThickness());
+    }
+
     /**
      * Update the {@code textWidth} based on this {@code UIHyperlink} {@code href} attribute.
      */
     private void updateSizes() {
         if (!isCalculateActualWidth()) textWidth =  (int) (textHeight*text.length()*heightToWidthRatio);
         else {
-            if (metrics == null) return;
-            textWidth = metrics.stringWidth(text);
+            if (measurer == null) return;
+            int width = measurer.stringWidth(text);
+            if (width != textWidth) {
+                textWidth = width;
+                invalidateLayout();
+            }
         }
     }
 
@@ -83,7 +105,7 @@ public class UITextHyperlink extends DocumentCell {
             if (wasClicked(x, y))
                 return new ReturnMessage(ReturnMessage.Type.Hyperlink, this.text);
         }
-        return new ReturnMessage(ReturnMessage.Type.Empty);
+        return ReturnMessage.EMPTY;
     }
 
     /**
@@ -132,10 +154,18 @@ public class UITextHyperlink extends DocumentCell {
     /**
      * A variable to denote the {@link Font} of the text of this UIHyperlink
      */
-    private final Font hyperlinkFont = new Font(Font.SANS_SERIF, Font.PLAIN, getHeight());
+    private final Font hyperlinkFont = PaintResources.getFont(Font.SANS_SERIF, Font.PLAIN, getHeight());
+    /**
+     * A variable to denote the {@link TextMeasurer} of the text of this UIHyperlink.
+     */
+    private TextMeasurer measurer;
+    /**
+     * A variable to denote the {@link TextMeasurer} the underline of this UIHyperlink was last measured with.
+     */
+    private TextMeasurer linkMeasurer;
     /**
-     * A variable to denote the {@link FontMetrics} of the text of this UIHyperlink.
+     * An integer variable to denote the width of the underline of this UIHyperlink.
      */
-    private FontMetrics metrics;
+    private int linkWidth;
 }
 
@@ -80,7 +80,26 @@ public class UITextInputField extends DocumentCell{
     private void printText(Graphics g){
         g.setColor(textColor);
         g.setFont(font);
-        g.drawString(this.getText(), this.textStart+getxPos(), this.getyPos()+this.getHeight()-(this.getHeight()/5));
+        g.drawString(this.getText(), this.textStart+getxPos(), getTextBaseline());
+    }
+
+    /**
+     * Retrieve the y coordinate of the baseline of the text, slightly higher than the underside of this input field.
+     *
+     * @return baseline: the y coordinate of the baseline.
+     */
+    int getTextBaseline() {
+        return this.getyPos()+this.getHeight()-(this.getHeight()/5);
+    }
+
+    /**
+     * Retrieve the x coordinate at which the text ends, as measured by the last render.
+     *
+     * @return x: the x coordinate right after the last character of the text.
+     */
+    int getTextEndX() {
+        int width = measurer == null ? 0 : measurer.prefixWidth(this.text, this.text.length());
+        return width+this.getxPos()+textStart;
     }
 
     /**
@@ -93,20 +112,21 @@ public class UITextInputField extends DocumentCell{
     }
 
     /**
-     * This gets the metrics of the normalFont and uses it to determine the position of the cursor on screen.
-     * The metrics include information about the width of the characters in that normalFont.
+     * This gets the {@link TextMeasurer} of the normalFont and uses it to determine the position of the cursor on screen.
+     * The measurer knows the width of the characters in that normalFont.
      * The idea here is to ask the distance from the beginning of the url to the cursorindex (=this.cursor)
      *
      * @param g: The graphics that contain the information to be printed
      */
     private void setFontMetrics(Graphics g) {
-        this.metrics = g.getFontMetrics(font);
+        this.measurer = TextMeasurer.forFont(g, font);
         int offset = 0;
-        if (getText().length() == 0) {
+        if (text.length() == 0) {
         	offset = cursorOffset;
         }
-        this.cursorPos = new int[] {metrics.stringWidth(this.getText().substring(0,this.cursor))+this.getxPos()+(textStart)+offset, getCursorYPos()};
-        this.textHeight = metrics.getHeight();
+        this.cursorPos[0] = measurer.prefixWidth(this.text, this.cursor)+this.getxPos()+(textStart)+offset;
+        this.cursorPos[1] = getCursorYPos();
+        this.textHeight = measurer.getHeight();
     }
 
     /**
@@ -116,10 +136,11 @@ public class UITextInputField extends DocumentCell{
     private void updateSelectStart() {
         if (this.doSelect) return;
         this.selectStart = this.cursor;
-        if (metrics == null) return;
+        if (measurer == null) return;
         int offset = 0;
-        if (getText().length() == 0) offset = cursorOffset;
-        this.selectStartPos = new int[] {metrics.stringWidth(this.getText().substring(0,this.selectStart))+this.getxPos()+(textStart), this.getyPos()};
+        if (text.length() == 0) offset = cursorOffset;
+        this.selectStartPos[0] = measurer.prefixWidth(this.text, this.selectStart)+this.getxPos()+(textStart);
+        this.selectStartPos[1] = this.getyPos();
     }
 
     /**
@@ -147,12 +168,12 @@ public class UITextInputField extends DocumentCell{
         Graphics2D g2 = (Graphics2D) g;
         if (hasFocus) {
             g.setColor(focusColor);
-            g2.setStroke(new BasicStroke(2));
+            g2.setStroke(PaintResources.THICK_STROKE);
         }
         // Draw a normal rectangle or a rectangle with rounded corners
         //g.drawRect(this.getxPos(), this.getyPos(), this.getWidth(), this.getHeight());
         g.drawRoundRect(this.getxPos(), this.getyPos(), this.getWidth(), this.getHeight(), 3,3);
-        g2.setStroke(new BasicStroke(1));
+        g2.setStroke(PaintResources.THIN_STROKE);
     }
 
     /**
@@ -200,7 +221,27 @@ public class UITextInputField extends DocumentCell{
     @Override
     public ReturnMessage getHandleMouse(int id, int x, int y, int clickCount, int button, int modifier) {
         handleMouse(id, x, y, clickCount, button, modifier);
-        return new ReturnMessage(ReturnMessage.Type.Empty);
+        return ReturnMessage.EMPTY;
+    }
+
+    /**
+     * A {@code UITextInputField} has to receive clicks outside of its area to lose its focus.
+     *
+     * @return True: a {@code UITextInputField} receives all mouse events.
+     */
+    @Override
+    public boolean receivesMissedMouseEvents() {
+        return true;
+    }
+
+    /**
+     * A {@code UITextInputField} can have focus to receive the text typed by the user.
+     *
+     * @return True: a {@code UITextInputField} is focusable.
+     */
+    @Override
+    public boolean isFocusable() {
+        return true;
     }
 
     /**
@@ -209,8 +250,9 @@ public class UITextInputField extends DocumentCell{
     private void resetSelectStart() {
         selectStart = 0;
         int offset = 0;
-        if (getText().length() == 0) offset = cursorOffset;
-        selectStartPos = new int[] {this.getxPos() + textStart + offset, this.getyPos()};
+        if (text.length() == 0) offset = cursorOffset;
+        selectStartPos[0] = this.getxPos() + textStart + offset;
+        selectStartPos[1] = this.getyPos();
     }
 
     /**
@@ -238,14 +280,26 @@ public class UITextInputField extends DocumentCell{
             case 10 -> handleEnter();
             case 8 -> handleRemoveCharacters(0); //act as backspace
             case 127 -> handleRemoveCharacters(1); //act as delete
-            case 35 -> moveCursor(this.getText().length());
-            case 36 -> moveCursor(-this.getText().length());
+            case 35 -> moveCursor(this.text.length());
+            case 36 -> moveCursor(-this.text.length());
             case 37 -> moveCursor(-1);
             case 39 -> moveCursor(1);
             default -> handleNoSpecialKey(id, keyCode, keyChar, modifiersEx);
         }
         this.doSelect = (keyCode == 39 || keyCode == 37 || keyCode == 35 || keyCode == 36) && modifiersEx == 64;
         updateSelectStart();
+        invalidate();
+    }
+
+    /**
+     * Mark this {@code UITextInputField} as out of date.
+     * Its text may extend beyond its right edge, so the area
+     * up to the right edge of the window is marked as well.
+     */
+    @Override
+    public void invalidate() {
+        invalidate(getxPos() - DIRTY_MARGIN, getyPos() - DIRTY_MARGIN,
+                Integer.MAX_VALUE / 2, getHeight() + 2 * DIRTY_MARGIN + 1);
     }
 
     /**
@@ -269,13 +323,12 @@ public class UITextInputField extends DocumentCell{
      * @param mode: if 0, function acts as backspace, else as delete
      */
     private void handleRemoveCharacters(int mode) {
-        if (getText().length() == 0) return;
-        StringBuilder newText = new StringBuilder(this.getText());
+        if (text.length() == 0) return;
         int start = Math.min(this.cursor, this.selectStart);
         int stop = Math.max(this.cursor, this.selectStart);
         if (doSelect) {
             //if (start != 0) start += 1;
-            newText.delete(start, stop);
+            text.delete(start, stop);
             if (cursor < selectStart) moveCursor(0);
             else moveCursor(start-stop);
         }
@@ -283,17 +336,17 @@ public class UITextInputField extends DocumentCell{
             if (mode == 0) {
                 int deleteindex = cursor-1;
                 if (deleteindex < 0) return;
-                newText.deleteCharAt(deleteindex);
+                text.delete(deleteindex, deleteindex+1);
                 moveCursor(-1);
             }
             else if (mode == 1) {
                 int deleteindex = cursor;
-                if (deleteindex == getText().length()) return;
-                newText.deleteCharAt(deleteindex);
+                if (deleteindex == text.length()) return;
+                text.delete(deleteindex, deleteindex+1);
                 moveCursor(0);
             }
         }
-        this.setText(newText.toString());
+        invalidate();
     }
 
     /**
@@ -318,9 +371,8 @@ public class UITextInputField extends DocumentCell{
                 (keyCode >= 150 && keyCode <= 153) || (keyCode >= 160 && keyCode <= 162) ||
                 (keyCode == 192) || (keyCode == 222)) {
             if (doSelect) handleRemoveCharacters(0);
-            StringBuilder newText = new StringBuilder(this.getText());
-            newText.insert(this.cursor, keyChar);
-            this.setText(newText.toString());
+            this.text.insert(this.cursor, keyChar);
+            invalidate();
             this.moveCursor(1);
         }
     }
@@ -331,16 +383,35 @@ public class UITextInputField extends DocumentCell{
      * @return the url string of this AddressBar.
      */
     public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Retrieve the current text without copying it.
+     *
+     * @return text: the characters of this input field, which change as the user types.
+     */
+    CharSequence getTextSequence() {
         return text;
     }
 
+    /**
+     * Check whether the cursor is after the last character of the text.
+     *
+     * @return True iff the cursor is at the end of the text.
+     */
+    boolean isCursorAtEnd() {
+        return this.cursor == this.text.length();
+    }
+
     /**
      * Set the text of the addressBar to a given text
      * @param text
      *        The new text for this Document
      */
     public void setText(String text) {
-        this.text = text;
+        this.text.set(text);
+        invalidate();
     }
 
     /**
@@ -349,8 +420,9 @@ public class UITextInputField extends DocumentCell{
      *        The String representation of the url to be set
      */
     public void changeTextTo(String text) {
-        this.text = text;
-        moveCursor(this.getText().length());
+        this.text.set(text);
+        invalidate();
+        moveCursor(this.text.length());
         updateSelectStart();
         toggleFocus(false);
     }
@@ -362,7 +434,7 @@ public class UITextInputField extends DocumentCell{
      * @param delta: The amount that the cursor should be moved.
      */
     void moveCursor(int delta) {
-        int textLength = this.getText().length();
+        int textLength = this.text.length();
         int newCursor = this.cursor + delta;
         if (newCursor > textLength) newCursor = textLength;
         if (newCursor < 0) newCursor = 0;
@@ -394,10 +466,10 @@ public class UITextInputField extends DocumentCell{
     private String name = "";
 
     /**
-     * A string variable to hold the
+     * A {@link GapBuffer} to hold the
      * current contents of this AddressBar
      */
-    private String text = ""; // The url starts off empty
+    private final GapBuffer text = new GapBuffer(); // The url starts off empty
 
     /**
      * An integer variable to denote the position
@@ -433,7 +505,7 @@ public class UITextInputField extends DocumentCell{
      *     <li>The current y coordinate of the cursor</li>
      * </ul>
      */
-    private int[] cursorPos = new int[] {this.getxPos() + (textStart) + cursorOffset, getCursorYPos()};
+    private final int[] cursorPos = new int[] {this.getxPos() + (textStart) + cursorOffset, getCursorYPos()};
 
     /**
      * A variable that holds the {@link Color}
@@ -461,7 +533,7 @@ public class UITextInputField extends DocumentCell{
      *     <li>The current y coordinate of the content selection action</li>
      * </ul>
      */
-    private int[] selectStartPos = new int[] {this.getxPos() + (textStart), this.getyPos()};
+    private final int[] selectStartPos = new int[] {this.getxPos() + (textStart), this.getyPos()};
 
     /**
      * A variable that denotes the {@link Color}
@@ -476,13 +548,13 @@ public class UITextInputField extends DocumentCell{
      * the text displayed in this AddressBar
      * should be typed in.
      */
-    Font font = new Font(Font.DIALOG_INPUT, Font.PLAIN, this.getHeight()*3/4);
+    Font font = PaintResources.getFont(Font.DIALOG_INPUT, Font.PLAIN, this.getHeight()*3/4);
 
     /**
-     * A variable to hold the {@link FontMetrics}
+     * A variable to hold the {@link TextMeasurer}
      * associated to the text in this AddressBar
      */
-    FontMetrics metrics;
+    TextMeasurer measurer;
 
     /**
      * An integer variable to denote the
@@ -0,0 +1,132 @@
+package canvaswindow;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Binary recording")
+class BinaryRecordingTest {
+
+    @Test
+    @DisplayName("reads back the items that were saved")
+    void saveAndRead() throws IOException {
+        int frameCount = BinaryRecordingWriter.KEYFRAME_INTERVAL + 10;
+        CanvasWindowRecording recording = new CanvasWindowRecording();
+        recording.items.add(new MouseEventItem(MouseEvent.MOUSE_DRAGGED, -5, 300, 1, MouseEvent.BUTTON1, 1024));
+        recording.items.add(new KeyEventItem(KeyEvent.KEY_TYPED, KeyEvent.VK_UNDEFINED, '\u00e9', 0));
+        for (int i = 0; i < frameCount; i++)
+            recording.items.add(new PaintItem(frame(i)));
+        for (int i = 1; i < recording.items.size(); i++)
+            recording.items.get(i).timestamp = 40000000000L + i;
+        Path path = directory.resolve("session" + BinaryRecordingWriter.EXTENSION);
+        recording.save(path.toString());
+        // Each frame after the keyframes only keeps the tile the moving square is in
+        assertTrue(Files.size(path) < 100 * 70 * 3);
+
+        try (BinaryRecordingReader reader = new BinaryRecordingReader(path)) {
+            assertEquals(frameCount + 2, reader.getItemCount());
+            assertEquals(frameCount + 1, reader.getLastPaintItem());
+            assertEquals(100, reader.getWidth());
+            assertEquals(70, reader.getHeight());
+            MouseEventItem mouse = (MouseEventItem) reader.next();
+            assertEquals(MouseEvent.MOUSE_DRAGGED, mouse.id);
+            assertEquals(-5, mouse.x);
+            assertEquals(300, mouse.y);
+            assertEquals(1024, mouse.modifiersEx);
+            assertEquals(RecordingItem.NO_TIMESTAMP, mouse.timestamp);
+            assertEquals('\u00e9', ((KeyEventItem) reader.next()).keyChar);
+            for (int i = 0; i < frameCount; i++) {
+                RecordingItem item = reader.next();
+                assertEquals(40000000000L + i + 2, item.timestamp);
+                assertArrayEquals(pixels(frame(i)), pixels(((PaintItem) item).getImage()));
+            }
+            assertFalse(reader.hasNext());
+
+            // Seeking decodes from the last keyframe
+            reader.seek(BinaryRecordingWriter.KEYFRAME_INTERVAL + 5);
+            assertArrayEquals(pixels(frame(BinaryRecordingWriter.KEYFRAME_INTERVAL + 3)), pixels(((PaintItem) reader.next()).getImage()));
+            reader.seek(3);
+            assertArrayEquals(pixels(frame(1)), pixels(((PaintItem) reader.next()).getImage()));
+            reader.seek(0);
+            assertTrue(reader.next() instanceof MouseEventItem);
+        }
+    }
+
+    @Test
+    @DisplayName("imports text recordings, which replay the same")
+    void importAndReplay() throws IOException {
+        Path text = directory.resolve("session.txt");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 1; i <= 3; i++) {
+            lines.append("KeyEvent KEY_TYPED 0 97 0\nPaint\n");
+            BufferedImage frame = new BufferedImage(600, 600, BufferedImage.TYPE_3BYTE_BGR);
+            Graphics g = frame.getGraphics();
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, 600, 600);
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, (i == 3 ? 2 : i) * 10, 10);
+            ImageIO.write(frame, "PNG", Path.of(PaintItem.imagePathOf(text.toString(), 2 * i - 1)).toFile());
+        }
+        Files.writeString(text, lines);
+        String binary = directory.resolve("session.brec").toString();
+        CanvasWindow.importRecording(text.toString(), binary);
+
+        ReplayResult fromText = new HeadlessReplay(new HeadlessReplayTest.KeyCounter()).replay(text.toString(), 1);
+        ReplayResult fromBinary = new HeadlessReplay(new HeadlessReplayTest.KeyCounter()).replay(binary, 1);
+        assertEquals(5, fromBinary.getMismatchItem());
+        assertEquals(fromText.getMismatchItem(), fromBinary.getMismatchItem());
+        assertEquals(fromText.getMismatchX(), fromBinary.getMismatchX());
+        assertEquals(fromText.getCheckedFrameCount(), fromBinary.getCheckedFrameCount());
+        assertEquals(5, new HeadlessReplay(new HeadlessReplayTest.KeyCounter()).replay(binary, 2).getMismatchItem());
+    }
+
+    @Test
+    @DisplayName("rejects files of another format or version")
+    void rejectOtherFiles() throws IOException {
+        Path path = directory.resolve("other.brec");
+        Files.writeString(path, "KeyEvent KEY_TYPED 0 97 0\nPaint\nPaint\nPaint\nPaint\n");
+        assertThrows(IOException.class, () -> new BinaryRecordingReader(path));
+
+        new CanvasWindowRecording().save(path.toString());
+        new BinaryRecordingReader(path).close();
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[BinaryRecordingWriter.MAGIC.length] = BinaryRecordingWriter.VERSION + 1;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> new BinaryRecordingReader(path));
+    }
+
+    /**
+     * A frame with a square that moves one pixel to the right in each frame.
+     */
+    private static BufferedImage frame(int index) {
+        BufferedImage image = new BufferedImage(100, 70, BufferedImage.TYPE_INT_RGB);
+        Graphics g = image.getGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 100, 70);
+        g.setColor(new Color(0x336699));
+        g.fillRect(10 + index % 20, 40, 5, 5);
+        return image;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData().clone();
+        for (int i = 0; i < pixels.length; i++)
+            pixels[i] &= 0xffffff;
+        return pixels;
+    }
+
+    @TempDir
+    Path directory;
+}
@@ -0,0 +1,85 @@
+package canvaswindow;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Frame encoder")
+class FrameEncoderTest {
+
+    @Test
+    @DisplayName("keeps only the tiles that changed")
+    void encodeChangedTiles() {
+        FrameEncoder encoder = new FrameEncoder(100, 70);
+        int[] frame = new int[100 * 70];
+        Arrays.fill(frame, 0xffffff);
+        int[][] expected = new int[6][];
+        for (int i = 0; i < expected.length; i++) {
+            if (i == 2)
+                frame[frame.length - 1] = 0x123456; // the last pixel, in a partial tile
+            if (i == 4)
+                Arrays.fill(frame, 0, 100, 0); // the first row, in four tiles
+            // Frames 1, 3 and 5 are identical to the frames before them
+            expected[i] = frame.clone();
+            assertEquals(i, encoder.submit(frame));
+        }
+        encoder.finish();
+
+        // Twelve tiles for the first frame, one for the third and four for the fifth
+        assertEquals(12 + 1 + 4, encoder.getStoredTileCount());
+        assertEquals(6, encoder.getFrameCount());
+        for (int i = 0; i < expected.length; i++)
+            assertArrayEquals(expected[i], pixels(encoder.decode(i)));
+        // Frames can be decoded again out of order
+        assertArrayEquals(expected[0], pixels(encoder.decode(0)));
+        assertThrows(IllegalArgumentException.class, () -> encoder.submit(new int[10]));
+        encoder.close();
+    }
+
+    @Test
+    @DisplayName("records what is painted in the repainted areas")
+    void recordRepaints(@TempDir Path directory) throws IOException {
+        String path = directory.resolve("session.txt").toString();
+        int[] color = {0x0000ff};
+        CanvasWindow window = new CanvasWindow("Recording") {
+            @Override
+            protected void paint(Graphics g) {
+                g.setColor(new Color(color[0]));
+                g.fillRect(0, 0, 600, 600);
+            }
+        };
+        window.recordSession(path);
+        BufferedImage screen = new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics g = screen.getGraphics();
+        window.paintRecordedFrame(g);
+        color[0] = 0xff0000;
+        // Only the top left corner is repainted, as after a repaint(0, 0, 10, 10)
+        g.setClip(0, 0, 10, 10);
+        window.paintRecordedFrame(g);
+
+        CanvasWindowRecording recording = window.getRecording();
+        recording.save(path);
+        BufferedImage second = ImageIO.read(new File(PaintItem.imagePathOf(path, 1)));
+        assertEquals(0xff0000, second.getRGB(5, 5) & 0xffffff);
+        assertEquals(0x0000ff, second.getRGB(50, 50) & 0xffffff);
+        assertEquals(0x0000ff, ImageIO.read(new File(PaintItem.imagePathOf(path, 0))).getRGB(5, 5) & 0xffffff);
+        assertEquals(0xff0000, screen.getRGB(5, 5) & 0xffffff);
+        // The first frame fills all tiles, the second only the top left one
+        assertEquals(19 * 19 + 1, recording.encoder.getStoredTileCount());
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
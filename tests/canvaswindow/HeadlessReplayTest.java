@@ -0,0 +1,184 @@
+package canvaswindow;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Headless replay")
+class HeadlessReplayTest {
+
+    @Test
+    @DisplayName("replays the input and compares the painted frames")
+    void replayFrames() {
+        CanvasWindowRecording recording = recording(3);
+        ReplayResult result = new HeadlessReplay(new KeyCounter()).replay(recording, 1);
+        assertTrue(result.isPassed());
+        assertEquals(6, result.getItemCount());
+        assertEquals(3, result.getCheckedFrameCount());
+        assertEquals(-1, result.getMismatchItem());
+
+        // The bar is one key short in the second frame
+        recording.items.set(3, new PaintItem(frame(1)));
+        result = new HeadlessReplay(new KeyCounter()).replay(recording, 1);
+        assertFalse(result.isPassed());
+        assertEquals(3, result.getMismatchItem());
+        assertEquals(4, result.getItemCount());
+        assertEquals(10, result.getMismatchX());
+        assertEquals(0, result.getMismatchY());
+    }
+
+    @Test
+    @DisplayName("only paints the frames that are checked")
+    void checkSomeFrames() {
+        CanvasWindowRecording recording = recording(5);
+        // Neither the second nor the fourth frame is checked when every third frame is
+        recording.items.set(3, new PaintItem(frame(0)));
+        recording.items.set(7, new PaintItem(frame(0)));
+        KeyCounter window = new KeyCounter();
+        ReplayResult result = new HeadlessReplay(window).replay(recording, 3);
+        assertTrue(result.isPassed());
+        assertEquals(2, result.getCheckedFrameCount());
+        assertEquals(2, window.paintCount);
+
+        window = new KeyCounter();
+        result = new HeadlessReplay(window).replay(recording, HeadlessReplay.FINAL_FRAME_ONLY);
+        assertTrue(result.isPassed());
+        assertEquals(1, result.getCheckedFrameCount());
+        assertEquals(1, window.paintCount);
+        assertEquals(5, window.keyCount);
+
+        assertEquals(3, new HeadlessReplay(new KeyCounter()).replay(recording, 2).getMismatchItem());
+        assertThrows(IllegalArgumentException.class, () -> new HeadlessReplay(new KeyCounter()).replay(recording, -1));
+    }
+
+    @Test
+    @DisplayName("measures the latency from each input event to the next paint")
+    void measureLatency() {
+        CanvasWindowRecording recording = recording(4);
+        for (int i = 0; i < recording.items.size(); i++)
+            recording.items.get(i).timestamp = 1000000L * i + (i % 2 == 0 ? 0 : 3000000);
+        KeyCounter window = new KeyCounter() {
+            @Override
+            protected void paint(Graphics g) {
+                long end = System.nanoTime() + 2000000;
+                while (System.nanoTime() < end)
+                    Thread.onSpinWait();
+                super.paint(g);
+            }
+        };
+        HeadlessReplay replay = new HeadlessReplay(window);
+        replay.setLatencyBudget(99, 1000000);
+        ReplayResult result = replay.replay(recording, HeadlessReplay.FINAL_FRAME_ONLY);
+        // Every frame that follows an input event is painted to measure it, but only the last one is checked
+        assertEquals(4, window.paintCount);
+        assertEquals(1, result.getCheckedFrameCount());
+        assertEquals(4, result.getLatency().getCount());
+        assertTrue(result.getLatency().getP50() >= 2000000);
+        assertTrue(result.isLatencyExceeded());
+        assertFalse(result.isPassed());
+        assertEquals(-1, result.getMismatchItem());
+        assertEquals(4, result.getRecordedLatency().getCount());
+        assertEquals(4000000, result.getRecordedLatency().getP99());
+
+        replay = new HeadlessReplay(new KeyCounter());
+        replay.setLatencyBudget(99, 10000000000L);
+        result = replay.replay(recording, HeadlessReplay.FINAL_FRAME_ONLY);
+        assertTrue(result.isPassed());
+        // Without measuring, the latencies of the recording are still reported
+        result = new HeadlessReplay(new KeyCounter()).replay(recording, HeadlessReplay.FINAL_FRAME_ONLY);
+        assertEquals(0, result.getLatency().getCount());
+        assertEquals(-1, result.getLatency().getP50());
+        assertEquals(4000000, result.getRecordedLatency().getP50());
+    }
+
+    @Test
+    @DisplayName("initialises the window as a recorded session")
+    void initialiseWindow() {
+        KeyCounter window = new KeyCounter();
+        assertFalse(window.isReproducibleSession());
+        new HeadlessReplay(window);
+        assertEquals(1, window.shownCount);
+        assertTrue(window.reproducibleWhenShown);
+
+        KeyCounter recorded = new KeyCounter();
+        recorded.recordSession("unused.txt");
+        assertTrue(recorded.isReproducibleSession());
+        recorded.getRecording().encoder.close();
+    }
+
+    @Test
+    @DisplayName("computes percentiles of latencies")
+    void percentiles() {
+        long[] latencies = new long[200];
+        for (int i = 0; i < latencies.length; i++)
+            latencies[i] = (latencies.length - i) * 10;
+        LatencySummary summary = new LatencySummary(latencies, 100);
+        assertEquals(100, summary.getCount());
+        // Only the first 100 latencies count, from 1010 to 2000
+        assertEquals(1500, summary.getP50());
+        assertEquals(1950, summary.getP95());
+        assertEquals(1990, summary.getP99());
+        assertEquals(1010, summary.getPercentile(0));
+        assertEquals(2000, summary.getPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> summary.getPercentile(101));
+    }
+
+    /**
+     * A recording of the given number of typed keys, each followed by a frame.
+     */
+    private static CanvasWindowRecording recording(int keys) {
+        CanvasWindowRecording recording = new CanvasWindowRecording();
+        for (int i = 1; i <= keys; i++) {
+            recording.items.add(new KeyEventItem(KeyEvent.KEY_TYPED, KeyEvent.VK_UNDEFINED, 'a', 0));
+            recording.items.add(new PaintItem(frame(i)));
+        }
+        return recording;
+    }
+
+    private static BufferedImage frame(int keys) {
+        BufferedImage image = new BufferedImage(600, 600, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = image.getGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 600, 600);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, keys * 10, 10);
+        return image;
+    }
+
+    /**
+     * A window that paints a bar that grows with each typed key.
+     */
+    static class KeyCounter extends CanvasWindow {
+        KeyCounter() {
+            super("Keys");
+        }
+
+        @Override
+        protected void handleKeyEvent(int id, int keyCode, char keyChar, int modifiersEx) {
+            if (id == KeyEvent.KEY_TYPED)
+                keyCount++;
+        }
+
+        @Override
+        protected void paint(Graphics g) {
+            paintCount++;
+            g.fillRect(0, 0, keyCount * 10, 10);
+        }
+
+        @Override
+        protected void handleShown() {
+            shownCount++;
+            reproducibleWhenShown = isReproducibleSession();
+        }
+
+        int keyCount;
+        int paintCount;
+        int shownCount;
+        boolean reproducibleWhenShown;
+    }
+}
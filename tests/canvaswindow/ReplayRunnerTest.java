@@ -0,0 +1,95 @@
+package canvaswindow;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Replay runner")
+class ReplayRunnerTest {
+
+    @Test
+    @DisplayName("replays all recordings under a directory and reports each of them")
+    void replayDirectory() throws IOException {
+        Files.createDirectory(directory.resolve("nested"));
+        Path passing = write(directory.resolve("a.txt"), 2, 2);
+        Path nested = write(directory.resolve("nested").resolve("b.txt"), 3, 3);
+        // The final frame shows one key fewer than were typed
+        Path failing = write(directory.resolve("c.txt"), 3, 2);
+        Path broken = write(directory.resolve("d.txt"), 1, 1);
+        Files.writeString(broken, "Scroll 5\nPaint\n");
+        Files.writeString(directory.resolve("notes.txt"), "Not a recording");
+        // A recording whose item lines were never written, next to its frames
+        Path empty = write(directory.resolve("e.txt"), 1, 1);
+        Files.writeString(empty, "");
+
+        assertEquals(List.of(passing, failing, broken, empty, nested), ReplayRunner.findRecordings(directory));
+        ReplayRunner runner = new ReplayRunner(HeadlessReplayTest.KeyCounter::new, 4);
+        runner.measureLatency();
+        List<ReplayRunner.Outcome> outcomes = runner.run(directory, HeadlessReplay.FINAL_FRAME_ONLY);
+        runner.close();
+
+        assertEquals(5, outcomes.size());
+        assertTrue(outcomes.get(0).isPassed());
+        assertEquals(4, outcomes.get(0).getResult().getItemCount());
+        assertEquals(1, outcomes.get(0).getResult().getCheckedFrameCount());
+        assertFalse(outcomes.get(1).isPassed());
+        assertEquals(5, outcomes.get(1).getResult().getMismatchItem());
+        assertEquals(20, outcomes.get(1).getResult().getMismatchX());
+        assertFalse(outcomes.get(2).isPassed());
+        assertNull(outcomes.get(2).getResult());
+        assertNotNull(outcomes.get(2).getError());
+        // Nothing was checked, so the empty recording doesn't pass
+        assertFalse(outcomes.get(3).isPassed());
+        assertEquals(0, outcomes.get(3).getResult().getItemCount());
+        assertEquals(0, outcomes.get(3).getResult().getCheckedFrameCount());
+        assertTrue(outcomes.get(4).isPassed());
+        assertEquals(nested, outcomes.get(4).getPath());
+
+        StringWriter report = new StringWriter();
+        ReplayRunner.writeReport(outcomes, new PrintWriter(report));
+        String json = report.toString();
+        assertTrue(json.contains("\"passed\": 2,"));
+        assertTrue(json.contains("\"failed\": 3,"));
+        assertTrue(json.contains("\"mismatch\": {\"item\": 5, \"x\": 20, \"y\": 0}"));
+        assertTrue(json.contains("\"mismatch\": null"));
+        assertTrue(json.contains("\"nanosPerItem\": "));
+        assertTrue(json.contains("\"error\": "));
+        assertTrue(json.contains("\"latency\": {\"count\": 2, \"p50\": "));
+        assertTrue(json.contains("\"recordedLatency\": null"));
+    }
+
+    /**
+     * Writes a recording of the given number of typed keys, each followed by a frame.
+     * The final frame shows the given number of keys.
+     */
+    private static Path write(Path path, int keys, int finalKeys) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= keys; i++) {
+            text.append("KeyEvent KEY_TYPED 0 97 0\nPaint\n");
+            BufferedImage frame = new BufferedImage(600, 600, BufferedImage.TYPE_3BYTE_BGR);
+            Graphics g = frame.getGraphics();
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, 600, 600);
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, (i == keys ? finalKeys : i) * 10, 10);
+            ImageIO.write(frame, "PNG", Path.of(PaintItem.imagePathOf(path.toString(), 2 * i - 1)).toFile());
+        }
+        Files.writeString(path, text);
+        return path;
+    }
+
+    @TempDir
+    Path directory;
+}
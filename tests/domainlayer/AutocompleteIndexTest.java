@@ -0,0 +1,121 @@
+package domainlayer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DisplayName("Autocomplete index")
+public class AutocompleteIndexTest {
+
+    @Test
+    @DisplayName("completes addresses with and without their scheme")
+    void completeAddresses() {
+        AutocompleteIndex index = new AutocompleteIndex();
+        index.recordVisit("https://www.example.com/index.html", NOW);
+        index.recordVisit("https://people.cs.kuleuven.be/bart.jacobs/browsrtest.html", NOW);
+
+        assertEquals(1, index.suggest("exa", values, keys));
+        assertEquals("https://www.example.com/index.html", values[0]);
+        assertEquals("example.com/index.html", keys[0]);
+        assertEquals(1, index.suggest("WWW.Ex", values, keys));
+        assertEquals("www.example.com/index.html", keys[0]);
+        assertEquals(1, index.suggest("https://p", values, keys));
+        assertEquals("https://people.cs.kuleuven.be/bart.jacobs/browsrtest.html", values[0]);
+        assertEquals(0, index.suggest("https://q", values, keys));
+        assertEquals(0, index.suggest("example.org", values, keys));
+        assertEquals(0, index.suggest("", values, keys));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("ranks frequent and recent visits first")
+    void rankByFrecency() {
+        AutocompleteIndex index = new AutocompleteIndex();
+        index.recordVisit("https://example.com/old", NOW - 4 * AutocompleteIndex.HALF_LIFE);
+        index.recordVisit("https://example.com/often", NOW - AutocompleteIndex.HALF_LIFE);
+        index.recordVisit("https://example.com/often", NOW - AutocompleteIndex.HALF_LIFE);
+        index.recordVisit("https://example.com/often", NOW - AutocompleteIndex.HALF_LIFE);
+        index.recordVisit("https://example.com/recent", NOW);
+
+        assertEquals(3, index.suggest("example.com/", values, keys));
+        assertArrayEquals(new String[] {"https://example.com/often", "https://example.com/recent", "https://example.com/old"}, values);
+
+        // A visit raises the old address above the others
+        for (int i = 0; i < 2; i++)
+            index.recordVisit("https://example.com/old", NOW);
+        assertEquals(3, index.suggest("https://", values, keys));
+        assertEquals("https://example.com/old", values[0]);
+
+        // Every address is suggested once, even if several of its keys match
+        index.recordVisit("http://e.com", NOW + 4 * AutocompleteIndex.HALF_LIFE);
+        String[] many = new String[8];
+        assertEquals(4, index.suggest("e", many, new String[8]));
+        assertEquals("http://e.com", many[0]);
+    }
+
+    @Test
+    @DisplayName("completes bookmark names")
+    void completeBookmarks() {
+        AutocompleteIndex index = new AutocompleteIndex();
+        index.recordVisit("https://tables.example.com/", NOW - AutocompleteIndex.HALF_LIFE);
+        index.addBookmark("Table test", "https://people.cs.kuleuven.be/bart.jacobs/browsrtest.html");
+
+        assertEquals(2, index.suggest("ta", values, keys));
+        assertEquals("https://people.cs.kuleuven.be/bart.jacobs/browsrtest.html", values[0]);
+        assertEquals("Table test", keys[0]);
+        assertEquals("tables.example.com/", keys[1]);
+
+        UIController controller = new UIController();
+        controller.addHref("Home", "https://example.com/home.html");
+        String[] urls = new String[1];
+        assertEquals(1, controller.suggestAddresses("ho", urls, new String[1]));
+        assertEquals("https://example.com/home.html", urls[0]);
+    }
+
+    @Test
+    @DisplayName("looks up completions among many addresses without allocating")
+    void manyAddresses() {
+        AutocompleteIndex index = new AutocompleteIndex();
+        for (int i = 0; i < 200000; i++)
+            index.recordVisit("https://host" + (i % 1000) + ".example.com/page/" + i, NOW - i * 60000L);
+        String[] prefixes = {"h", "host1", "host12.example.com/page/1", "https://host999", "nothing"};
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        for (int i = 0; i < 2000; i++)
+            index.suggest(prefixes[i % prefixes.length], values, keys);
+        long threadId = Thread.currentThread().getId();
+        long allocated = Long.MAX_VALUE;
+        long elapsed = 0;
+        for (int round = 0; round < 5 && allocated != 0; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < 1000; i++)
+                index.suggest(prefixes[i % prefixes.length], values, keys);
+            elapsed = System.nanoTime() - start;
+            allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        }
+        assertEquals(0, allocated);
+        // Far below a millisecond per lookup, with a wide margin for slow machines
+        assertTrue(elapsed < 1000 * 1000000L, "1000 lookups took " + elapsed + " ns");
+
+        assertEquals(3, index.suggest("host1", values, keys));
+        assertEquals("https://host1.example.com/page/1", values[0]);
+        assertEquals(3, index.suggest("h", values, keys));
+        assertArrayEquals(new String[] {"https://host0.example.com/page/0", "https://host1.example.com/page/1",
+                "https://host2.example.com/page/2"}, values);
+    }
+
+    /**
+     * A fixed time, so the scores of the tests don't depend on the clock.
+     */
+    private static final long NOW = 1700000000000L;
+
+    private final String[] values = new String[3];
+    private final String[] keys = new String[3];
+}
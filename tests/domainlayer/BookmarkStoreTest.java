@@ -0,0 +1,102 @@
+package domainlayer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Bookmark store")
+public class BookmarkStoreTest {
+
+    @BeforeEach
+    void createLog() {
+        log = directory.resolve("bookmarks.log");
+    }
+
+    @Test
+    @DisplayName("restores bookmarks in the order they were added")
+    void reopen() throws IOException {
+        BookmarkStore store = new BookmarkStore(log);
+        store.put("Table", "https://example.com/table.html");
+        store.put("Home", "https://example.com/");
+        store.put("Table", "https://example.com/new-table.html");
+        store.close();
+
+        BookmarkStore reopened = new BookmarkStore(log);
+        assertEquals(List.of("Table", "Home"), List.copyOf(reopened.getBookmarks().keySet()));
+        assertEquals("https://example.com/new-table.html", reopened.get("Table"));
+        assertEquals(3, reopened.getRecordCount());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("cuts off a record that was torn by a crash")
+    void tornRecord() throws IOException {
+        BookmarkStore store = new BookmarkStore(log);
+        store.put("Home", "https://example.com/");
+        store.put("Torn", "https://example.com/torn.html");
+        store.close();
+        long intact;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            intact = channel.size();
+            channel.truncate(intact - 3);
+        }
+
+        BookmarkStore reopened = new BookmarkStore(log);
+        assertEquals(List.of("Home"), List.copyOf(reopened.getBookmarks().keySet()));
+        // New records are appended after the last intact one
+        reopened.put("Other", "https://example.com/other.html");
+        reopened.close();
+        BookmarkStore again = new BookmarkStore(log);
+        assertEquals(List.of("Home", "Other"), List.copyOf(again.getBookmarks().keySet()));
+        again.close();
+    }
+
+    @Test
+    @DisplayName("compacts a log of mostly overwritten bookmarks")
+    void compact() throws IOException {
+        BookmarkStore store = new BookmarkStore(log);
+        for (int i = 0; i < BookmarkStore.COMPACTION_THRESHOLD - 1; i++)
+            store.put("Bookmark " + (i % 3), "https://example.com/" + i);
+        assertEquals(BookmarkStore.COMPACTION_THRESHOLD - 1, store.getRecordCount());
+        long size = Files.size(log);
+        store.put("Bookmark 3", "https://example.com/last");
+        assertEquals(4, store.getRecordCount());
+        assertTrue(Files.size(log) < size / 100);
+        store.put("Bookmark 4", "https://example.com/after");
+        store.close();
+
+        BookmarkStore reopened = new BookmarkStore(log);
+        assertEquals(List.of("Bookmark 0", "Bookmark 1", "Bookmark 2", "Bookmark 3", "Bookmark 4"),
+                List.copyOf(reopened.getBookmarks().keySet()));
+        assertEquals("https://example.com/" + (BookmarkStore.COMPACTION_THRESHOLD - 2), reopened.get("Bookmark " + ((BookmarkStore.COMPACTION_THRESHOLD - 2) % 3)));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("restores the bookmarks of an earlier session into the controller")
+    void persistentController() throws IOException {
+        UIController first = new UIController();
+        first.addHref("Early", "https://example.com/early.html");
+        first.enablePersistentBookmarks(log);
+        first.addHref("Late", "https://example.com/late.html");
+
+        UIController second = new UIController();
+        second.enablePersistentBookmarks(log);
+        assertEquals(List.of("Early", "Late"), second.getBookmarkNames());
+        assertEquals("https://example.com/late.html", second.getURLFromBookmark("Late"));
+    }
+
+    @TempDir
+    Path directory;
+    private Path log;
+}
@@ -0,0 +1,69 @@
+package domainlayer;
+
+import browsrhtml.ContentSpanBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Content span snapshots")
+public class ContentSpanSnapshotTest {
+
+    @Test
+    @DisplayName("restore every kind of content")
+    void roundTrip() throws IOException {
+        ContentSpan page = ContentSpanBuilder.buildContentSpan(new StringReader(
+                "<table>" +
+                "<tr><td>Caf\u00e9 \u03b1\u03b2" +
+                "<tr><td><a href=\"a.html\">Link</a><td><a href=\"a.html\">Link</a>" +
+                "<tr><td><form action=\"search\"><table><tr><td><input type=\"text\" name=\"q\">" +
+                "<td><input type=\"submit\"></table></form>" +
+                "</table>"));
+        ContentSpan restored = ContentSpanSnapshot.decode(ByteBuffer.wrap(ContentSpanSnapshot.encode(page)));
+
+        List<TableRow> rows = ((Table) restored).getRows();
+        assertEquals(3, rows.size());
+        assertEquals("Caf\u00e9 \u03b1\u03b2", ((TextSpan) rows.get(0).getCells().get(0).getContent()).getText());
+        HyperLink link = (HyperLink) rows.get(1).getCells().get(1).getContent();
+        assertEquals("a.html", link.getHref());
+        assertEquals("Link", link.getTextSpan().getText());
+        Form form = (Form) rows.get(2).getCells().get(0).getContent();
+        assertEquals("search", form.getAction());
+        List<TableCell> formCells = ((Table) form.getContent()).getRows().get(0).getCells();
+        assertEquals("q", ((TextInputField) formCells.get(0).getContent()).getName());
+        assertTrue(formCells.get(1).getContent() instanceof SubmitButton);
+    }
+
+    @Test
+    @DisplayName("store repeated strings once")
+    void stringTable() throws IOException {
+        TableRow row = new TableRow(List.of(
+                new TableCell(new HyperLink("https://example.com/a-long-address", new TextSpan("Repeated link text"))),
+                new TableCell(new HyperLink("https://example.com/a-long-address", new TextSpan("Repeated link text")))));
+        byte[] once = ContentSpanSnapshot.encode(new Table(List.of(row)));
+        byte[] twice = ContentSpanSnapshot.encode(new Table(List.of(row, row)));
+        // The second row only adds its tags and string indices
+        assertEquals(10, twice.length - once.length);
+        assertNull(ContentSpanSnapshot.decode(ByteBuffer.wrap(ContentSpanSnapshot.encode(null))));
+    }
+
+    @Test
+    @DisplayName("reject corrupt and unknown snapshots")
+    void corruptSnapshots() {
+        byte[] snapshot = ContentSpanSnapshot.encode(new TextSpan("Text"));
+        assertThrows(IOException.class, () -> ContentSpanSnapshot.decode(ByteBuffer.wrap(Arrays.copyOf(snapshot, snapshot.length - 2))));
+        byte[] version = snapshot.clone();
+        version[4] = 2;
+        assertThrows(IOException.class, () -> ContentSpanSnapshot.decode(ByteBuffer.wrap(version)));
+        byte[] tag = snapshot.clone();
+        tag[tag.length - 2] = 42;
+        assertThrows(IOException.class, () -> ContentSpanSnapshot.decode(ByteBuffer.wrap(tag)));
+        assertThrows(IllegalArgumentException.class, () -> ContentSpanSnapshot.encode(new ContentSpan() { }));
+    }
+}
@@ -0,0 +1,161 @@
+package domainlayer;
+
+import browsrhtml.ContentSpanBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Disk page cache")
+public class DiskPageCacheTest {
+
+    @Test
+    @DisplayName("keeps pages between sessions")
+    void reopen() throws Exception {
+        URL url = new URL("https://example.com/index.html");
+        DiskPageCache cache = new DiskPageCache(directory.resolve("cache"), 1024);
+        cache.put(url, page("<a href=\"next.html\">Next</a>"), "\"v1\"", 1000);
+        cache.close();
+
+        DiskPageCache reopened = new DiskPageCache(directory.resolve("cache"), 1024);
+        assertEquals(1, reopened.getEntryCount());
+        assertEquals(cache.getSize(), reopened.getSize());
+        DiskPageCache.StoredPage stored = reopened.get(url);
+        HyperLink link = (HyperLink) stored.getPage().getContentSpan();
+        assertEquals("next.html", link.getHref());
+        assertEquals("\"v1\"", stored.getETag());
+        assertEquals(1000, stored.getLastModified());
+        assertEquals(28, stored.getPage().getSource().getSize());
+        assertNull(reopened.get(new URL("https://example.com/other.html")));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("keeps empty slots in the index after many pages were removed")
+    void churnPages() throws Exception {
+        DiskPageCache cache = new DiskPageCache(directory.resolve("cache"), 1 << 20, 16);
+        for (int i = 0; i < 200; i++) {
+            cache.put(new URL("https://example.com/" + i + ".html"), page("Page " + i), null, 0);
+            if (i % 3 == 0)
+                cache.remove(new URL("https://example.com/" + (i / 2) + ".html"));
+        }
+        // Sixteen slots hold at most twelve pages, and every other slot is empty again
+        assertEquals(16 - cache.getEntryCount(), cache.getEmptySlotCount());
+        int found = 0;
+        for (int i = 0; i < 200; i++)
+            if (cache.get(new URL("https://example.com/" + i + ".html")) != null)
+                found++;
+        assertEquals(cache.getEntryCount(), found);
+        assertNotNull(cache.get(new URL("https://example.com/199.html")));
+        cache.close();
+
+        DiskPageCache reopened = new DiskPageCache(directory.resolve("cache"), 1 << 20, 16);
+        assertEquals(found, reopened.getEntryCount());
+        assertNotNull(reopened.get(new URL("https://example.com/199.html")));
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("evicts the least recently used pages")
+    void evictPages() throws Exception {
+        DiskPageCache cache = new DiskPageCache(directory.resolve("cache"), 1024, 4);
+        URL[] urls = new URL[4];
+        for (int i = 0; i < urls.length; i++)
+            urls[i] = new URL("https://example.com/" + i + ".html");
+
+        cache.put(urls[0], page("Page 0"), null, 0);
+        cache.put(urls[1], page("Page 1"), null, 0);
+        cache.put(urls[2], page("Page 2"), null, 0);
+        // Four slots hold at most three pages
+        assertNotNull(cache.get(urls[0]));
+        cache.put(urls[3], page("Page 3"), null, 0);
+        assertEquals(3, cache.getEntryCount());
+        assertNull(cache.get(urls[1]));
+        assertNotNull(cache.get(urls[0]));
+
+        // Pages are evicted once their total size exceeds the bound
+        long pageSize = cache.getSize() / 3;
+        DiskPageCache small = new DiskPageCache(directory.resolve("small"), 2 * pageSize);
+        for (URL url : urls)
+            small.put(url, page("Page " + url.getPath().charAt(1)), null, 0);
+        assertEquals(2, small.getEntryCount());
+        assertEquals(2 * pageSize, small.getSize());
+        assertNull(small.get(urls[1]));
+        assertNotNull(small.get(urls[3]));
+        try (Stream<Path> files = Files.list(directory.resolve("small"))) {
+            assertEquals(3, files.count());
+        }
+        cache.close();
+        small.close();
+    }
+
+    @Test
+    @DisplayName("drops corrupt pages and indices")
+    void corruptFiles() throws Exception {
+        URL url = new URL("https://example.com/index.html");
+        DiskPageCache cache = new DiskPageCache(directory.resolve("cache"), 1024);
+        cache.put(url, page("Text"), null, 0);
+        Path data = directory.resolve("cache").resolve(String.format("%016x", DiskPageCache.hash(url.toExternalForm())) + ".page");
+        Files.write(data, new byte[] {1, 2, 3});
+        assertNull(cache.get(url));
+        assertEquals(0, cache.getEntryCount());
+        assertFalse(Files.exists(data));
+
+        cache.put(url, page("Text"), null, 0);
+        cache.close();
+        // An index with another layout is discarded together with its pages
+        DiskPageCache resized = new DiskPageCache(directory.resolve("cache"), 1024, 16);
+        assertEquals(0, resized.getEntryCount());
+        assertNull(resized.get(url));
+        assertFalse(Files.exists(data));
+        resized.close();
+    }
+
+    @Test
+    @DisplayName("serves revalidated pages to a new page cache without parsing them")
+    void restoreIntoPageCache() throws Exception {
+        Path file = directory.resolve("page.html");
+        Files.writeString(file, "<a href=\"a.html\">Stored</a>");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1000000));
+        URL url = file.toUri().toURL();
+
+        PageCache first = new PageCache(4, 1024);
+        first.setDiskCache(new DiskPageCache(directory.resolve("cache"), 1024));
+        first.load(url, ContentSpanBuilder::buildContentSpan);
+        first.getDiskCache().close();
+
+        PageCache second = new PageCache(4, 1024);
+        second.setDiskCache(new DiskPageCache(directory.resolve("cache"), 1024));
+        Page page = second.load(url, reader -> fail("A stored page must not be parsed again"));
+        assertEquals("Stored", ((HyperLink) page.getContentSpan()).getTextSpan().getText());
+        assertEquals(1, second.getHitCount());
+        assertEquals(1, second.getEntryCount());
+
+        // A modified page is parsed and stored again
+        Files.writeString(file, "Changed");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2000000));
+        PageCache third = new PageCache(4, 1024);
+        third.setDiskCache(second.getDiskCache());
+        assertEquals("Changed", ((TextSpan) third.load(url, ContentSpanBuilder::buildContentSpan).getContentSpan()).getText());
+        assertEquals(1, third.getMissCount());
+        assertTrue(third.getDiskCache().get(url).getPage().getContentSpan() instanceof TextSpan);
+        second.getDiskCache().close();
+    }
+
+    private static Page page(String html) throws IOException {
+        PageSource.Recorder recorder = PageSource.record(new java.io.ByteArrayInputStream(html.getBytes()));
+        return new Page(ContentSpanBuilder.buildContentSpan(new StringReader(html)), recorder.finish());
+    }
+
+    @TempDir
+    Path directory;
+}
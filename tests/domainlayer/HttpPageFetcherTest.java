@@ -0,0 +1,188 @@
+package domainlayer;
+
+import browsrhtml.ContentSpanBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HTTP page fetcher")
+public class HttpPageFetcherTest {
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("decodes gzip encoded pages")
+    void gzipPage() throws Exception {
+        server.createContext("/gzip", exchange -> {
+            assertTrue(exchange.getRequestHeaders().getFirst("Accept-Encoding").contains("gzip"));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write("Compressed".getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            respond(exchange, 200, bytes.toByteArray());
+        });
+        FetchResponse response = new HttpPageFetcher().fetch(url("/gzip"), null, 0);
+        try (InputStream body = response.getBody()) {
+            assertEquals("Compressed", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("revalidates cached pages with their ETag")
+    void revalidatePage() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/page", exchange -> {
+            requests.incrementAndGet();
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                respond(exchange, 304, null);
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            respond(exchange, 200, "Cached".getBytes(StandardCharsets.UTF_8));
+        });
+        PageCache cache = new PageCache(4, 1024, new HttpPageFetcher());
+
+        Page first = cache.load(url("/page"), ContentSpanBuilder::buildContentSpan);
+        assertEquals("Cached", ((TextSpan) first.getContentSpan()).getText());
+        assertSame(first, cache.load(url("/page"), ContentSpanBuilder::buildContentSpan));
+        assertEquals(2, requests.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("limits the number of concurrent requests per host")
+    void limitRequestsPerHost() throws Exception {
+        server.createContext("/limited", exchange -> respond(exchange, 200, "Page".getBytes(StandardCharsets.UTF_8)));
+        HttpPageFetcher fetcher = new HttpPageFetcher(Duration.ofSeconds(5), Duration.ofSeconds(5), 1);
+        FetchResponse first = fetcher.fetch(url("/limited"), null, 0);
+
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<FetchResponse> second = executor.submit(() -> {
+                started.countDown();
+                return fetcher.fetch(url("/limited"), null, 0);
+            });
+            started.await();
+            // The second request waits until the body of the first one is closed
+            assertThrows(TimeoutException.class, () -> second.get(300, TimeUnit.MILLISECONDS));
+            first.getBody().close();
+            try (InputStream body = second.get(5, TimeUnit.SECONDS).getBody()) {
+                assertEquals("Page", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("closes the body of a page that can't be decoded")
+    void undecodableBody() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        server.createContext("/corrupt", exchange -> {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            // Far more than the client buffers, so the server only finishes once the client hangs up
+            byte[] garbage = new byte[64 * 1024];
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 1024; i++)
+                    out.write(garbage);
+            } catch (IOException e) {
+                closed.countDown();
+            }
+        });
+        HttpPageFetcher fetcher = new HttpPageFetcher(Duration.ofSeconds(5), Duration.ofSeconds(5), 1);
+        assertThrows(ZipException.class, () -> fetcher.fetch(url("/corrupt"), null, 0));
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("gives up on servers that don't respond in time")
+    void readTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) { }
+            respond(exchange, 200, new byte[0]);
+        });
+        HttpPageFetcher fetcher = new HttpPageFetcher(Duration.ofSeconds(5), Duration.ofMillis(200), 2);
+        assertThrows(IOException.class, () -> fetcher.fetch(url("/slow"), null, 0));
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("reports missing pages and server errors")
+    void errorStatus() {
+        server.createContext("/error", exchange -> respond(exchange, 500, null));
+        HttpPageFetcher fetcher = new HttpPageFetcher();
+        assertThrows(FileNotFoundException.class, () -> fetcher.fetch(url("/missing"), null, 0));
+        IOException error = assertThrows(IOException.class, () -> fetcher.fetch(url("/error"), null, 0));
+        assertFalse(error instanceof FileNotFoundException);
+    }
+
+    @Test
+    @DisplayName("rejects non-positive timeouts and limits")
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new HttpPageFetcher(Duration.ZERO, Duration.ofSeconds(1), 1));
+        assertThrows(IllegalArgumentException.class, () -> new HttpPageFetcher(Duration.ofSeconds(1), Duration.ofSeconds(-1), 1));
+        assertThrows(IllegalArgumentException.class, () -> new HttpPageFetcher(Duration.ofSeconds(1), Duration.ofSeconds(1), 0));
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), path);
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body == null ? -1 : body.length);
+        if (body != null) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+}
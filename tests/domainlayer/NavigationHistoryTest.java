@@ -0,0 +1,111 @@
+package domainlayer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Navigation history")
+public class NavigationHistoryTest {
+
+    @Test
+    @DisplayName("goes back and forward through the shown pages")
+    void backAndForward() throws IOException {
+        NavigationHistory history = new NavigationHistory(1024);
+        assertNull(history.back());
+        assertNull(history.getCurrent());
+        history.push("a", page(10));
+        history.push("b", page(10));
+        history.push("c", page(10));
+        assertNull(history.forward());
+
+        assertEquals("b", history.back().getUrl());
+        assertEquals("a", history.back().getUrl());
+        assertNull(history.back());
+        assertEquals("b", history.forward().getUrl());
+
+        // Showing a new page drops the pages that could be gone forward to
+        history.push("d", page(10));
+        assertNull(history.forward());
+        assertEquals(3, history.getEntryCount());
+        assertEquals(30, history.getSize());
+        assertEquals("b", history.back().getUrl());
+        assertEquals("a", history.back().getUrl());
+    }
+
+    @Test
+    @DisplayName("drops the views and then the pages furthest from the current page")
+    void trimToBudget() throws IOException {
+        NavigationHistory history = new NavigationHistory(100);
+        for (int i = 0; i < 4; i++) {
+            history.push("page" + i, page(10));
+            history.setView(new Object(), 15);
+        }
+        assertEquals(100, history.getSize());
+        history.back();
+        history.back();
+        Object view = new Object();
+
+        // The view of page3 is furthest from page1
+        history.setView(view, 25);
+        assertEquals(95, history.getSize());
+        // The views of page0 and page2 are equally far, and the older one is dropped first
+        history.setView(view, 60);
+        assertEquals(100, history.getSize());
+        // Without other views left, the furthest page is dropped
+        history.setView(view, 70);
+        assertEquals(100, history.getSize());
+        assertSame(view, history.getView());
+
+        NavigationHistory.Entry first = history.back();
+        assertNull(first.getView());
+        assertNotNull(first.getPage());
+        history.forward();
+        history.forward();
+        NavigationHistory.Entry last = history.forward();
+        assertEquals("page3", last.getUrl());
+        assertNull(last.getPage());
+
+        // The current page is kept even if it exceeds the budget on its own
+        history.push("large", page(500));
+        assertNotNull(history.getCurrent().getPage());
+        assertEquals(500, history.getSize());
+        assertNull(history.back().getPage());
+        assertThrows(IllegalArgumentException.class, () -> new NavigationHistory(-1));
+    }
+
+    @Test
+    @DisplayName("restores kept pages without loading them again")
+    void restorePages() throws IOException {
+        Files.writeString(directory.resolve("a.html"), "<a href=\"b.html\">Page a</a>");
+        Files.writeString(directory.resolve("b.html"), "Page b");
+        Document document = new Document();
+        document.loadFromUrl(directory.resolve("a.html").toUri().toString());
+        ContentSpan a = document.getContentSpan();
+        document.loadFromHref("b.html");
+        assertEquals("Page b", ((TextSpan) document.getContentSpan()).getText());
+
+        Files.delete(directory.resolve("a.html"));
+        assertTrue(document.goBack());
+        assertSame(a, document.getContentSpan());
+        assertEquals(directory.resolve("a.html").toUri().toString(), document.getUrlString());
+        assertFalse(document.goBack());
+        assertTrue(document.goForward());
+        assertEquals(directory.resolve("b.html").toUri().toURL().toString(), document.getUrlString());
+        assertEquals("Page b", ((TextSpan) document.getContentSpan()).getText());
+        assertFalse(document.goForward());
+    }
+
+    private static Page page(int size) throws IOException {
+        return new Page(new TextSpan("Text"), PageSource.copyOf(ByteBuffer.wrap(new byte[size])));
+    }
+
+    @TempDir
+    Path directory;
+}
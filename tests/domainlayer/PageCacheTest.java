@@ -0,0 +1,135 @@
+package domainlayer;
+
+import browsrhtml.ContentSpanBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageCacheTest {
+
+    @Test
+    @DisplayName("Revisited pages are served from the cache until they change")
+    void revisitPage() throws Exception {
+        Path page = Files.createTempFile("browsr", ".html");
+        Files.writeString(page, "First");
+        Files.setLastModifiedTime(page, FileTime.fromMillis(1000000));
+        URL url = page.toUri().toURL();
+        PageCache cache = new PageCache(4, 1024);
+
+        Page first = cache.load(url, ContentSpanBuilder::buildContentSpan);
+        assertEquals("First", ((TextSpan) first.getContentSpan()).getText());
+        assertEquals(5, first.getSource().getSize());
+        assertSame(first, cache.load(url, ContentSpanBuilder::buildContentSpan));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        // Two bytes per parsed character plus the raw bytes kept in memory
+        assertEquals(15, cache.getSize());
+
+        // A modified page has to be parsed again
+        Files.writeString(page, "Second");
+        Files.setLastModifiedTime(page, FileTime.fromMillis(2000000));
+        Page second = cache.load(url, ContentSpanBuilder::buildContentSpan);
+        assertEquals("Second", ((TextSpan) second.getContentSpan()).getText());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(18, cache.getSize());
+        Files.delete(page);
+    }
+
+    @Test
+    @DisplayName("Least recently used pages are evicted")
+    void evictPages() throws Exception {
+        PageCache cache = new PageCache(2, 1024);
+        URL[] urls = new URL[3];
+        for (int i = 0; i < urls.length; i++) {
+            Path page = Files.createTempFile("browsr", ".html");
+            Files.writeString(page, "Page" + i);
+            Files.setLastModifiedTime(page, FileTime.fromMillis(1000000));
+            urls[i] = page.toUri().toURL();
+        }
+
+        cache.load(urls[0], ContentSpanBuilder::buildContentSpan);
+        cache.load(urls[1], ContentSpanBuilder::buildContentSpan);
+        cache.load(urls[0], ContentSpanBuilder::buildContentSpan);
+        cache.load(urls[2], ContentSpanBuilder::buildContentSpan);
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(1, cache.getHitCount());
+
+        // The second page was the least recently used one
+        cache.load(urls[0], ContentSpanBuilder::buildContentSpan);
+        cache.load(urls[1], ContentSpanBuilder::buildContentSpan);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+
+        // Pages are evicted once their size exceeds the bound
+        PageCache small = new PageCache(4, 30);
+        for (URL url : urls)
+            small.load(url, ContentSpanBuilder::buildContentSpan);
+        assertEquals(2, small.getEntryCount());
+        assertEquals(30, small.getSize());
+        for (URL url : urls)
+            Files.delete(Path.of(url.toURI()));
+    }
+
+    @Test
+    @DisplayName("A load waits for a prefetch of the same page that is still running")
+    void joinRunningPrefetch() throws Exception {
+        URL url = new URL("http://example.com/page.html");
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch respond = new CountDownLatch(1);
+        AtomicInteger fetches = new AtomicInteger();
+        PageCache cache = new PageCache(4, 1024, (fetched, eTag, lastModified) -> {
+            fetches.incrementAndGet();
+            fetching.countDown();
+            try {
+                respond.await();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            return new FetchResponse(new ByteArrayInputStream("Prefetched".getBytes()), null, 0, null);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<Page> prefetch = executor.submit(() -> cache.prefetch(url, ContentSpanBuilder::buildContentSpan));
+        assertTrue(fetching.await(5, TimeUnit.SECONDS));
+        // The link is clicked while its prefetch is still downloading
+        Future<Page> load = executor.submit(() -> cache.load(url, ContentSpanBuilder::buildContentSpan));
+        Thread.sleep(100);
+        assertFalse(load.isDone());
+        respond.countDown();
+
+        Page page = load.get(5, TimeUnit.SECONDS);
+        assertSame(prefetch.get(5, TimeUnit.SECONDS), page);
+        assertEquals("Prefetched", ((TextSpan) page.getContentSpan()).getText());
+        assertEquals(1, fetches.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+        assertEquals(1, cache.getEntryCount());
+
+        // The load consumed the prefetch, so the next load revalidates the page
+        cache.load(url, ContentSpanBuilder::buildContentSpan);
+        assertEquals(2, fetches.get());
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Invalid bounds")
+    void invalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new PageCache(0, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new PageCache(4, 0));
+    }
+}
@@ -0,0 +1,140 @@
+package domainlayer;
+
+import browsrhtml.ContentSpanBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Page prefetcher")
+public class PagePrefetcherTest {
+
+    @BeforeEach
+    void createPages() throws IOException {
+        for (String name : new String[] {"a", "b", "c"})
+            Files.writeString(directory.resolve(name + ".html"), "Page " + name);
+        index = directory.resolve("index.html").toUri().toURL().toString();
+    }
+
+    @Test
+    @DisplayName("serves prefetched links without fetching them again")
+    void prefetchLinks() throws Exception {
+        RecordingFetcher fetcher = new RecordingFetcher();
+        PageCache cache = new PageCache(8, 1024, fetcher);
+        PagePrefetcher prefetcher = new PagePrefetcher(cache, 32, 2);
+
+        prefetcher.pageShown(index, links("a.html", "index.html#top", "b.html", "a.html#part", "c.html"));
+        List<String> fetched = fetcher.await(2);
+        assertEquals(List.of(page("a"), page("b")), fetched);
+        // The pages are stored once they are parsed, a little after they were fetched
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getEntryCount() < 2 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+        Page a = cache.load(new URL(page("a")), ContentSpanBuilder::buildContentSpan);
+        assertEquals("Page a", ((TextSpan) a.getContentSpan()).getText());
+        assertEquals(2, fetcher.count());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+
+        // A prefetched page is only served once without revalidation
+        assertSame(a, cache.load(new URL(page("a")), ContentSpanBuilder::buildContentSpan));
+        assertEquals(3, fetcher.count());
+        prefetcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("prefers links to pages that were visited before")
+    void rankByVisits() throws Exception {
+        RecordingFetcher fetcher = new RecordingFetcher();
+        PagePrefetcher prefetcher = new PagePrefetcher(new PageCache(8, 1024, fetcher), 32, 1);
+
+        prefetcher.pageShown(page("c"), new TextSpan("Page c"));
+        prefetcher.pageShown(index, links("a.html", "c.html"));
+        assertEquals(List.of(page("c")), fetcher.await(1));
+        prefetcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("only considers the first links of a page")
+    void limitCandidates() throws Exception {
+        RecordingFetcher fetcher = new RecordingFetcher();
+        PagePrefetcher prefetcher = new PagePrefetcher(new PageCache(8, 1024, fetcher), 1, 4);
+
+        prefetcher.pageShown(page("a"), new TextSpan("Page a"));
+        prefetcher.pageShown(index, links("b.html", "a.html"));
+        assertEquals(List.of(page("b")), fetcher.await(1));
+        Thread.sleep(100);
+        assertEquals(1, fetcher.count());
+        prefetcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("rejects invalid arguments")
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PagePrefetcher(null));
+        assertThrows(IllegalArgumentException.class, () -> new PagePrefetcher(new PageCache(1, 1), 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PagePrefetcher(new PageCache(1, 1), 1, 0));
+    }
+
+    /**
+     * Build a table with a row for each of the given hyperlinks.
+     */
+    private static ContentSpan links(String... hrefs) {
+        ArrayList<TableRow> rows = new ArrayList<>();
+        for (String href : hrefs) {
+            ArrayList<TableCell> cells = new ArrayList<>();
+            cells.add(new TableCell(new HyperLink(href, new TextSpan(href))));
+            rows.add(new TableRow(cells));
+        }
+        return new Table(rows);
+    }
+
+    private String page(String name) throws IOException {
+        return directory.resolve(name + ".html").toUri().toURL().toString();
+    }
+
+    /**
+     * A fetcher that records the URLs of the pages it fetches.
+     */
+    private static class RecordingFetcher implements PageFetcher {
+
+        @Override
+        public FetchResponse fetch(URL url, String eTag, long lastModified) throws IOException {
+            synchronized (this) {
+                fetched.add(url.toString());
+                notifyAll();
+            }
+            return delegate.fetch(url, eTag, lastModified);
+        }
+
+        synchronized List<String> await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (fetched.size() < count && System.currentTimeMillis() < deadline)
+                wait(100);
+            ArrayList<String> sorted = new ArrayList<>(fetched);
+            sorted.sort(null);
+            return sorted;
+        }
+
+        synchronized int count() {
+            return fetched.size();
+        }
+
+        private final PageFetcher delegate = new HttpPageFetcher();
+        private final List<String> fetched = new ArrayList<>();
+    }
+
+    @TempDir
+    Path directory;
+    private String index;
+}
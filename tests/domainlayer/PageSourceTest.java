@@ -0,0 +1,75 @@
+package domainlayer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageSourceTest {
+
+    @Test
+    @DisplayName("Saving a page writes the bytes it was loaded from")
+    void saveLoadedPage() throws Exception {
+        String html = "<table>\n  <tr><td>Cafe\n</table>\n";
+        Path page = Files.createTempFile("browsr", ".html");
+        Files.writeString(page, html);
+        Document document = new Document();
+        document.loadFromUrl(page.toUri().toString());
+        // The page is saved without fetching it again
+        Files.delete(page);
+
+        Path saved = Files.createTempFile("browsr", "");
+        document.saveDocument(saved.toString());
+        Path savedPage = Path.of(saved + ".html");
+        assertEquals(html, Files.readString(savedPage));
+        Files.delete(saved);
+        Files.delete(savedPage);
+    }
+
+    @Test
+    @DisplayName("Large pages are spilled to a temporary file")
+    void saveSpilledPage() throws Exception {
+        byte[] bytes = new byte[PageSource.SPILL_THRESHOLD + 12345];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) ('a' + i % 26);
+        PageSource.Recorder recorder = PageSource.record(new java.io.ByteArrayInputStream(bytes));
+        assertEquals(100, recorder.read(new byte[100], 0, 100));
+        // The remainder is read when the recording is finished
+        PageSource source = recorder.finish();
+        recorder.close();
+        assertEquals(bytes.length, source.getSize());
+        assertEquals(0, source.getMemorySize());
+
+        Path saved = Files.createTempFile("browsr", ".html");
+        source.saveTo(saved);
+        assertArrayEquals(bytes, Files.readAllBytes(saved));
+        Files.delete(saved);
+    }
+
+    @Test
+    @DisplayName("Spill files left behind by processes that no longer run are removed")
+    void sweepSpillDirectories(@TempDir Path temporaryDirectory) throws Exception {
+        // No process has the largest possible ID
+        Path stale = Files.createDirectory(temporaryDirectory.resolve(PageSource.SPILL_DIRECTORY_PREFIX + Long.MAX_VALUE));
+        Files.createFile(stale.resolve("browsr1.html"));
+        Path live = Files.createDirectory(temporaryDirectory.resolve(PageSource.SPILL_DIRECTORY_PREFIX + ProcessHandle.current().pid()));
+        Files.createFile(live.resolve("browsr2.html"));
+
+        PageSource.sweepSpillDirectories(temporaryDirectory);
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(live.resolve("browsr2.html")));
+    }
+
+    @Test
+    @DisplayName("Local documents can't be saved")
+    void saveLocalDocument() {
+        Document document = new Document();
+        assertThrows(Exception.class, () -> document.saveDocument("test"));
+        document.changeContentSpan(new TextSpan("Local"));
+        assertThrows(Exception.class, () -> document.saveDocument("test"));
+    }
+}
@@ -5,7 +5,28 @@ import userinterface.DocumentArea;
 import userinterface.UITextField;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class UIControllerTest {
     @Test
@@ -92,4 +113,125 @@ public class UIControllerTest {
         assertEquals(errorText.getText(), areaText.getText());
 
     }
+
+    @Test
+    @DisplayName("Asynchronous document loading")
+    void loadAsynchronously() throws Exception {
+        Path page = Files.createTempFile("browsr", ".html");
+        Files.writeString(page, "<a href=\"a.html\">Link</a>");
+        UIController controller = new UIController();
+        controller.enableAsynchronousLoading(Runnable::run);
+        // The url is set last, and a listener is also notified once when it is added
+        CountDownLatch loaded = new CountDownLatch(2);
+        controller.addUrlListener(loaded::countDown);
+
+        controller.loadDocument(page.toUri().toString());
+        assertTrue(loaded.await(10, TimeUnit.SECONDS));
+
+        // Verify contents and latencies of the loaded document
+        assertEquals("Link", ((HyperLink) controller.getContentSpan()).getTextSpan().getText());
+        assertEquals(page.toUri().toString(), controller.getUrlString());
+        DocumentLoadMetrics metrics = controller.getLastLoadMetrics();
+        assertNotNull(metrics);
+        assertTrue(metrics.getTotalLatencyNanos() >= metrics.getLatencyNanos(DocumentLoadMetrics.Phase.PARSE));
+        Files.delete(page);
+    }
+
+    @Test
+    @DisplayName("Error documents are not kept in the navigation history")
+    void errorHistory(@TempDir Path directory) throws Exception {
+        Path page = directory.resolve("page.html");
+        Files.writeString(page, "Page");
+        UIController controller = new UIController();
+        controller.loadDocument(page.toUri().toString());
+        controller.setDocumentView("view", 10);
+
+        // A malformed href shows an error, but doesn't navigate away from the page
+        controller.loadDocumentFromHref("nosuchprotocol://page");
+        assertEquals("Error: malformed URL.", ((TextSpan) controller.getContentSpan()).getText());
+        assertEquals(page.toUri().toString(), controller.getUrlString());
+        assertNull(controller.getDocumentView());
+        NavigationHistory history = controller.getDocument().getHistory();
+        assertEquals(1, history.getEntryCount());
+        assertEquals("Page", ((TextSpan) history.getCurrent().getPage().getContentSpan()).getText());
+        assertEquals("view", history.getView());
+
+        // A page that can't be loaded gets an entry, which loads it again when it is gone back to
+        String missing = directory.resolve("missing.html").toUri().toString();
+        controller.loadDocument(missing);
+        assertEquals(2, history.getEntryCount());
+        assertNull(history.getCurrent().getPage());
+        assertTrue(controller.goBack());
+        assertEquals("view", controller.getDocumentView());
+        Files.writeString(directory.resolve("missing.html"), "Found");
+        assertTrue(controller.goForward());
+        assertEquals("Found", ((TextSpan) controller.getContentSpan()).getText());
+        assertEquals(missing, controller.getUrlString());
+    }
+
+    @Test
+    @DisplayName("Superseded asynchronous loads are never shown")
+    void supersedeLoad() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch slowReleased = new CountDownLatch(1);
+        ExecutorService serverExecutor = Executors.newCachedThreadPool();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/slow", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.flush();
+                slowStarted.countDown();
+                slowReleased.await(10, TimeUnit.SECONDS);
+                body.write("Slow".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException | IOException e) {
+                // The client gave up on the page
+            }
+        });
+        server.createContext("/fast", exchange -> {
+            byte[] page = "Fast".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, page.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(page);
+            }
+        });
+        server.start();
+        try {
+            String base = "http://127.0.0.1:" + server.getAddress().getPort();
+            UIController controller = new UIController();
+            controller.enableAsynchronousLoading(Runnable::run);
+            List<ContentSpan> shown = Collections.synchronizedList(new ArrayList<>());
+            controller.addDocumentListener(new PartialDocumentListener() {
+                @Override
+                public void partialContentChanged(ContentSpan partialContent) {
+                    shown.add(partialContent);
+                }
+
+                @Override
+                public void contentChanged() {
+                    shown.add(controller.getContentSpan());
+                }
+            });
+            // A listener is also notified once when it is added
+            shown.clear();
+            CountDownLatch loaded = new CountDownLatch(2);
+            controller.addUrlListener(loaded::countDown);
+
+            controller.loadDocument(base + "/slow");
+            assertTrue(slowStarted.await(10, TimeUnit.SECONDS));
+            controller.loadDocument(base + "/fast");
+            slowReleased.countDown();
+            // The loads run one at a time, so the first one is done once the second is shown
+            assertTrue(loaded.await(10, TimeUnit.SECONDS));
+
+            assertEquals("Fast", ((TextSpan) controller.getContentSpan()).getText());
+            assertEquals(base + "/fast", controller.getUrlString());
+            assertFalse(shown.isEmpty());
+            for (ContentSpan content : shown)
+                assertEquals("Fast", ((TextSpan) content).getText());
+        } finally {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+    }
 }
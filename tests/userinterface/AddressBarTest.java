@@ -109,6 +109,36 @@ class AddressBarTest {
         assertEquals(first, bar.getURL());
     }
 
+    @Test
+    @DisplayName("Suggests completions of typed addresses")
+    void completeAddress() {
+        UIController controller = new UIController();
+        controller.addHref("Table", "https://people.cs.kuleuven.be/bart.jacobs/browsrtest.html");
+        bar.setUiController(controller);
+        bar.handleMouse(mouseClick, 10,10, 1,leftMouse,0);
+        bar.handleKey(keyPress, KeyEvent.VK_T, 't', 0);
+        bar.handleKey(keyPress, KeyEvent.VK_A, 'a', 0);
+        assertEquals("ta", bar.getURL());
+        assertEquals("https://people.cs.kuleuven.be/bart.jacobs/browsrtest.html", bar.getCompletion());
+
+        // Any other key dismisses the completion
+        bar.handleKey(keyPress, KeyEvent.VK_LEFT, undefChar, 0);
+        assertNull(bar.getCompletion());
+        bar.handleKey(keyPress, KeyEvent.VK_RIGHT, undefChar, 0);
+        assertEquals("ta", bar.getURL());
+        bar.handleKey(keyPress, KeyEvent.VK_X, 'x', 0);
+        assertNull(bar.getCompletion());
+        bar.handleKey(keyPress, KeyEvent.VK_BACK_SPACE, '\b', 0);
+        assertNull(bar.getCompletion());
+
+        // Right at the end of the text accepts the completion
+        bar.handleKey(keyPress, KeyEvent.VK_B, 'b', 0);
+        bar.handleKey(keyPress, KeyEvent.VK_RIGHT, undefChar, 0);
+        assertEquals("https://people.cs.kuleuven.be/bart.jacobs/browsrtest.html", bar.getURL());
+        assertNull(bar.getCompletion());
+        assertTrue(bar.hasFocus);
+    }
+
     @Test
     @DisplayName("Handles resizes")
     void handleResize() {
@@ -58,6 +58,42 @@ public class BookmarksBarTest {
         assertEquals(url, controller.getURLFromBookmark(name));
     }
 
+    @Test
+    @DisplayName("Places loaded bookmarks like added ones")
+    void loadBookmarks() {
+        bookmarksBar.addBookmark("First", tableUrl);
+        bookmarksBar.addBookmark("Second bookmark", badUrl);
+        controller.addHref("Third", tableUrl);
+        BookmarksBar loaded = new BookmarksBar(5, 30, 100, 20, 5);
+        loaded.setUIController(controller);
+        loaded.loadBookmarks();
+        bookmarksBar.addBookmark("Third", tableUrl);
+
+        assertEquals(3, loaded.getTextHyperLinks().size());
+        for (int i = 0; i < 3; i++) {
+            UITextHyperlink expected = bookmarksBar.getTextHyperLinks().get(i);
+            UITextHyperlink actual = loaded.getTextHyperLinks().get(i);
+            assertEquals(expected.getText(), actual.getText());
+            assertEquals(expected.getxPos(), actual.getxPos());
+            assertEquals(expected.getyPos(), actual.getyPos());
+        }
+        assertTrue(loaded.getTextHyperLinks().get(1).getxPos() < loaded.getTextHyperLinks().get(2).getxPos());
+    }
+
+    @Test
+    @DisplayName("Replaces the shown bookmarks when they are loaded again")
+    void reloadBookmarks() {
+        bookmarksBar.addBookmark("First", tableUrl);
+        bookmarksBar.addBookmark("Second bookmark", badUrl);
+        int secondX = bookmarksBar.getTextHyperLinks().get(1).getxPos();
+        bookmarksBar.loadBookmarks();
+        bookmarksBar.loadBookmarks();
+
+        assertEquals(2, bookmarksBar.getTextHyperLinks().size());
+        assertEquals("First", bookmarksBar.getTextHyperLinks().get(0).getText());
+        assertEquals(secondX, bookmarksBar.getTextHyperLinks().get(1).getxPos());
+    }
+
     @Test
     @DisplayName("Can click on correct bookmark")
     void handleBookmarkClick() {
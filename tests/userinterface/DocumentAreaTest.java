@@ -9,7 +9,10 @@ import domainlayer.ContentSpan;
 import domainlayer.Document;
 import domainlayer.UIController;
 
+import java.awt.Font;
 import java.awt.event.MouseEvent;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -87,10 +90,11 @@ class DocumentAreaTest {
         doc.setContent(table);
         // =====================
         // The width and height of the table should be the width and height of the cells combined.
-        // The height of a cell is the size of the text. The width is the
-        double ratio = doc.getContent().getHeightToWidthRatio();
+        // The height of a cell is the size of the text. The width is the measured width of the text.
+        int contentWidth = Math.max(measuredWidth(text, textSize), measuredWidth(hrefText, textSize))
+                + measuredWidth(text2, textSize);
         assertEquals(2*(textSize+ table.verticalOffset), doc.getContent().getMaxHeight());
-        assertEquals((int) ((Math.max(text.length(), hrefText.length())+text2.length())*textSize*ratio) + 2*table.horizontalOffset, doc.getContent().getMaxWidth());
+        assertEquals(contentWidth + 2*table.horizontalOffset, doc.getContent().getMaxWidth());
 
         // Click on link and retrieve href attribute
         assertEquals(href, doc.getContent().getHandleMouse(MouseEvent.MOUSE_RELEASED, 1,textSize+6, 1, MouseEvent.BUTTON1, 0).getContent());
@@ -207,4 +211,45 @@ class DocumentAreaTest {
 
 		
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Shows visited pages again with the text typed in their forms")
+    void restoreVisitedPages() throws Exception {
+        Path directory = Files.createTempDirectory("browsr");
+        Path form = directory.resolve("form.html");
+        Path next = directory.resolve("next.html");
+        Files.writeString(form, "<form action=\"next.html\"><input type=\"text\" name=\"q\"></form>");
+        Files.writeString(next, "Next page");
+        try {
+            UIController controller = new UIController();
+            documentArea1.setController(controller);
+            controller.addDocumentListener(documentArea1);
+            controller.loadDocument(form.toUri().toString());
+            DocumentCell formCell = documentArea1.getContent();
+            UITextInputField field = (UITextInputField) ((UIForm) formCell).getFormContent();
+            field.setText("typed");
+
+            controller.loadDocument(next.toUri().toString());
+            DocumentCell nextCell = documentArea1.getContent();
+            assertTrue(nextCell instanceof UITextField);
+            assertTrue(controller.goBack());
+            assertSame(formCell, documentArea1.getContent());
+            assertSame(field, ((UIForm) documentArea1.getContent()).getFormContent());
+            assertEquals("q=typed", field.getNamesAndValues().get(0));
+            assertFalse(controller.goBack());
+            assertTrue(controller.goForward());
+            assertSame(nextCell, documentArea1.getContent());
+        } finally {
+            Files.delete(form);
+            Files.delete(next);
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Measure the width of the given text as a cell of the given size would.
+     */
+    private static int measuredWidth(String text, int size) {
+        return TextMeasurer.forFont(PaintResources.getFont(Font.SANS_SERIF, Font.PLAIN, size)).stringWidth(text);
+    }
+}
@@ -0,0 +1,86 @@
+package userinterface;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FocusManager")
+class FocusManagerTest {
+
+    private FocusManager focusManager;
+    private DocumentArea area;
+    private UITextInputField first;
+    private UITextInputField second;
+
+    private final int keyPress = KeyEvent.KEY_PRESSED;
+
+    @BeforeEach
+    void setup() {
+        focusManager = new FocusManager();
+        area = new DocumentArea(0, 0, 100, 100);
+        area.setFocusManager(focusManager);
+
+        first = new UITextInputField(0, 0, 100, 15, "first");
+        second = new UITextInputField(0, 0, 100, 15, "second");
+        ArrayList<ArrayList<DocumentCell>> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ArrayList<DocumentCell> row = new ArrayList<>();
+            row.add(new UITextField(0, 0, 20, 15, "text"));
+            if (i == 10) row.add(first);
+            if (i == 900) row.add(second);
+            rows.add(row);
+        }
+        area.setContent(new UIForm(0, 0, "action", new UITable(0, 0, 100, 100, rows)));
+    }
+
+    @Test
+    @DisplayName("registers the input fields of the document in traversal order")
+    void traversalOrder() {
+        assertEquals(List.of(first, second), focusManager.getTraversalOrder());
+        assertNull(focusManager.getFocusOwner());
+
+        focusManager.focusNext();
+        assertSame(first, focusManager.getFocusOwner());
+        focusManager.focusNext();
+        assertSame(second, focusManager.getFocusOwner());
+        assertFalse(first.hasFocus);
+        assertTrue(second.hasFocus);
+        // The traversal wraps around in both directions
+        focusManager.focusNext();
+        assertSame(first, focusManager.getFocusOwner());
+        focusManager.focusPrevious();
+        assertSame(second, focusManager.getFocusOwner());
+    }
+
+    @Test
+    @DisplayName("sends key events to the focused input field only")
+    void dispatchKey() {
+        second.toggleFocus(true);
+        assertSame(second, focusManager.getFocusOwner());
+        focusManager.dispatchKey(keyPress, KeyEvent.VK_A, 'a', 0);
+        assertEquals("a", second.getText());
+        assertEquals("", first.getText());
+
+        // Without focus, key events are not delivered
+        second.toggleFocus(false);
+        assertNull(focusManager.getFocusOwner());
+        focusManager.dispatchKey(keyPress, KeyEvent.VK_B, 'b', 0);
+        assertEquals("a", second.getText());
+    }
+
+    @Test
+    @DisplayName("forgets the input fields of replaced content")
+    void replaceContent() {
+        first.toggleFocus(true);
+        UITextInputField other = new UITextInputField(0, 0, 100, 15, "other");
+        area.setContent(other);
+        assertEquals(List.of(other), focusManager.getTraversalOrder());
+        assertNull(focusManager.getFocusOwner());
+    }
+}
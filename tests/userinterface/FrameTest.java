@@ -74,4 +74,29 @@ class FrameTest {
             new Frame(-1,10,10,10);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("tracks the area that is out of date")
+    void dirtyRegion() throws Exception {
+        Frame frame = new Frame(10,20,30,40);
+        assertNull(frame.collectDirtyRegion());
+        // Changing focus marks the Frame and its outline as out of date
+        frame.toggleFocus(true);
+        assertEquals(new Rectangle(8,18,35,45), frame.collectDirtyRegion());
+        assertNull(frame.collectDirtyRegion());
+        frame.toggleFocus(true);
+        assertNull(frame.collectDirtyRegion());
+    }
+
+    @Test
+    @DisplayName("only renders when it overlaps the clip")
+    void intersectsClip() throws Exception {
+        Frame frame = new Frame(10,20,30,40);
+        Graphics g = new java.awt.image.BufferedImage(100, 100, java.awt.image.BufferedImage.TYPE_INT_RGB).getGraphics();
+        assertTrue(frame.intersectsClip(g));
+        g.setClip(0,0,100,10);
+        assertFalse(frame.intersectsClip(g));
+        g.setClip(0,0,100,25);
+        assertTrue(frame.intersectsClip(g));
+    }
+}
@@ -0,0 +1,57 @@
+package userinterface;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("GapBuffer")
+class GapBufferTest {
+
+    @Test
+    @DisplayName("edits text like a StringBuilder")
+    void edit() {
+        GapBuffer buffer = new GapBuffer();
+        StringBuilder expected = new StringBuilder();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int index = random.nextInt(expected.length() + 1);
+            if (random.nextInt(3) == 0 && expected.length() > 0) {
+                int end = Math.min(expected.length(), index + random.nextInt(4));
+                buffer.delete(index, end);
+                expected.delete(index, end);
+            } else {
+                char c = (char) ('a' + random.nextInt(26));
+                buffer.insert(index, c);
+                expected.insert(index, c);
+            }
+            assertEquals(expected.length(), buffer.length());
+            if (i % 100 == 0)
+                assertEquals(expected.toString(), buffer.toString());
+        }
+        for (int i = 0; i < expected.length(); i++)
+            assertEquals(expected.charAt(i), buffer.charAt(i));
+
+        buffer.set("http://www.example.com");
+        buffer.insert(7, 'x');
+        assertEquals("http://xwww.example.com", buffer.toString());
+        // Deleting beyond the end stops at the end, like a StringBuilder
+        buffer.delete(18, 100);
+        assertEquals("http://xwww.exampl", buffer.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.insert(100, 'a'));
+    }
+
+    @Test
+    @DisplayName("caches its text until the next edit")
+    void cacheText() {
+        GapBuffer buffer = new GapBuffer();
+        buffer.set("text");
+        assertSame(buffer.toString(), buffer.toString());
+        String before = buffer.toString();
+        buffer.insert(4, 's');
+        assertEquals("texts", buffer.toString());
+        assertNotSame(before, buffer.toString());
+    }
+}
@@ -10,7 +10,7 @@ import org.junit.jupiter.api.Test;
 import java.awt.event.MouseEvent;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class HyperLinkTest{
 	
@@ -50,8 +50,8 @@ class HyperLinkTest{
 	@DisplayName("The user clicks a hyperlink in the document area")
 	void clickHyperlink() {
         // Not possible to calculate the actual with by hand, depends on the font etc.
-        assertFalse(link1.isCalculateActualWidth());
-        assertFalse(link2.isCalculateActualWidth());
+        assertTrue(link1.isCalculateActualWidth());
+        assertTrue(link2.isCalculateActualWidth());
         // LINK 1
         int link1Width = link1.getWidth();
         // Click not on link1
@@ -0,0 +1,69 @@
+package userinterface;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DisplayName("Painting")
+class PaintAllocationTest {
+
+    @Test
+    @DisplayName("allocates nothing per frame once the document is laid out")
+    void steadyStateFrame() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        ArrayList<ArrayList<DocumentCell>> rows = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ArrayList<DocumentCell> row = new ArrayList<>();
+            row.add(new UITextField(0, 0, 20, 15, "Some text on row " + i));
+            row.add(new UIHyperlink(0, 0, 20, 15, "/page" + i, "page " + i));
+            if (i % 10 == 0)
+                row.add(new UIForm(0, 0, "action", innerTable()));
+            rows.add(row);
+        }
+        DocumentArea area = new DocumentArea(0, 0, 600, 400);
+        area.setContent(new UITable(0, 0, 600, 400, rows));
+
+        Graphics g = new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB).getGraphics();
+        g.setClip(0, 0, 600, 400);
+        // The first frames build the shared fonts, measurers and glyph caches
+        for (int i = 0; i < 20; i++)
+            paint(area, g);
+        long threadId = Thread.currentThread().getId();
+        // A deoptimization rematerializes scalar replaced objects on the heap,
+        // so a single round may see a few bytes that don't come from painting
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 5 && allocated != 0; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 10; i++)
+                paint(area, g);
+            allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        }
+        assertEquals(0, allocated);
+    }
+
+    private UITable innerTable() {
+        ArrayList<ArrayList<DocumentCell>> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ArrayList<DocumentCell> row = new ArrayList<>();
+            row.add(new UITextField(0, 0, 20, 15, "cell " + i));
+            row.add(new UITextHyperlink(0, 0, 20, 15, "link " + i));
+            rows.add(row);
+        }
+        return new UITable(0, 0, 0, 0, rows);
+    }
+
+    private void paint(DocumentArea area, Graphics g) {
+        if (area.intersectsClip(g))
+            area.Render(g);
+    }
+}
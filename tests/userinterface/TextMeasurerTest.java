@@ -0,0 +1,41 @@
+package userinterface;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TextMeasurer")
+class TextMeasurerTest {
+
+    private final Graphics g = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB).getGraphics();
+    private final Font font = new Font(Font.DIALOG_INPUT, Font.PLAIN, 15);
+
+    @Test
+    @DisplayName("is shared per font")
+    void sharedPerFont() {
+        TextMeasurer measurer = TextMeasurer.forFont(g, font);
+        assertSame(measurer, TextMeasurer.forFont(g, new Font(Font.DIALOG_INPUT, Font.PLAIN, 15)));
+        assertNotSame(measurer, TextMeasurer.forFont(g, font.deriveFont(16f)));
+    }
+
+    @Test
+    @DisplayName("measures text like FontMetrics")
+    void measureText() {
+        TextMeasurer measurer = TextMeasurer.forFont(g, font);
+        FontMetrics metrics = g.getFontMetrics(font);
+        String text = "https://www.example.com/index.html?q=1";
+        assertEquals(metrics.stringWidth(text), measurer.stringWidth(text));
+        assertEquals(metrics.stringWidth(text), measurer.stringWidth(text));
+        assertEquals(metrics.getHeight(), measurer.getHeight());
+        for (int end = 0; end <= text.length(); end++)
+            assertEquals(metrics.stringWidth(text.substring(0, end)), measurer.prefixWidth(text, end));
+
+        // Characters outside Latin-1 are measured as a whole
+        String greek = "ab\u03b1\u03b2c";
+        assertEquals(metrics.stringWidth(greek.substring(0, 4)), measurer.prefixWidth(greek, 4));
+    }
+}
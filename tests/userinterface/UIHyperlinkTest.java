@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.awt.Font;
 import java.awt.event.MouseEvent;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,8 +36,8 @@ class UIHyperlinkTest {
     @DisplayName("can handle mouse-clicks")
     void getHandleMouse() {
         // Not possible to calculate the actual with by hand, depends on the normalFont etc.
-        assertFalse(link1.isCalculateActualWidth());
-        assertFalse(link2.isCalculateActualWidth());
+        assertTrue(link1.isCalculateActualWidth());
+        assertTrue(link2.isCalculateActualWidth());
         // LINK 1
         int link1Width = link1.getWidth();
         // Click not on link1
@@ -67,14 +68,9 @@ class UIHyperlinkTest {
     @Test
     @DisplayName("can calculate its maximum width")
     void getMaxWidth() {
-        // Should return the width of the text, calculated by the number of letters and the height-to-width ratio
-        double ratio1 = link1.getHeightToWidthRatio();
-        int width1 = (int) (link1.getText().length() * height1 * ratio1);
-        assertEquals(width1, link1.getWidth());
-
-        double ratio2 = link2.getHeightToWidthRatio();
-        int width2 = (int) (link2.getText().length() * height2 * ratio2);
-        assertEquals(width2, link2.getWidth());
+        // Should return the width of the text, as measured in the hyperlink's font
+        assertEquals(measuredWidth(text1, height1), link1.getWidth());
+        assertEquals(measuredWidth(text2, height2), link2.getWidth());
     }
 
     @Test
@@ -83,4 +79,11 @@ class UIHyperlinkTest {
             new UITextField(-1,10,10,10,"Test");
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Measure the width of the given text as a cell of the given size would.
+     */
+    private static int measuredWidth(String text, int size) {
+        return TextMeasurer.forFont(PaintResources.getFont(Font.SANS_SERIF, Font.PLAIN, size)).stringWidth(text);
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.awt.Font;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 
@@ -44,7 +46,7 @@ class UITableTest {
         tableContents.add(row);
         tableContents.add(row2);
         table1 = new UITable(x,y,width, width, tableContents);
-        assertFalse(table1.isCalculateActualWidth());
+        assertTrue(table1.isCalculateActualWidth());
         /*
         table layout:
         ----------------
@@ -77,8 +79,8 @@ class UITableTest {
     @Test
     @DisplayName("can calculate its maximum width")
     void getMaxWidth() {
-        double ratio = table1.getHeightToWidthRatio();
-        int width = (int) ((Math.max(text.length(), hrefText.length())+text2.length())*textSize*ratio);
+        int width = Math.max(measuredWidth(text, textSize), measuredWidth(hrefText, textSize))
+                + measuredWidth(text2, textSize);
         assertEquals(width+2*table1.horizontalOffset, table1.getMaxWidth());
     }
 
@@ -100,13 +102,12 @@ class UITableTest {
     @Test
     @DisplayName("correctly sets the column widths and x-positions")
     void setColumnWidths() {
-        double ratio = table1.getHeightToWidthRatio();
         // Check if first column has correct width
-        int width1 = (int) (Math.max(text.length(), hrefText.length()) * textSize * ratio);
+        int width1 = Math.max(measuredWidth(text, textSize), measuredWidth(hrefText, textSize));
         assertEquals(width1, textField1.getWidth());
         assertEquals(width1, link.getWidth());
         // Check if second column has correct width
-        int width2 = (int) (text2.length() * textSize * ratio);
+        int width2 = measuredWidth(text2, textSize);
         assertEquals(width2, textField2.getWidth());
 
         // Check if x-positions are set correctly
@@ -147,4 +148,188 @@ class UITableTest {
             new UITable(-1,10,10,10,null);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("collects the out of date areas of its cells")
+    void collectDirtyRegion() throws Exception {
+        assertNull(table1.collectDirtyRegion());
+        UITextInputField input = new UITextInputField(0, 0, 100, textSize, "name");
+        ArrayList<DocumentCell> row = new ArrayList<>();
+        row.add(input);
+        ArrayList<ArrayList<DocumentCell>> rows = new ArrayList<>();
+        rows.add(row);
+        UITable table = new UITable(0, 50, 200, 200, rows);
+
+        // Typing in the input field only marks the row of the input field as out of date
+        input.toggleFocus(true);
+        table.collectDirtyRegion();
+        input.handleKey(KeyEvent.KEY_PRESSED, KeyEvent.VK_A, 'a', 0);
+        java.awt.Rectangle region = table.collectDirtyRegion();
+        assertNotNull(region);
+        assertEquals(input.getyPos() - 2, region.y);
+        assertEquals(input.getHeight() + 5, region.height);
+        assertNull(table.collectDirtyRegion());
+    }
+
+    @Test
+    @DisplayName("only renders the rows that overlap the clip")
+    void renderVisibleRows() throws Exception {
+        int[] rendered = new int[100];
+        ArrayList<ArrayList<DocumentCell>> rows = new ArrayList<>();
+        for (int i = 0; i < rendered.length; i++) {
+            int index = i;
+            ArrayList<DocumentCell> row = new ArrayList<>();
+            row.add(new DocumentCell(0, 0, 10, 10) {
+                @Override
+                public void Render(java.awt.Graphics g) {
+                    rendered[index]++;
+                }
+            });
+            rows.add(row);
+        }
+        // Every row is 10 pixels high and followed by 3 pixels of spacing
+        UITable table = new UITable(0, 0, 10, 10, rows);
+        java.awt.Graphics g = new java.awt.image.BufferedImage(100, 2000, java.awt.image.BufferedImage.TYPE_INT_RGB).getGraphics();
+        g.setClip(0, 130, 100, 26);
+        table.Render(g);
+        for (int i = 0; i < rendered.length; i++)
+            assertEquals(i >= 10 && i <= 12 ? 1 : 0, rendered[i], "row " + i);
+
+        // Without a clip, every row is rendered
+        g.setClip(null);
+        table.Render(g);
+        assertEquals(2, rendered[10]);
+        assertEquals(1, rendered[99]);
+    }
+
+    @Test
+    @DisplayName("is only laid out again while rendering after the size of a cell changed")
+    void layOutChangedCells() throws Exception {
+        int[] layouts = new int[2];
+        DocumentCell growing = new DocumentCell(0, 0, 10, 10) {
+            @Override
+            public void Render(java.awt.Graphics g) {
+                if (getWidth() < 30) {
+                    setWidth(30);
+                    invalidateLayout();
+                }
+            }
+        };
+        ArrayList<ArrayList<DocumentCell>> innerRows = new ArrayList<>();
+        innerRows.add(new ArrayList<>(java.util.List.of(growing)));
+        UITable inner = new UITable(0, 0, 10, 10, innerRows) {
+            @Override
+            public void setColumnWidths() {
+                layouts[0]++;
+                super.setColumnWidths();
+            }
+        };
+        ArrayList<ArrayList<DocumentCell>> outerRows = new ArrayList<>();
+        outerRows.add(new ArrayList<>(java.util.List.of(inner, new DocumentCell(0, 0, 10, 10))));
+        UITable outer = new UITable(0, 0, 10, 10, outerRows) {
+            @Override
+            public void setColumnWidths() {
+                layouts[1]++;
+                super.setColumnWidths();
+            }
+        };
+        assertEquals(1, layouts[0]);
+        assertEquals(1, layouts[1]);
+        java.awt.Graphics g = new java.awt.image.BufferedImage(100, 100, java.awt.image.BufferedImage.TYPE_INT_RGB).getGraphics();
+
+        // The grown cell lays out both the table it is in and the table around that one
+        outer.Render(g);
+        assertEquals(2, layouts[0]);
+        assertEquals(2, layouts[1]);
+        assertEquals(30 + inner.horizontalOffset, inner.getMaxWidth());
+        assertEquals(inner.getMaxWidth() + outer.horizontalOffset, outerRows.get(0).get(1).getxPos());
+
+        // Frames in which no cell changed size don't lay out the tables
+        for (int i = 0; i < 10; i++)
+            outer.Render(g);
+        assertEquals(2, layouts[0]);
+        assertEquals(2, layouts[1]);
+    }
+
+    @Test
+    @DisplayName("marks the cells that moved after a button measured its width as out of date")
+    void dirtyAfterButtonMeasured() throws Exception {
+        UIButton button = new UIButton(0, 0, 10, 20, "A wide button", "submit");
+        UITextField after = new UITextField(0, 0, 0, textSize, text);
+        ArrayList<ArrayList<DocumentCell>> rows = new ArrayList<>();
+        rows.add(new ArrayList<>(java.util.List.of(button, after)));
+        UITable table = new UITable(0, 0, 10, 10, rows);
+        assertNull(table.collectDirtyRegion());
+        int oldX = after.getxPos();
+
+        java.awt.Graphics g = new java.awt.image.BufferedImage(600, 100, java.awt.image.BufferedImage.TYPE_INT_RGB).getGraphics();
+        table.Render(g);
+        assertTrue(button.getWidth() > 10);
+        assertEquals(button.getWidth() + table.horizontalOffset, after.getxPos());
+        // The text field was painted at its old position, so both positions are repainted
+        java.awt.Rectangle region = table.collectDirtyRegion();
+        assertNotNull(region);
+        assertTrue(region.contains(oldX, after.getyPos()));
+        assertTrue(region.contains(after.getxPos() + after.getWidth(), after.getyPos() + after.getHeight()));
+
+        // Once the layout is up to date, rendering doesn't mark anything as out of date
+        table.Render(g);
+        assertNull(table.collectDirtyRegion());
+    }
+
+    @Test
+    @DisplayName("moves nested tables along with their cells")
+    void nestedLayout() throws Exception {
+        ArrayList<DocumentCell> innerRow = new ArrayList<>();
+        innerRow.add(table1);
+        ArrayList<ArrayList<DocumentCell>> rows = new ArrayList<>();
+        UITextField header = new UITextField(0, 0, 20, textSize, text);
+        ArrayList<DocumentCell> headerRow = new ArrayList<>();
+        headerRow.add(header);
+        rows.add(headerRow);
+        rows.add(innerRow);
+        UITable outer = new UITable(5, 7, 20, 20, rows);
+
+        // The nested table is placed below the header, and its cells are moved along
+        assertEquals(5, table1.getxPos());
+        assertEquals(7 + textSize + outer.verticalOffset, table1.getyPos());
+        assertEquals(table1.getyPos(), textField1.getyPos());
+        assertEquals(table1.getyPos() + textSize + table1.verticalOffset, link.getyPos());
+        assertEquals(table1.getxPos() + textField1.getWidth() + table1.horizontalOffset, textField2.getxPos());
+        assertEquals(textSize + table1.getMaxHeight() + 2 * outer.verticalOffset, outer.getMaxHeight());
+    }
+
+    @Test
+    @DisplayName("forwards clicks to the cell under them and to the cells that receive missed clicks")
+    void getHandleMouseIndexed() throws Exception {
+        ArrayList<ArrayList<DocumentCell>> rows = new ArrayList<>();
+        UITextInputField input = new UITextInputField(0, 0, 100, textSize, "name");
+        for (int i = 0; i < 100; i++) {
+            ArrayList<DocumentCell> row = new ArrayList<>();
+            row.add(new UIHyperlink(0, 0, 20, textSize, "/page" + i, "page" + i));
+            row.add(i == 50 ? input : new UITextField(0, 0, 20, textSize, text));
+            rows.add(row);
+        }
+        UITable table = new UITable(0, 0, 10, 10, rows);
+        assertTrue(table.receivesMissedMouseEvents());
+        assertFalse(table1.receivesMissedMouseEvents());
+
+        DocumentCell target = rows.get(70).get(0);
+        ReturnMessage result = table.getHandleMouse(mouseClick, target.getxPos() + 1, target.getyPos() + 1, 1, leftMouse, 0);
+        assertEquals("/page70", result.getContent());
+
+        // The input field gains focus when clicked, and loses it on a click elsewhere
+        table.getHandleMouse(mouseClick, input.getxPos() + 1, input.getyPos() + 1, 1, leftMouse, 0);
+        assertTrue(input.hasFocus);
+        result = table.getHandleMouse(mouseClick, 1000, 1000, 1, leftMouse, 0);
+        assertSame(ReturnMessage.EMPTY, result);
+        assertFalse(input.hasFocus);
+    }
+
+    /**
+     * Measure the width of the given text as a cell of the given size would.
+     */
+    private static int measuredWidth(String text, int size) {
+        return TextMeasurer.forFont(PaintResources.getFont(Font.SANS_SERIF, Font.PLAIN, size)).stringWidth(text);
+    }
+}
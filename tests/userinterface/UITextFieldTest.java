@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.awt.Font;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("UITextField:")
@@ -25,19 +27,12 @@ class UITextFieldTest {
     @Test
     @DisplayName("can calculate its maximum width")
     void getMaxWidth() {
-        // The maximum width is calculated as follows:
-        // -> number of characters * height * height-to-width-ratio
-        assertFalse(textField1.isCalculateActualWidth());
-        int height1 = textField1.getHeight();
-        double ratio1 = textField1.getHeightToWidthRatio();
-        int width1 = (int) (textField1.getText().length() * height1 * ratio1);
-        assertEquals(width1, textField1.getMaxWidth());
-
-        assertFalse(textField2.isCalculateActualWidth());
-        int height2 = textField2.getHeight();
-        double ratio2 = textField2.getHeightToWidthRatio();
-        int width2 = (int) (textField2.getText().length() * height2 * ratio2);
-        assertEquals(width2, textField2.getMaxWidth());
+        // The maximum width is the width of the text, measured in the text field's font
+        assertTrue(textField1.isCalculateActualWidth());
+        assertEquals(measuredWidth(text1, size1), textField1.getMaxWidth());
+
+        assertTrue(textField2.isCalculateActualWidth());
+        assertEquals(measuredWidth(text2, size2), textField2.getMaxWidth());
     }
 
     @Test
@@ -60,4 +55,11 @@ class UITextFieldTest {
             new UITextField(-1,10,10,10,"Test");
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Measure the width of the given text as a cell of the given size would.
+     */
+    private static int measuredWidth(String text, int size) {
+        return TextMeasurer.forFont(PaintResources.getFont(Font.SANS_SERIF, Font.PLAIN, size)).stringWidth(text);
+    }
+}